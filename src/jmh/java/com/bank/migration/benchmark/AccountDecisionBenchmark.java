@@ -0,0 +1,129 @@
+package com.bank.migration.benchmark;
+
+import com.bank.migration.config.DroolsConfig;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.bank.migration.service.RuleSet;
+import com.bank.migration.service.RuleSetCompiler;
+import com.bank.migration.service.RuleTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-account decisions for customers with many accounts: the customer context and one
+ * context per account evaluated together (one Drools session), compared with the customer
+ * decisions alone and with a session per account. The time per customer should grow about
+ * linearly with the account count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountDecisionBenchmark {
+    
+    private static final int CUSTOMERS = 64;
+    
+    // matrix, or a Drools session mode: stateless, pooled, new
+    @Param({"matrix", "stateless", "pooled"})
+    private String mode;
+    
+    @Param({"10", "100", "500"})
+    private int accountCount;
+    
+    private RuleSet ruleSet;
+    private List<List<AccountInfo>> customers;
+    
+    @Setup
+    public void setUp() {
+        DroolsConfig droolsConfig = new DroolsConfig();
+        boolean matrix = mode.equals("matrix");
+        droolsConfig.setDecisionMatrixEnabled(matrix);
+        if (!matrix) {
+            droolsConfig.getSession().setMode(DroolsConfig.SessionMode.valueOf(mode.toUpperCase(Locale.ROOT)));
+        }
+        ruleSet = new RuleSetCompiler(droolsConfig, new SimpleMeterRegistry())
+                .compile(RuleTable.bundled(getClass().getClassLoader()));
+        customers = BenchmarkData.customers(CUSTOMERS, accountCount);
+    }
+    
+    @Benchmark
+    public CustomerMigrationContext customerOnly(CustomerCursor cursor) {
+        CustomerMigrationContext context = customerContext(cursor.next());
+        evaluate(List.of(context));
+        return context;
+    }
+    
+    @Benchmark
+    public List<CustomerMigrationContext> perAccount(CustomerCursor cursor) {
+        List<CustomerMigrationContext> contexts = withAccounts(customerContext(cursor.next()));
+        evaluate(contexts);
+        return contexts;
+    }
+    
+    // What per-account decisions would cost without sharing the evaluation
+    @Benchmark
+    public List<CustomerMigrationContext> sessionPerAccount(CustomerCursor cursor) {
+        List<CustomerMigrationContext> contexts = withAccounts(customerContext(cursor.next()));
+        for (CustomerMigrationContext context : contexts) {
+            evaluate(List.of(context));
+        }
+        return contexts;
+    }
+    
+    private CustomerMigrationContext customerContext(int customer) {
+        CustomerMigrationContext context = CustomerMigrationContext.builder()
+                .customerId("C" + customer)
+                .accounts(customers.get(customer))
+                .requestedFeatures(BenchmarkData.FEATURES)
+                .evaluationTime(LocalDateTime.now())
+                .featureRegistry(ruleSet.getFeatureRegistry())
+                .build();
+        context.deriveCustomerStatus();
+        return context;
+    }
+    
+    private static List<CustomerMigrationContext> withAccounts(CustomerMigrationContext context) {
+        List<CustomerMigrationContext> contexts = new ArrayList<>(context.getAccounts().size() + 1);
+        contexts.add(context);
+        context.getAccounts().forEach(account -> contexts.add(context.forAccount(account)));
+        return contexts;
+    }
+    
+    private void evaluate(List<CustomerMigrationContext> contexts) {
+        if (ruleSet.getDecisionMatrix().isCompiled()) {
+            for (CustomerMigrationContext context : contexts) {
+                ruleSet.getDecisionMatrix().evaluate(context);
+            }
+        } else {
+            ruleSet.getSessionExecutor().execute(contexts);
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class CustomerCursor {
+        int next;
+        
+        int next() {
+            next = (next + 1) % CUSTOMERS;
+            return next;
+        }
+    }
+}
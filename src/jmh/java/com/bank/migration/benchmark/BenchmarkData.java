@@ -0,0 +1,52 @@
+package com.bank.migration.benchmark;
+
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic account data for the benchmarks: a mix of account types, statuses and waves,
+ * with migration dates spread around today so the window checks take both branches.
+ */
+final class BenchmarkData {
+    
+    static final List<String> FEATURES = List.of("feature1", "feature2", "feature3", "feature4", "feature5");
+    
+    private static final AccountType[] ACCOUNT_TYPES = AccountType.values();
+    private static final MigrationStatus[] MIGRATION_STATUSES = MigrationStatus.values();
+    private static final MigrationWave[] MIGRATION_WAVES = MigrationWave.values();
+    
+    private BenchmarkData() {
+    }
+    
+    static List<AccountInfo> accounts(int count, long seed) {
+        Random random = new Random(seed);
+        LocalDate today = LocalDate.now();
+        List<AccountInfo> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accounts.add(AccountInfo.builder()
+                    .accountId("A" + seed + "-" + i)
+                    .accountType(ACCOUNT_TYPES[random.nextInt(ACCOUNT_TYPES.length)])
+                    .migrationStatus(MIGRATION_STATUSES[random.nextInt(MIGRATION_STATUSES.length)])
+                    .migrationWave(MIGRATION_WAVES[random.nextInt(MIGRATION_WAVES.length)])
+                    .migrationDate(random.nextInt(4) == 0 ? null : today.plusDays(random.nextInt(30) - 10))
+                    .build());
+        }
+        return accounts;
+    }
+    
+    // Distinct account sets, so the benchmarks do not keep hitting one well-predicted shape
+    static List<List<AccountInfo>> customers(int customerCount, int accountCount) {
+        List<List<AccountInfo>> customers = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            customers.add(accounts(accountCount, i));
+        }
+        return customers;
+    }
+}
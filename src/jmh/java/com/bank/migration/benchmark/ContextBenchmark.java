@@ -0,0 +1,81 @@
+package com.bank.migration.benchmark;
+
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.bank.migration.model.rules.CustomerStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer status derivation and the helper predicates the rules call. Every invocation
+ * assigns the accounts again, so the one-pass account summary is rebuilt each time as it
+ * is for a request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextBenchmark {
+    
+    private static final int CUSTOMERS = 256;
+    
+    @Param({"1", "10", "100", "500"})
+    private int accountCount;
+    
+    private List<List<AccountInfo>> customers;
+    private CustomerMigrationContext context;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        customers = BenchmarkData.customers(CUSTOMERS, accountCount);
+        context = CustomerMigrationContext.builder()
+                .customerId("C1")
+                .requestedFeatures(BenchmarkData.FEATURES)
+                .evaluationTime(LocalDateTime.now())
+                .build();
+    }
+    
+    @Benchmark
+    public CustomerStatus deriveCustomerStatus() {
+        context.setAccounts(nextCustomer());
+        return context.deriveCustomerStatus();
+    }
+    
+    // The predicates one evaluation of the rule table asks for
+    @Benchmark
+    public void predicates(Blackhole blackhole) {
+        context.setAccounts(nextCustomer());
+        blackhole.consume(context.getCurrentWave());
+        blackhole.consume(context.hasSavingsOrCD());
+        blackhole.consume(context.hasChecking());
+        blackhole.consume(context.hasLendingOrIRA());
+        blackhole.consume(context.hasAccountType(AccountType.IRA));
+        blackhole.consume(context.hasNotMigratedStatus());
+        blackhole.consume(context.allAccountsInTerminalState());
+        blackhole.consume(context.isWithinMigrationWindow(168));
+        blackhole.consume(context.matchesMigrationWindow(0));
+    }
+    
+    private List<AccountInfo> nextCustomer() {
+        next = (next + 1) % CUSTOMERS;
+        return customers.get(next);
+    }
+}
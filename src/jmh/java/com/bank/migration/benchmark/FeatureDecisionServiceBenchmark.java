@@ -0,0 +1,129 @@
+package com.bank.migration.benchmark;
+
+import com.bank.migration.MigrationFeatureManagementApplication;
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.model.dto.FeatureCheckResponse;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.service.FeatureDecisionService;
+import com.bank.migration.service.MigrationApiCircuitBreaker;
+import com.bank.migration.service.MigrationApiClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FeatureDecisionService.checkFeatures in the real application context, with the migration
+ * API replaced by an in-memory stub. With caches off every call looks the accounts up and
+ * evaluates the rules; with caches on the account and decision caches answer repeat
+ * customers. Application logging is turned down to WARN so the console does not dominate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeatureDecisionServiceBenchmark {
+    
+    private static final int CUSTOMERS = 1024;
+    
+    @Param({"false", "true"})
+    private boolean caches;
+    
+    @Param({"5"})
+    private int accountCount;
+    
+    private ConfigurableApplicationContext applicationContext;
+    private FeatureDecisionService featureDecisionService;
+    private String[] customerIds;
+    
+    @Setup
+    public void setUp() {
+        List<List<AccountInfo>> customers = BenchmarkData.customers(CUSTOMERS, accountCount);
+        customerIds = new String[CUSTOMERS];
+        Map<String, List<AccountInfo>> accounts = new HashMap<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerIds[i] = "C" + i;
+            accounts.put(customerIds[i], customers.get(i));
+        }
+        StubMigrationApi.accounts = accounts;
+        
+        applicationContext = new SpringApplicationBuilder(MigrationFeatureManagementApplication.class, StubMigrationApi.class)
+                .web(WebApplicationType.NONE)
+                // As arguments, since application.yml takes precedence over default properties
+                .run("--migration.api.cache.enabled=" + caches,
+                        "--migration.rules.decision-cache.enabled=" + caches,
+                        "--logging.level.com.bank.migration=WARN");
+        featureDecisionService = applicationContext.getBean(FeatureDecisionService.class);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+    
+    @Benchmark
+    public FeatureCheckResponse checkFeatures(CustomerCursor cursor) {
+        return featureDecisionService.checkFeatures(customerIds[cursor.next()], BenchmarkData.FEATURES);
+    }
+    
+    @State(Scope.Thread)
+    public static class CustomerCursor {
+        int next;
+        
+        int next() {
+            next = (next + 1) % CUSTOMERS;
+            return next;
+        }
+    }
+    
+    /**
+     * Replaces the migration API client; passed to the application as a source rather than
+     * annotated, so component scanning never picks it up.
+     */
+    static class StubMigrationApi {
+        
+        static Map<String, List<AccountInfo>> accounts;
+        
+        @Bean
+        @Primary
+        MigrationApiClient stubMigrationApiClient(RestTemplate restTemplate, MigrationApiConfig config,
+                                                  MigrationApiCircuitBreaker circuitBreaker,
+                                                  MeterRegistry meterRegistry) {
+            return new MigrationApiClient(restTemplate, config, circuitBreaker, meterRegistry) {
+                @Override
+                public List<AccountInfo> getAccountStatuses(String customerId) {
+                    return accounts.getOrDefault(customerId, List.of());
+                }
+                
+                @Override
+                public Map<String, List<AccountInfo>> getAccountStatusesBulk(List<String> customerIds) {
+                    Map<String, List<AccountInfo>> found = new HashMap<>();
+                    customerIds.forEach(customerId -> found.put(customerId, getAccountStatuses(customerId)));
+                    return found;
+                }
+            };
+        }
+    }
+}
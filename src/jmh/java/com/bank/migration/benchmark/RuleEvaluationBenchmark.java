@@ -0,0 +1,93 @@
+package com.bank.migration.benchmark;
+
+import com.bank.migration.config.DroolsConfig;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.bank.migration.service.RuleSet;
+import com.bank.migration.service.RuleSetCompiler;
+import com.bank.migration.service.RuleTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One customer evaluated against the bundled migration-rules.csv: derive the status, run the
+ * rules and apply defaults, either with the compiled decision matrix or in a Drools session
+ * of the given mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+    
+    private static final int CUSTOMERS = 256;
+    
+    // matrix, or a Drools session mode: stateless, pooled, new
+    @Param({"matrix", "stateless", "pooled", "new"})
+    private String mode;
+    
+    @Param({"5"})
+    private int accountCount;
+    
+    private RuleSet ruleSet;
+    private List<List<AccountInfo>> customers;
+    
+    @Setup
+    public void setUp() {
+        DroolsConfig droolsConfig = new DroolsConfig();
+        boolean matrix = mode.equals("matrix");
+        droolsConfig.setDecisionMatrixEnabled(matrix);
+        if (!matrix) {
+            droolsConfig.getSession().setMode(DroolsConfig.SessionMode.valueOf(mode.toUpperCase(Locale.ROOT)));
+        }
+        ruleSet = new RuleSetCompiler(droolsConfig, new SimpleMeterRegistry())
+                .compile(RuleTable.bundled(getClass().getClassLoader()));
+        customers = BenchmarkData.customers(CUSTOMERS, accountCount);
+    }
+    
+    @Benchmark
+    public CustomerMigrationContext evaluate(CustomerCursor cursor) {
+        int customer = cursor.next();
+        CustomerMigrationContext context = CustomerMigrationContext.builder()
+                .customerId("C" + customer)
+                .accounts(customers.get(customer))
+                .requestedFeatures(BenchmarkData.FEATURES)
+                .evaluationTime(LocalDateTime.now())
+                .featureRegistry(ruleSet.getFeatureRegistry())
+                .build();
+        context.deriveCustomerStatus();
+        if (ruleSet.getDecisionMatrix().isCompiled()) {
+            ruleSet.getDecisionMatrix().evaluate(context);
+        } else {
+            ruleSet.getSessionExecutor().execute(List.of(context));
+        }
+        return context;
+    }
+    
+    @State(Scope.Thread)
+    public static class CustomerCursor {
+        int next;
+        
+        int next() {
+            next = (next + 1) % CUSTOMERS;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.migration.benchmark;
+
+import com.bank.migration.model.dto.CustomerAccountsResponse;
+import com.bank.migration.model.dto.FeatureCheckResponse;
+import com.bank.migration.model.dto.FeatureStatus;
+import com.bank.migration.model.rules.CustomerStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Jackson serialization of the two response bodies, with an ObjectMapper set up the way
+ * Spring Boot configures the one behind the REST endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    
+    @Param({"1", "10", "100"})
+    private int accountCount;
+    
+    private ObjectMapper objectMapper;
+    private FeatureCheckResponse featureCheckResponse;
+    private CustomerAccountsResponse customerAccountsResponse;
+    
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        
+        List<FeatureStatus> featureStatuses = BenchmarkData.FEATURES.stream()
+                .map(feature -> FeatureStatus.builder()
+                        .feature(feature)
+                        .enabled(feature.hashCode() % 2 == 0)
+                        .reason("WAVE1: " + feature + " enabled")
+                        .build())
+                .collect(Collectors.toList());
+        Map<String, FeatureStatus> featureSuppressionInfo = new LinkedHashMap<>();
+        featureStatuses.forEach(status -> featureSuppressionInfo.put(status.getFeature(), status));
+        
+        featureCheckResponse = FeatureCheckResponse.builder()
+                .customerId("C1")
+                .features(featureStatuses)
+                .build();
+        customerAccountsResponse = CustomerAccountsResponse.builder()
+                .customerId("C1")
+                .customerStatus(CustomerStatus.SCHEDULED)
+                .accounts(BenchmarkData.accounts(accountCount, 1))
+                .featureSuppressionInfo(featureSuppressionInfo)
+                .build();
+    }
+    
+    // Independent of accountCount; repeated per parameter value only as a reference point
+    @Benchmark
+    public byte[] featureCheckResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(featureCheckResponse);
+    }
+    
+    @Benchmark
+    public byte[] customerAccountsResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(customerAccountsResponse);
+    }
+}
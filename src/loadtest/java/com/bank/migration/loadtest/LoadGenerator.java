@@ -0,0 +1,183 @@
+package com.bank.migration.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Open-model load: requests are started on a fixed schedule whatever the response times, and
+ * latency is measured from the scheduled start, so a stalled service shows up in the
+ * percentiles instead of quietly lowering the offered load. Requests beyond
+ * load.max-in-flight are not sent and count as client_backlog errors.
+ */
+final class LoadGenerator {
+    
+    private final LoadTestOptions options;
+    private final URI service;
+    private final HttpClient client;
+    private final Semaphore inFlight;
+    private final String featuresBody;
+    
+    private final EndpointStats featureChecks = new EndpointStats("POST /api/features/check");
+    private final EndpointStats accountLookups = new EndpointStats("POST /api/features/customers/{id}/accounts");
+    
+    LoadGenerator(LoadTestOptions options, URI service) {
+        this.options = options;
+        this.service = service;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.inFlight = new Semaphore(options.getMaxInFlight());
+        this.featuresBody = options.getFeatures().stream()
+                .map(feature -> "\"" + feature + "\"")
+                .collect(Collectors.joining(",", "{\"features\":[", "]}"));
+    }
+    
+    // Offers options.rate requests per second for the given time, then waits for the stragglers
+    void run(Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double intervalNanos = 1e9 / options.getRate();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(intended);
+        }
+        long drainDeadline = System.nanoTime() + options.getRequestTimeout().toNanos();
+        while (inFlight.availablePermits() < options.getMaxInFlight() && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+    
+    void reset() {
+        featureChecks.reset();
+        accountLookups.reset();
+    }
+    
+    void report(PrintStream out, Duration duration) {
+        out.printf("%-46s %9s %9s %9s %8s %8s %8s %8s %8s%n",
+                "Endpoint", "Requests", "OK/s", "Errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EndpointStats stats : List.of(featureChecks, accountLookups)) {
+            stats.report(out, duration);
+        }
+    }
+    
+    private void send(long intended) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String customerId = "C" + random.nextInt(options.getCustomers());
+        boolean accounts = random.nextDouble() < options.getAccountsShare();
+        EndpointStats stats = accounts ? accountLookups : featureChecks;
+        stats.sent.increment();
+        
+        if (!inFlight.tryAcquire()) {
+            stats.failure("client_backlog");
+            return;
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .timeout(options.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(featuresBody));
+        if (accounts) {
+            request.uri(service.resolve("/api/features/customers/" + customerId + "/accounts?withFeatures=true"));
+        } else {
+            request.uri(service.resolve("/api/features/check")).header("customerId", customerId);
+        }
+        client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.release();
+                    long latency = System.nanoTime() - intended;
+                    if (error != null) {
+                        stats.failure(errorKind(error));
+                    } else if (response.statusCode() / 100 != 2) {
+                        stats.failure("HTTP " + response.statusCode());
+                    } else {
+                        stats.success(latency);
+                    }
+                });
+    }
+    
+    private static String errorKind(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            return "timeout";
+        }
+        if (cause instanceof ConnectException) {
+            return "connect";
+        }
+        return cause.getClass().getSimpleName();
+    }
+    
+    private static final class EndpointStats {
+        
+        private final String name;
+        // Microseconds, 3 significant digits; grows as needed
+        private final Recorder latency = new Recorder(3);
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        
+        EndpointStats(String name) {
+            this.name = name;
+        }
+        
+        void success(long latencyNanos) {
+            succeeded.increment();
+            latency.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        }
+        
+        void failure(String kind) {
+            errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        }
+        
+        void reset() {
+            latency.reset();
+            sent.reset();
+            succeeded.reset();
+            errors.clear();
+        }
+        
+        void report(PrintStream out, Duration duration) {
+            Histogram histogram = latency.getIntervalHistogram();
+            long errorCount = errors.values().stream().mapToLong(LongAdder::sum).sum();
+            out.printf("%-46s %9d %9.1f %9d %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    name, sent.sum(), succeeded.sum() * 1000.0 / duration.toMillis(), errorCount,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0);
+            if (errorCount > 0) {
+                Map<String, Long> breakdown = new TreeMap<>();
+                errors.forEach((kind, count) -> breakdown.put(kind, count.sum()));
+                out.println("    errors: " + breakdown);
+            }
+        }
+        
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
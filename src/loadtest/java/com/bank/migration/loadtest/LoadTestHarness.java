@@ -0,0 +1,64 @@
+package com.bank.migration.loadtest;
+
+import com.bank.migration.MigrationFeatureManagementApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reproduces cutover load on one machine, fully offline: starts the migration API stand-in
+ * and the service on free loopback ports in this JVM, drives the feature check and account
+ * endpoints at a fixed arrival rate, and prints throughput, latency percentiles and the
+ * error breakdown. See {@link LoadTestOptions} for the arguments.
+ */
+public final class LoadTestHarness {
+    
+    private LoadTestHarness() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        
+        MigrationApiStub stub = new MigrationApiStub(options);
+        int stubPort = stub.start();
+        
+        List<String> serviceArgs = new ArrayList<>();
+        serviceArgs.add("--server.port=0");
+        serviceArgs.add("--migration.api.base-url=http://localhost:" + stubPort);
+        if (options.getServiceArgs().stream().noneMatch(arg -> arg.startsWith("--logging.level.com.bank.migration="))) {
+            // Per-request logging at the default DEBUG level would be what gets measured
+            serviceArgs.add("--logging.level.com.bank.migration=WARN");
+        }
+        serviceArgs.addAll(options.getServiceArgs());
+        ConfigurableApplicationContext service = SpringApplication.run(
+                MigrationFeatureManagementApplication.class, serviceArgs.toArray(String[]::new));
+        try {
+            int port = ((WebServerApplicationContext) service).getWebServer().getPort();
+            LoadGenerator generator = new LoadGenerator(options, URI.create("http://localhost:" + port));
+            
+            System.out.printf("Offering %.0f requests/s for %s after a %s warmup (stub latency median %s, p99 %s, "
+                            + "error rate %.3f, timeout rate %.3f)%n",
+                    options.getRate(), options.getDuration(), options.getWarmup(), options.getLatencyMedian(),
+                    options.getLatencyP99(), options.getErrorRate(), options.getTimeoutRate());
+            generator.run(options.getWarmup());
+            generator.reset();
+            long stubCalls = stub.getCalls();
+            long stubErrors = stub.getInjectedErrors();
+            long stubTimeouts = stub.getInjectedTimeouts();
+            
+            generator.run(options.getDuration());
+            System.out.println();
+            generator.report(System.out, options.getDuration());
+            System.out.printf("%nMigration API stand-in: %d calls, %d injected errors, %d injected timeouts%n",
+                    stub.getCalls() - stubCalls, stub.getInjectedErrors() - stubErrors,
+                    stub.getInjectedTimeouts() - stubTimeouts);
+        } finally {
+            service.close();
+            stub.stop();
+        }
+    }
+}
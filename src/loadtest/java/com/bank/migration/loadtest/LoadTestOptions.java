@@ -0,0 +1,122 @@
+package com.bank.migration.loadtest;
+
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+import lombok.Getter;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load test settings from {@code --load.*} and {@code --stub.*} arguments; every other
+ * argument is passed on to the service, e.g. {@code --migration.rules.session.mode=pooled}.
+ */
+@Getter
+final class LoadTestOptions {
+    
+    // Driver
+    private final double rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int customers;
+    private final double accountsShare;
+    private final List<String> features;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+    
+    // Migration API stand-in
+    private final Duration latencyMedian;
+    private final Duration latencyP99;
+    private final double errorRate;
+    private final double timeoutRate;
+    private final Duration timeoutDelay;
+    private final int accountsMin;
+    private final int accountsMax;
+    private final Map<MigrationStatus, Integer> statusMix;
+    private final Map<MigrationWave, Integer> waveMix;
+    private final int dateSpreadDays;
+    
+    private final List<String> serviceArgs;
+    
+    private LoadTestOptions(Map<String, String> options, List<String> serviceArgs) {
+        Map<String, String> remaining = new HashMap<>(options);
+        rate = Double.parseDouble(take(remaining, "load.rate", "200"));
+        duration = duration(take(remaining, "load.duration", "30s"));
+        warmup = duration(take(remaining, "load.warmup", "10s"));
+        customers = Integer.parseInt(take(remaining, "load.customers", "10000"));
+        accountsShare = Double.parseDouble(take(remaining, "load.accounts-share", "0.2"));
+        features = List.of(take(remaining, "load.features", "feature1,feature2,feature3,feature4").split(","));
+        maxInFlight = Integer.parseInt(take(remaining, "load.max-in-flight", "2000"));
+        requestTimeout = duration(take(remaining, "load.request-timeout", "10s"));
+        
+        latencyMedian = duration(take(remaining, "stub.latency-median", "20ms"));
+        latencyP99 = duration(take(remaining, "stub.latency-p99", "150ms"));
+        errorRate = Double.parseDouble(take(remaining, "stub.error-rate", "0.01"));
+        timeoutRate = Double.parseDouble(take(remaining, "stub.timeout-rate", "0"));
+        timeoutDelay = duration(take(remaining, "stub.timeout-delay", "10s"));
+        accountsMin = Integer.parseInt(take(remaining, "stub.accounts-min", "1"));
+        accountsMax = Integer.parseInt(take(remaining, "stub.accounts-max", "6"));
+        statusMix = mix(MigrationStatus.class,
+                take(remaining, "stub.status-mix", "NOT_MIGRATED=40,SCHEDULED=25,IN_PROGRESS=10,MIGRATED=20,EXCLUDED=5"));
+        waveMix = mix(MigrationWave.class, take(remaining, "stub.wave-mix", "WAVE1=50,WAVE2=40,NOT_APPLICABLE=10"));
+        dateSpreadDays = Integer.parseInt(take(remaining, "stub.date-spread-days", "14"));
+        
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("Unknown load test options: " + remaining.keySet());
+        }
+        if (rate <= 0 || customers <= 0 || accountsMin < 0 || accountsMax < accountsMin) {
+            throw new IllegalArgumentException("load.rate and load.customers must be positive, stub.accounts-min <= stub.accounts-max");
+        }
+        this.serviceArgs = List.copyOf(serviceArgs);
+    }
+    
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        List<String> serviceArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--load.") || arg.startsWith("--stub.")) {
+                int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Expected --name=value: " + arg);
+                }
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            } else {
+                serviceArgs.add(arg);
+            }
+        }
+        return new LoadTestOptions(options, serviceArgs);
+    }
+    
+    private static String take(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+    
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+    
+    // "A=40,B=25": relative weights; values not listed never occur
+    private static <E extends Enum<E>> Map<E, Integer> mix(Class<E> type, String value) {
+        Map<E, Integer> weights = new EnumMap<>(type);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected NAME=weight in " + value + ", one of "
+                        + Arrays.toString(type.getEnumConstants()));
+            }
+            weights.put(Enum.valueOf(type, parts[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Weights must add up to more than zero: " + value);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,210 @@
+package com.bank.migration.loadtest;
+
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.BulkAccountsRequest;
+import com.bank.migration.model.migration.BulkAccountsResponse;
+import com.bank.migration.model.migration.MigrationApiResponse;
+import com.bank.migration.model.migration.MigrationWave;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the migration API, serving the single-customer and bulk account
+ * endpoints on a loopback port. Each customer gets the same accounts on every call, drawn
+ * from the configured account count range and status and wave mixes. Responses are delayed
+ * by a log-normal latency (median and p99) without holding a thread, and a share of calls
+ * fails with HTTP 500 or is held back long enough for the service to time out.
+ */
+@Slf4j
+final class MigrationApiStub {
+    
+    private static final Pattern ACCOUNTS_PATH = Pattern.compile("/api/customer/([^/]+)/accounts");
+    private static final String BULK_PATH = "/api/customers/accounts/bulk";
+    private static final AccountType[] ACCOUNT_TYPES = AccountType.values();
+    
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_P99 = 2.3263;
+    
+    static {
+        // Headers and body go out as separate writes; with Nagle on, delayed ACKs add ~40ms to every call
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+    
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final double latencySigma;
+    private final LocalDate today = LocalDate.now();
+    
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ScheduledExecutorService responders;
+    
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder injectedTimeouts = new LongAdder();
+    
+    MigrationApiStub(LoadTestOptions options) throws IOException {
+        this.options = options;
+        long median = options.getLatencyMedian().toNanos();
+        long p99 = options.getLatencyP99().toNanos();
+        this.latencySigma = median > 0 && p99 > median ? Math.log((double) p99 / median) / Z_P99 : 0;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.handlers = Executors.newFixedThreadPool(4, daemon("stub-http", threadCount));
+        this.responders = Executors.newScheduledThreadPool(2, daemon("stub-respond", threadCount));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        server.setExecutor(handlers);
+        server.createContext("/api/", this::handle);
+    }
+    
+    int start() {
+        server.start();
+        return server.getAddress().getPort();
+    }
+    
+    void stop() {
+        server.stop(0);
+        responders.shutdownNow();
+        handlers.shutdownNow();
+    }
+    
+    long getCalls() {
+        return calls.sum();
+    }
+    
+    long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+    
+    long getInjectedTimeouts() {
+        return injectedTimeouts.sum();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.increment();
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            String path = exchange.getRequestURI().getPath();
+            Matcher matcher = ACCOUNTS_PATH.matcher(path);
+            if ("GET".equals(exchange.getRequestMethod()) && matcher.matches()) {
+                String customerId = matcher.group(1);
+                body = objectMapper.writeValueAsBytes(new MigrationApiResponse(customerId, accounts(customerId)));
+            } else if ("POST".equals(exchange.getRequestMethod()) && BULK_PATH.equals(path)) {
+                BulkAccountsRequest request = objectMapper.readValue(in, BulkAccountsRequest.class);
+                List<MigrationApiResponse> customers = new ArrayList<>();
+                request.getCustomerIds().forEach(customerId ->
+                        customers.add(new MigrationApiResponse(customerId, accounts(customerId))));
+                body = objectMapper.writeValueAsBytes(new BulkAccountsResponse(customers));
+            } else {
+                respond(exchange, 404, null);
+                return;
+            }
+        }
+        
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double outcome = random.nextDouble();
+        long delay = latencyNanos(random);
+        int status = 200;
+        if (outcome < options.getErrorRate()) {
+            injectedErrors.increment();
+            status = 500;
+            body = "{\"error\":\"injected\"}".getBytes(StandardCharsets.UTF_8);
+        } else if (outcome < options.getErrorRate() + options.getTimeoutRate()) {
+            injectedTimeouts.increment();
+            delay = options.getTimeoutDelay().toNanos();
+        }
+        
+        int responseStatus = status;
+        byte[] responseBody = body;
+        responders.schedule(() -> respond(exchange, responseStatus, responseBody), delay, TimeUnit.NANOSECONDS);
+    }
+    
+    private void respond(HttpExchange exchange, int status, byte[] body) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body != null ? body.length : -1);
+            if (body != null) {
+                exchange.getResponseBody().write(body);
+            }
+        } catch (IOException e) {
+            // The service gave up on the call (timeout); nothing left to answer
+            log.trace("Could not answer {}: {}", exchange.getRequestURI(), e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private long latencyNanos(Random random) {
+        long median = options.getLatencyMedian().toNanos();
+        return latencySigma > 0 ? (long) (median * Math.exp(latencySigma * random.nextGaussian())) : median;
+    }
+    
+    // Same customer, same accounts: seeded from the customerId
+    private List<AccountInfo> accounts(String customerId) {
+        Random random = new Random(customerId.hashCode());
+        int count = options.getAccountsMin() + random.nextInt(options.getAccountsMax() - options.getAccountsMin() + 1);
+        List<AccountInfo> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MigrationWave wave = pick(options.getWaveMix(), random);
+            accounts.add(AccountInfo.builder()
+                    .accountId(customerId + "-" + i)
+                    .accountType(ACCOUNT_TYPES[random.nextInt(ACCOUNT_TYPES.length)])
+                    .migrationStatus(pick(options.getStatusMix(), random))
+                    .migrationWave(wave)
+                    .migrationDate(wave == MigrationWave.NOT_APPLICABLE ? null
+                            : today.plusDays(random.nextInt(2 * options.getDateSpreadDays() + 1) - options.getDateSpreadDays()))
+                    .build());
+        }
+        return accounts;
+    }
+    
+    private static <E> E pick(Map<E, Integer> weights, Random random) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int point = random.nextInt(total);
+        E picked = null;
+        for (Map.Entry<E, Integer> weight : weights.entrySet()) {
+            picked = weight.getKey();
+            point -= weight.getValue();
+            if (point < 0) {
+                break;
+            }
+        }
+        return picked;
+    }
+    
+    private static ThreadFactory daemon(String name, AtomicInteger threadCount) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.bank.migration.build;
+
+import com.bank.migration.service.RuleSetCompiler;
+import com.bank.migration.service.RuleTable;
+import lombok.extern.slf4j.Slf4j;
+import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
+import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.model.codegen.ExecutableModelProject;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build step (run by the exec plugin during process-classes) that compiles the bundled rule
+ * table into an executable-model KieModule and writes it next to the table in the build
+ * output. At startup {@link RuleSetCompiler#loadPrecompiled} loads it instead of parsing
+ * and compiling the table again.
+ *
+ * <p>Only the build runs it: it needs drools-model-codegen, a provided dependency the Boot
+ * plugin is told to leave out of the repackaged jar, and the jar plugin leaves this package
+ * out of the jar.
+ *
+ * <p>Usage: {@code RuleArtifactBuilder <classes directory>}
+ */
+@Slf4j
+public final class RuleArtifactBuilder {
+    
+    private RuleArtifactBuilder() {
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: RuleArtifactBuilder <classes directory>");
+        }
+        try {
+            build(Path.of(args[0]));
+        } finally {
+            // exec:java waits for every thread the run started, the Drools compiler pool's included
+            KnowledgeBuilderImpl.ForkJoinPoolHolder.COMPILER_POOL.shutdown();
+            KnowledgeBuilderImpl.ForkJoinPoolHolder.COMPILER_POOL.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+    
+    private static void build(Path outputDirectory) throws IOException {
+        ClassLoader classLoader = RuleArtifactBuilder.class.getClassLoader();
+        long start = System.nanoTime();
+        
+        RuleTable table = RuleTable.bundled(classLoader);
+        KieServices kieServices = KieServices.Factory.get();
+        ReleaseId releaseId = kieServices.newReleaseId("com.bank.migration", "migration-rules", "1.0.0-precompiled");
+        
+        KieBuilder kieBuilder = kieServices.newKieBuilder(RuleSetCompiler.kieFileSystem(
+                kieServices, RuleSetCompiler.readKModuleXml(classLoader), table, releaseId));
+        kieBuilder.buildAll(ExecutableModelProject.class);
+        if (kieBuilder.getResults().hasMessages(Message.Level.ERROR)) {
+            throw new IllegalStateException("Error building rules from " + table.source() + ": "
+                    + kieBuilder.getResults());
+        }
+        
+        byte[] kjar = ((InternalKieModule) kieBuilder.getKieModule()).getBytes();
+        Path kjarPath = outputDirectory.resolve(RuleSetCompiler.PRECOMPILED_PATH);
+        Files.createDirectories(kjarPath.getParent());
+        Files.write(kjarPath, kjar);
+        
+        Properties info = new Properties();
+        info.setProperty("version", table.version());
+        info.setProperty("source", table.source());
+        info.setProperty("releaseId", releaseId.toString());
+        try (OutputStream out = Files.newOutputStream(outputDirectory.resolve(RuleSetCompiler.PRECOMPILED_INFO_PATH))) {
+            info.store(out, "Precompiled migration rules");
+        }
+        
+        log.info("Precompiled {} (version {}) to {}, {} bytes in {} ms", table.source(), table.version(),
+                kjarPath, kjar.length, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,64 @@
+package com.bank.migration.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Account status-change events pushed by the migration platform (migration.events.*).
+ * When enabled, account lookups are answered from the accounts the events keep up to date,
+ * and the migration API is only asked once per customer. See
+ * {@link com.bank.migration.service.AccountEventIngestor}. Checked when bound, so a spool
+ * batch size the ingestor would reject fails startup rather than every spool file.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "migration.events")
+@Validated
+@Data
+public class AccountEventsConfig {
+    
+    private boolean enabled = false;
+    
+    // Events accepted per ingestion request
+    @Positive
+    private int maxBatchSize = 1000;
+    
+    private Store store = new Store();
+    @Valid
+    private Spool spool = new Spool();
+    
+    @AssertTrue(message = "migration.events.spool.batch-size must not exceed migration.events.max-batch-size")
+    public boolean isSpoolBatchSizeAllowed() {
+        return spool.getBatchSize() <= maxBatchSize;
+    }
+    
+    // Accounts held per customer (migration.events.store.*). A customer dropped from the store is
+    // read again from the roster or the migration API on its next lookup
+    @Data
+    public static class Store {
+        private long maximumSize = 1_000_000;
+        
+        // Customers not looked up or sent events for this long are dropped
+        private Duration expireAfterAccess = Duration.ofDays(1);
+    }
+    
+    // Local stand-in for an event queue (migration.events.spool.*): NDJSON files dropped into a directory
+    @Data
+    public static class Spool {
+        private boolean enabled = false;
+        
+        private String directory;
+        
+        private Duration pollInterval = Duration.ofSeconds(5);
+        
+        // Events applied together; a file is read in batches of this size, at most max-batch-size
+        @Positive
+        private int batchSize = 500;
+    }
+}
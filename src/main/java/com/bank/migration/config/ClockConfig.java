@@ -0,0 +1,17 @@
+package com.bank.migration.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+    
+    // Time source for migration window checks and cache expiry; replace with a fixed or
+    // offset clock to exercise window boundaries without waiting for them
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -1,56 +1,81 @@
 package com.bank.migration.config;
 
-import org.kie.api.KieServices;
-import org.kie.api.builder.KieBuilder;
-import org.kie.api.builder.KieFileSystem;
-import org.kie.api.builder.KieModule;
-import org.kie.api.builder.Message;
-import org.kie.api.runtime.KieContainer;
-import org.kie.internal.io.ResourceFactory;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
-import lombok.extern.slf4j.Slf4j;
+import lombok.Data;
 
+import java.time.Duration;
+
+/**
+ * Rule engine settings (migration.rules.*). The rule table itself is compiled and
+ * swapped at runtime by {@link com.bank.migration.service.RuleSetManager}.
+ */
 @Configuration
-@Slf4j
+@ConfigurationProperties(prefix = "migration.rules")
+@Data
 public class DroolsConfig {
     
-    // Excel decision table - business users can easily modify this file
-    private static final String RULES_EXCEL_PATH = "rules/migration-rules.xlsx";
+    // Answer requests from the compiled decision matrix instead of a KieSession when possible
+    private boolean decisionMatrixEnabled = true;
     
-    // Fallback to CSV if XLSX not available (CSV can be opened in Excel)
-    private static final String RULES_CSV_PATH = "rules/migration-rules.csv";
+    // Start from the rule artifact precompiled by the build when it matches the bundled table
+    private boolean precompiledEnabled = true;
     
-    @Bean
-    public KieContainer kieContainer() {
-        KieServices kieServices = KieServices.Factory.get();
-        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
-        
-        // Try to load Excel file first, fallback to CSV
-        try {
-            log.info("Loading decision table from: {}", RULES_EXCEL_PATH);
-            kieFileSystem.write(ResourceFactory.newClassPathResource(RULES_EXCEL_PATH));
-        } catch (Exception e) {
-            log.warn("Excel file not found, trying CSV: {}", RULES_CSV_PATH);
-            kieFileSystem.write(ResourceFactory.newClassPathResource(RULES_CSV_PATH));
-        }
+    private Session session = new Session();
+    private Reload reload = new Reload();
+    private DecisionCache decisionCache = new DecisionCache();
+    private Trace trace = new Trace();
+    
+    public enum SessionMode {
+        // New stateful session per evaluation (original behaviour)
+        NEW,
+        // One shared, thread-safe StatelessKieSession; slowest of the three (batch command per evaluation)
+        STATELESS,
+        // Bounded pool of stateful sessions that are reset when returned (default, fastest in RuleEvaluationBenchmark)
+        POOLED
+    }
+    
+    // Drools session execution for requests that are not answered by the decision matrix
+    @Data
+    public static class Session {
+        private SessionMode mode = SessionMode.POOLED;
+        private String statefulName = "migrationRulesSession";
+        private String statelessName = "migrationRulesStatelessSession";
+        private int poolSize = 32;
         
-        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
-        kieBuilder.buildAll();
+        // How long a request waits for a pooled session before falling back to a new one
+        private Duration poolMaxWait = Duration.ofMillis(50);
+    }
+    
+    // Replacing the rule table without a restart
+    @Data
+    public static class Reload {
+        // Optional external .csv/.xlsx rule table; used instead of the bundled one and reloaded on change
+        private String watchFile;
+        private Duration pollInterval = Duration.ofSeconds(5);
         
-        // Log any errors or warnings during rule compilation
-        if (kieBuilder.getResults().hasMessages(Message.Level.ERROR)) {
-            log.error("Errors building rules: {}", kieBuilder.getResults().toString());
-            throw new RuntimeException("Error building Drools rules: " + kieBuilder.getResults().toString());
-        }
+        // PUT /api/admin/rules. Rule table cells are code that is compiled and run in-process, so
+        // only enable it where every client that can reach the port may change the rules
+        private boolean uploadEnabled = false;
+    }
+    
+    // Final feature decisions per customer and feature set, kept until the next migration window
+    // boundary; only used while the rule set has a compiled decision matrix (for its window sizes)
+    @Data
+    public static class DecisionCache {
+        private boolean enabled = true;
+        private long maximumSize = 100_000;
+    }
+    
+    // Sampled rule tracing (actuator endpoint ruletrace); not switchable at runtime
+    @Data
+    public static class Trace {
+        private boolean enabled = false;
         
-        if (kieBuilder.getResults().hasMessages(Message.Level.WARNING)) {
-            log.warn("Warnings building rules: {}", kieBuilder.getResults().toString());
-        }
+        // Share of evaluations traced, 0 to 1
+        private double sampleRate = 0.01;
         
-        KieModule kieModule = kieBuilder.getKieModule();
-        log.info("Successfully loaded migration rules decision table");
-        return kieServices.newKieContainer(kieModule.getReleaseId());
+        // Latest traces kept
+        private int bufferSize = 256;
     }
 }
-
@@ -0,0 +1,30 @@
+package com.bank.migration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Streaming decision exports (migration.export.*). See
+ * {@link com.bank.migration.service.DecisionExporter}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "migration.export")
+@Data
+public class ExportConfig {
+    
+    // Customers decided per step; capped at migration.api.batch.max-customers
+    private int chunkSize = 200;
+    
+    // Exports running at once; further requests are turned away with 429
+    private int maxConcurrentExports = 2;
+    
+    // How long one export response may stream, instead of spring.mvc.async.request-timeout
+    private Duration timeout = Duration.ofHours(2);
+    
+    // Largest customer ID list an export reads, whether sent as the body or uploaded
+    private DataSize maxInputSize = DataSize.ofGigabytes(1);
+}
@@ -1,23 +1,156 @@
 package com.bank.migration.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
 import lombok.Data;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "migration.api")
 @Data
 public class MigrationApiConfig {
     
+    private static final String MIGRATION_API_POOL = "migration-api";
+    
     private String baseUrl;
     private String endpoint;
+    // Read (response) timeout in milliseconds
     private int timeout;
+    private Http http = new Http();
+    private Bulk bulk = new Bulk();
+    private Coalescing coalescing = new Coalescing();
+    private Cache cache = new Cache();
+    private Batch batch = new Batch();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Stale stale = new Stale();
+    
+    @Bean
+    public TimedPoolingConnectionManager migrationApiConnectionManager(MeterRegistry meterRegistry) {
+        TimedPoolingConnectionManager connectionManager =
+                new TimedPoolingConnectionManager(meterRegistry, MIGRATION_API_POOL);
+        connectionManager.setMaxTotal(http.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(http.getMaxConnectionsPerRoute());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                .setSocketTimeout(Timeout.ofMilliseconds(timeout))
+                .setTimeToLive(TimeValue.of(http.getTimeToLive()))
+                .setValidateAfterInactivity(TimeValue.of(http.getValidateAfterInactivity()))
+                .build());
+        
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, MIGRATION_API_POOL).bindTo(meterRegistry);
+        return connectionManager;
+    }
+    
+    @Bean
+    public CloseableHttpClient migrationApiHttpClient(TimedPoolingConnectionManager migrationApiConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(migrationApiConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(timeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .build();
+    }
     
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient migrationApiHttpClient) {
+        // Built from Boot's builder so calls are also timed as http.client.requests
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(migrationApiHttpClient))
+                .build();
+    }
+    
+    // Pooled HTTP client for the migration API (migration.api.http.*)
+    @Data
+    public static class Http {
+        private int maxConnections = 100;
+        // Every call goes to the same host, so this is the effective limit
+        private int maxConnectionsPerRoute = 100;
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        // How long a request may wait for a free connection before failing fast
+        private Duration connectionRequestTimeout = Duration.ofMillis(500);
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        private Duration timeToLive = Duration.ofMinutes(5);
+        private Duration validateAfterInactivity = Duration.ofSeconds(2);
+    }
+    
+    // Merging of single-customer lookups into bulk requests (migration.api.bulk.*)
+    @Data
+    public static class Bulk {
+        private boolean enabled = false;
+        private String endpoint = "/api/customers/accounts/bulk";
+        // A batch is sent when it reaches max-batch-size or max-delay after its first lookup
+        private int maxBatchSize = 100;
+        private Duration maxDelay = Duration.ofMillis(5);
+        private int maxConcurrentBatches = 4;
+    }
+    
+    // Sharing of concurrent lookups for the same customer (migration.api.coalescing.*)
+    @Data
+    public static class Coalescing {
+        private boolean enabled = true;
+        // How long a completed lookup keeps answering new callers; zero shares in-flight calls only
+        private Duration linger = Duration.ZERO;
+    }
+    
+    // Read-through cache of account statuses per customer (migration.api.cache.*)
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+        
+        // Entries close to a migration window (or inside one) expire after window-ttl instead
+        private Duration windowLeadTime = Duration.ofHours(24);
+        private Duration windowTtl = Duration.ofSeconds(30);
+    }
+    
+    // Batch feature checks (migration.api.batch.*)
+    @Data
+    public static class Batch {
+        // Concurrent migration API calls shared by all batch requests
+        private int parallelism = 16;
+        private int maxCustomers = 1000;
+    }
+    
+    // Circuit breaker and concurrency bulkhead around migration API calls (migration.api.circuit-breaker.*)
+    @Data
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        // Failure rate over the last sliding-window-size calls that opens the circuit
+        private int slidingWindowSize = 50;
+        private int minimumCalls = 20;
+        private int failureRateThreshold = 50;
+        // A call slower than this counts as a failure even when it succeeds
+        private Duration slowCallDuration = Duration.ofSeconds(1);
+        // How long the circuit stays open before half-open-calls trial calls are let through
+        private Duration openDuration = Duration.ofSeconds(10);
+        private int halfOpenCalls = 3;
+        // Calls beyond this many in flight are rejected straight away
+        private int maxConcurrentCalls = 50;
+    }
+    
+    // Last known accounts per customer, served when the migration API fails (migration.api.stale.*)
+    @Data
+    public static class Stale {
+        private boolean enabled = true;
+        private long maximumSize = 100_000;
+        private Duration maxAge = Duration.ofHours(24);
+        private int refreshParallelism = 2;
     }
 }
-
@@ -0,0 +1,38 @@
+package com.bank.migration.config;
+
+import com.bank.migration.model.migration.MigrationWave;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decision pre-warming ahead of migration window boundaries (migration.prewarm.*). See
+ * {@link com.bank.migration.service.WavePrewarmScheduler}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "migration.prewarm")
+@Data
+public class PrewarmConfig {
+    
+    private boolean enabled = false;
+    
+    // Migration dates per wave; with a roster the dates in the snapshot are used too
+    private Map<MigrationWave, List<LocalDate>> waveDates = new EnumMap<>(MigrationWave.class);
+    
+    // How long before a boundary its pass starts; customers not reached by the boundary are left to live traffic
+    private Duration leadTime = Duration.ofMinutes(15);
+    
+    // Customers re-read and re-evaluated per second, across all workers
+    private int ratePerSecond = 200;
+    
+    private int parallelism = 4;
+    
+    // How often the next boundary is checked for
+    private Duration checkInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,48 @@
+package com.bank.migration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Offline roster mode (migration.roster.*): account lookups are answered from a local
+ * snapshot of the migration roster instead of the migration API. See
+ * {@link com.bank.migration.service.RosterStore}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "migration.roster")
+@Data
+public class RosterConfig {
+    
+    private boolean enabled = false;
+    
+    // Roster extract (.csv with a header row, or .ndjson), reloaded when it changes
+    private String file;
+    
+    // Where the memory-mapped index built from the extract is written; the temp directory if not set
+    private String indexDirectory;
+    
+    // Ask the migration API for customers that are not in the snapshot (and while none is loaded)
+    private boolean liveFallback = true;
+    
+    private Duration pollInterval = Duration.ofSeconds(30);
+    
+    // How long a replaced index stays mapped for lookups that started on it
+    private Duration retireDelay = Duration.ofSeconds(30);
+    
+    private Precompute precompute = new Precompute();
+    
+    // Decisions precomputed for every customer in the snapshot (migration.roster.precompute.*)
+    @Data
+    public static class Precompute {
+        private boolean enabled = false;
+        
+        // Spring cron expression for the nightly run; a new snapshot also triggers a run
+        private String cron = "0 0 2 * * *";
+        
+        // Worker threads; 0 uses one per available processor
+        private int parallelism = 0;
+    }
+}
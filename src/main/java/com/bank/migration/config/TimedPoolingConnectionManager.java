@@ -0,0 +1,62 @@
+package com.bank.migration.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Connection pool that records how long each request waited for a connection, and how
+ * often it gave up after connection-request-timeout. Pool sizes (leased, available,
+ * pending) are bound separately through Micrometer's HttpClient 5 binder.
+ */
+public class TimedPoolingConnectionManager extends PoolingHttpClientConnectionManager {
+    
+    private final Timer leaseWait;
+    private final Counter leaseTimeouts;
+    
+    public TimedPoolingConnectionManager(MeterRegistry meterRegistry, String poolName) {
+        this.leaseWait = Timer.builder("migration.api.http.pool.wait")
+                .description("Time spent waiting for a pooled connection to the migration API")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        this.leaseTimeouts = Counter.builder("migration.api.http.pool.timeouts")
+                .description("Requests that found no free connection within connection-request-timeout")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest leaseRequest = super.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+            
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return leaseRequest.get(timeout);
+                } catch (TimeoutException e) {
+                    leaseTimeouts.increment();
+                    throw e;
+                } finally {
+                    leaseWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+            
+            @Override
+            public boolean cancel() {
+                return leaseRequest.cancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.bank.migration.controller;
+
+import com.bank.migration.model.dto.AccountEventBatchRequest;
+import com.bank.migration.model.dto.AccountEventBatchResponse;
+import com.bank.migration.service.AccountEventIngestor;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@Slf4j
+public class AccountEventController {
+    
+    private final AccountEventIngestor accountEventIngestor;
+    
+    // 409 while migration.events.enabled is off: lookups would not read the events
+    @PostMapping("/accounts")
+    public ResponseEntity<AccountEventBatchResponse> ingestAccountEvents(
+            @Valid @RequestBody AccountEventBatchRequest request) {
+        
+        log.debug("Account status events received: {}", request.getEvents().size());
+        if (!accountEventIngestor.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(accountEventIngestor.ingest(request.getEvents()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.bank.migration.controller;
+
+import com.bank.migration.model.dto.CacheStatsResponse;
+import com.bank.migration.service.AccountStatusCache;
+import com.bank.migration.service.FeatureDecisionCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+@Slf4j
+public class CacheAdminController {
+    
+    private final AccountStatusCache accountStatusCache;
+    private final FeatureDecisionCache featureDecisionCache;
+    
+    @GetMapping
+    public ResponseEntity<CacheStatsResponse> getStats() {
+        return ResponseEntity.ok(accountStatusCache.getStats());
+    }
+    
+    @GetMapping("/decisions")
+    public ResponseEntity<CacheStatsResponse> getDecisionStats() {
+        return ResponseEntity.ok(featureDecisionCache.getStats());
+    }
+    
+    @DeleteMapping("/customers/{customerId}")
+    public ResponseEntity<Void> evictCustomer(@PathVariable("customerId") String customerId) {
+        log.info("Cache eviction requested for customer: {}", customerId);
+        accountStatusCache.evict(customerId);
+        featureDecisionCache.evict(customerId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @DeleteMapping
+    public ResponseEntity<Void> evictAll() {
+        log.info("Cache eviction requested for all customers");
+        accountStatusCache.evictAll();
+        featureDecisionCache.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+}
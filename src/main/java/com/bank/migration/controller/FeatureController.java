@@ -1,17 +1,36 @@
 package com.bank.migration.controller;
 
+import com.bank.migration.model.dto.BatchFeatureCheckRequest;
+import com.bank.migration.model.dto.BatchFeatureCheckResponse;
+import com.bank.migration.model.dto.CompactBatchFeatureCheckResponse;
+import com.bank.migration.model.dto.CompactFeatureCheckResponse;
 import com.bank.migration.model.dto.CustomerAccountsRequest;
 import com.bank.migration.model.dto.CustomerAccountsResponse;
 import com.bank.migration.model.dto.FeatureCheckRequest;
 import com.bank.migration.model.dto.FeatureCheckResponse;
+import com.bank.migration.service.DecisionETags;
+import com.bank.migration.service.DecisionExporter;
 import com.bank.migration.service.FeatureDecisionService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/features")
@@ -20,10 +39,14 @@ import java.util.List;
 public class FeatureController {
     
     private final FeatureDecisionService featureDecisionService;
+    private final DecisionExporter decisionExporter;
+    private final DecisionETags decisionETags;
     
     @PostMapping("/check")
     public ResponseEntity<FeatureCheckResponse> checkFeatures(
             @RequestHeader("customerId") String customerId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(name = "reasons", defaultValue = "true") boolean reasons,
             @Valid @RequestBody FeatureCheckRequest request) {
         
         log.info("Feature check request received for customer: {} with {} features", 
@@ -33,21 +56,147 @@ public class FeatureController {
             throw new IllegalArgumentException("customerId header is required");
         }
         
-        FeatureCheckResponse response = featureDecisionService.checkFeatures(
-                customerId, 
-                request.getFeatures()
+        try (FeatureDecisionService.Snapshot snapshot = featureDecisionService.snapshot(customerId)) {
+            String etag = decisionETags.forCustomer(snapshot, request.getFeatures(), reasons ? "check" : "check:codes");
+            if (DecisionETags.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            
+            FeatureCheckResponse response = featureDecisionService.checkFeatures(
+                    snapshot,
+                    request.getFeatures(),
+                    reasons
+            );
+            
+            return ResponseEntity.ok().eTag(etag).body(response);
+        }
+    }
+    
+    // ?compact=true: just feature -> enabled
+    @PostMapping(value = "/check", params = "compact=true")
+    public ResponseEntity<CompactFeatureCheckResponse> checkFeaturesCompact(
+            @RequestHeader("customerId") String customerId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Valid @RequestBody FeatureCheckRequest request) {
+        
+        log.info("Compact feature check request received for customer: {} with {} features",
+                customerId, request.getFeatures().size());
+        
+        if (customerId == null || customerId.trim().isEmpty()) {
+            throw new IllegalArgumentException("customerId header is required");
+        }
+        
+        try (FeatureDecisionService.Snapshot snapshot = featureDecisionService.snapshot(customerId)) {
+            String etag = decisionETags.forCustomer(snapshot, request.getFeatures(), "check:compact");
+            if (DecisionETags.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            
+            return ResponseEntity.ok().eTag(etag)
+                    .body(featureDecisionService.checkFeaturesCompact(snapshot, request.getFeatures()));
+        }
+    }
+    
+    @PostMapping("/check/batch")
+    public ResponseEntity<BatchFeatureCheckResponse> checkFeaturesBatch(
+            @RequestParam(name = "reasons", defaultValue = "true") boolean reasons,
+            @Valid @RequestBody BatchFeatureCheckRequest request) {
+        
+        log.info("Batch feature check request received for {} customers with {} features",
+                request.getCustomerIds().size(), request.getFeatures().size());
+        
+        BatchFeatureCheckResponse response = featureDecisionService.checkFeaturesBatch(
+                request.getCustomerIds(),
+                request.getFeatures(),
+                reasons
         );
         
         return ResponseEntity.ok(response);
     }
     
+    @PostMapping(value = "/check/batch", params = "compact=true")
+    public ResponseEntity<CompactBatchFeatureCheckResponse> checkFeaturesBatchCompact(
+            @Valid @RequestBody BatchFeatureCheckRequest request) {
+        
+        log.info("Compact batch feature check request received for {} customers with {} features",
+                request.getCustomerIds().size(), request.getFeatures().size());
+        
+        return ResponseEntity.ok(featureDecisionService.checkFeaturesBatchCompact(
+                request.getCustomerIds(),
+                request.getFeatures()
+        ));
+    }
+    
+    // Customer IDs one per line in the body (text/plain); decisions stream back as NDJSON
+    @PostMapping(value = "/export",
+            consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDecisions(
+            @RequestParam(name = "features", required = false) List<String> features,
+            @RequestParam(name = "reasons", defaultValue = "true") boolean reasons,
+            InputStream customerIds,
+            HttpServletRequest request) {
+        
+        log.info("Decision export request received (request body)");
+        return export(customerIds, request.getContentLengthLong(), features, reasons, request);
+    }
+    
+    // Same, with the customer IDs uploaded as the file part
+    @PostMapping(value = "/export",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDecisionsUpload(
+            @RequestParam(name = "features", required = false) List<String> features,
+            @RequestParam(name = "reasons", defaultValue = "true") boolean reasons,
+            @RequestParam("file") MultipartFile file,
+            HttpServletRequest request) throws IOException {
+        
+        log.info("Decision export request received ({}, {} bytes)", file.getOriginalFilename(), file.getSize());
+        return export(file.getInputStream(), file.getSize(), features, reasons, request);
+    }
+    
+    // size is -1 for a body of unknown length; the exporter then stops at the limit as it reads
+    private ResponseEntity<StreamingResponseBody> export(InputStream customerIds, long size, List<String> features,
+                                                         boolean reasons, HttpServletRequest request) {
+        if (decisionExporter.isTooLarge(size)) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        DecisionExporter.Export body = decisionExporter.start(customerIds, features, reasons);
+        if (body == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        // Exports stream far longer than other async requests, so only this response gets their timeout.
+        // Completion comes after a timeout or error too, so the export's permit is not kept by a body
+        // that never ran.
+        long timeout = decisionExporter.getTimeout().toMillis();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(DecisionExporter.class,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                        ((AsyncWebRequest) webRequest).setTimeout(timeout);
+                    }
+                    
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        body.abandon();
+                    }
+                });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
     @PostMapping("/customers/{customerId}/accounts")
     public ResponseEntity<CustomerAccountsResponse> getAccountsWithFeatures(
             @PathVariable("customerId") String customerId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestParam(name = "withFeatures", defaultValue = "false") boolean withFeatures,
+            @RequestParam(name = "reasons", defaultValue = "true") boolean reasons,
+            @RequestParam(name = "perAccount", defaultValue = "false") boolean perAccount,
             @RequestBody(required = false) CustomerAccountsRequest request) {
         
-        log.info("Get accounts request for customer: {} (withFeatures: {})", customerId, withFeatures);
+        log.info("Get accounts request for customer: {} (withFeatures: {}, perAccount: {})", customerId, withFeatures,
+                perAccount);
         
         // Extract features from request body if provided
         List<String> features = null;
@@ -56,13 +205,31 @@ public class FeatureController {
             log.debug("Requested {} features for suppression info", features.size());
         }
         
-        CustomerAccountsResponse response = featureDecisionService.getAccountsWithFeatures(
-                customerId,
-                withFeatures,
-                features
-        );
-        
-        return ResponseEntity.ok(response);
+        boolean decided = withFeatures && features != null && !features.isEmpty();
+        String variant = decided ? (reasons ? "accounts:features" : "accounts:features:codes") : "accounts";
+        try (FeatureDecisionService.Snapshot snapshot = featureDecisionService.snapshot(customerId)) {
+            String etag = decisionETags.forCustomer(snapshot, decided ? features : null,
+                    decided && perAccount ? variant + ":per-account" : variant);
+            if (DecisionETags.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            
+            CustomerAccountsResponse response = featureDecisionService.getAccountsWithFeatures(
+                    snapshot,
+                    withFeatures,
+                    features,
+                    reasons,
+                    perAccount
+            );
+            
+            return ResponseEntity.ok().eTag(etag).body(response);
+        }
+    }
+    
+    // The checks are POSTs only to carry the feature list and change nothing, so If-None-Match
+    // is answered as for a GET (304) rather than with the 412 HTTP gives unsafe methods
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
     }
 }
 
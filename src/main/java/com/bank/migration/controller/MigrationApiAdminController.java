@@ -0,0 +1,24 @@
+package com.bank.migration.controller;
+
+import com.bank.migration.model.dto.CircuitBreakerInfoResponse;
+import com.bank.migration.service.AccountStatusCache;
+import com.bank.migration.service.MigrationApiCircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/migration-api")
+@RequiredArgsConstructor
+public class MigrationApiAdminController {
+    
+    private final MigrationApiCircuitBreaker circuitBreaker;
+    private final AccountStatusCache accountStatusCache;
+    
+    @GetMapping("/circuit-breaker")
+    public ResponseEntity<CircuitBreakerInfoResponse> getCircuitBreaker() {
+        CircuitBreakerInfoResponse info = circuitBreaker.getInfo();
+        info.setStaleResponses(accountStatusCache.getStaleResponses());
+        return ResponseEntity.ok(info);
+    }
+}
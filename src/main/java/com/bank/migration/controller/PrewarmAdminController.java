@@ -0,0 +1,30 @@
+package com.bank.migration.controller;
+
+import com.bank.migration.model.dto.PrewarmInfoResponse;
+import com.bank.migration.service.WavePrewarmScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/prewarm")
+@RequiredArgsConstructor
+public class PrewarmAdminController {
+    
+    private final WavePrewarmScheduler wavePrewarmScheduler;
+    
+    @GetMapping
+    public ResponseEntity<PrewarmInfoResponse> getPrewarm() {
+        return ResponseEntity.ok(wavePrewarmScheduler.getInfo());
+    }
+    
+    // Warms the next boundary now; 202 once started, 409 if a pass is already running
+    @PostMapping
+    public ResponseEntity<PrewarmInfoResponse> prewarm() {
+        if (!wavePrewarmScheduler.trigger()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(wavePrewarmScheduler.getInfo());
+        }
+        return ResponseEntity.accepted().body(wavePrewarmScheduler.getInfo());
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.migration.controller;
+
+import com.bank.migration.model.dto.PrecomputeInfoResponse;
+import com.bank.migration.model.dto.RosterInfoResponse;
+import com.bank.migration.service.DecisionPrecomputeJob;
+import com.bank.migration.service.RosterStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/roster")
+@RequiredArgsConstructor
+public class RosterAdminController {
+    
+    private final RosterStore rosterStore;
+    private final DecisionPrecomputeJob decisionPrecomputeJob;
+    
+    @GetMapping
+    public ResponseEntity<RosterInfoResponse> getRoster() {
+        return ResponseEntity.ok(rosterStore.getInfo());
+    }
+    
+    @GetMapping("/decisions")
+    public ResponseEntity<PrecomputeInfoResponse> getPrecomputedDecisions() {
+        return ResponseEntity.ok(decisionPrecomputeJob.getInfo());
+    }
+    
+    // Starts a precompute run now; 202 once started, 409 if one is already running
+    @PostMapping("/decisions")
+    public ResponseEntity<PrecomputeInfoResponse> precomputeDecisions() {
+        if (!decisionPrecomputeJob.trigger()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(decisionPrecomputeJob.getInfo());
+        }
+        return ResponseEntity.accepted().body(decisionPrecomputeJob.getInfo());
+    }
+}
@@ -0,0 +1,32 @@
+package com.bank.migration.controller;
+
+import com.bank.migration.model.dto.RuleTraceResponse;
+import com.bank.migration.service.RuleTracer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/ruletrace: per-rule fire counts and times and the latest sampled evaluations;
+ * DELETE clears what was collected. Tracing is switched by configuration only
+ * (migration.rules.trace.*), so the unauthenticated endpoint cannot turn it on.
+ */
+@Component
+@Endpoint(id = "ruletrace")
+@RequiredArgsConstructor
+public class RuleTraceEndpoint {
+    
+    private final RuleTracer ruleTracer;
+    
+    @ReadOperation
+    public RuleTraceResponse ruleTrace() {
+        return ruleTracer.getInfo();
+    }
+    
+    @DeleteOperation
+    public void reset() {
+        ruleTracer.reset();
+    }
+}
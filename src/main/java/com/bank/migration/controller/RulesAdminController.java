@@ -0,0 +1,20 @@
+package com.bank.migration.controller;
+
+import com.bank.migration.model.dto.RuleSetInfoResponse;
+import com.bank.migration.service.RuleSetManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/rules")
+@RequiredArgsConstructor
+public class RulesAdminController {
+    
+    private final RuleSetManager ruleSetManager;
+    
+    @GetMapping
+    public ResponseEntity<RuleSetInfoResponse> getActiveRules() {
+        return ResponseEntity.ok(ruleSetManager.getInfo());
+    }
+}
@@ -0,0 +1,48 @@
+package com.bank.migration.controller;
+
+import com.bank.migration.model.dto.RuleSetInfoResponse;
+import com.bank.migration.service.RuleSetManager;
+import com.bank.migration.service.RuleTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Rule table upload. The condition and action cells of a decision table are Java/MVEL that
+ * Drools compiles and runs inside this process, so whoever can upload a table can run code
+ * here. Only registered with migration.rules.reload.upload-enabled=true, for deployments
+ * where the port is reachable by trusted operators only; otherwise use the watch file.
+ */
+@RestController
+@RequestMapping("/api/admin/rules")
+@ConditionalOnProperty(prefix = "migration.rules.reload", name = "upload-enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class RulesUploadController {
+    
+    private static final String XLSX_MEDIA_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    
+    private final RuleSetManager ruleSetManager;
+    
+    /**
+     * Replaces the rule table with the request body (CSV or XLSX decision table).
+     * Responds once the new rules are active; rules that do not compile are rejected with 422.
+     */
+    @PutMapping(consumes = {"text/csv", XLSX_MEDIA_TYPE})
+    public ResponseEntity<RuleSetInfoResponse> uploadRules(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestBody byte[] content) {
+        
+        RuleTable.Format format = contentType.isCompatibleWith(MediaType.valueOf(XLSX_MEDIA_TYPE))
+                ? RuleTable.Format.XLSX
+                : RuleTable.Format.CSV;
+        log.info("Rule table upload received ({}, {} bytes)", format, content.length);
+        
+        ruleSetManager.reload(new RuleTable("upload", format, content));
+        return ResponseEntity.ok(ruleSetManager.getInfo());
+    }
+}
@@ -0,0 +1,22 @@
+package com.bank.migration.model.dto;
+
+import com.bank.migration.model.migration.AccountStatusEvent;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountEventBatchRequest {
+    
+    @NotEmpty(message = "Event list cannot be empty")
+    @JsonProperty("events")
+    private List<AccountStatusEvent> events;
+}
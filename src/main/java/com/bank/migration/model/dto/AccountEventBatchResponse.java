@@ -0,0 +1,32 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountEventBatchResponse {
+    
+    @JsonProperty("received")
+    private int received;
+    
+    @JsonProperty("applied")
+    private int applied;
+    
+    // Same version as already applied
+    @JsonProperty("duplicates")
+    private int duplicates;
+    
+    // Older than the version already applied
+    @JsonProperty("outdated")
+    private int outdated;
+    
+    // Customers whose accounts changed; their cached decisions were dropped
+    @JsonProperty("customersChanged")
+    private int customersChanged;
+}
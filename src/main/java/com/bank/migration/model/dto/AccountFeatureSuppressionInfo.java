@@ -0,0 +1,28 @@
+package com.bank.migration.model.dto;
+
+import com.bank.migration.model.rules.CustomerStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// Feature decisions for one account, from the rules applied to that account alone
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountFeatureSuppressionInfo {
+    
+    @JsonProperty("accountId")
+    private String accountId;
+    
+    // Status the rules saw for the account, derived like the customer status
+    @JsonProperty("accountStatus")
+    private CustomerStatus accountStatus;
+    
+    @JsonProperty("features")
+    private Map<String, FeatureStatus> features;
+}
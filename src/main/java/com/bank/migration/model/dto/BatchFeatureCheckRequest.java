@@ -0,0 +1,31 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchFeatureCheckRequest {
+    
+    // The list as sent, duplicates included; migration.api.batch.max-customers limits the distinct IDs
+    public static final int MAX_CUSTOMER_IDS = 10_000;
+    
+    @NotEmpty(message = "Customer ID list cannot be empty")
+    @Size(max = MAX_CUSTOMER_IDS, message = "Customer ID list cannot have more than " + MAX_CUSTOMER_IDS + " entries")
+    @JsonProperty("customerIds")
+    private List<@NotBlank(message = "Customer IDs cannot be blank") String> customerIds;
+    
+    @NotEmpty(message = "Features list cannot be empty")
+    @JsonProperty("features")
+    private List<@NotBlank(message = "Feature names cannot be blank") String> features;
+}
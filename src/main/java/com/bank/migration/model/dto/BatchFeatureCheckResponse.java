@@ -0,0 +1,19 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchFeatureCheckResponse {
+    
+    @JsonProperty("results")
+    private List<BatchFeatureCheckResult> results;
+}
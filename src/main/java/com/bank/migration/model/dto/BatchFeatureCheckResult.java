@@ -0,0 +1,34 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result for one customer of a batch feature check: either the feature decisions,
+ * or the error that prevented them (e.g. migration API unavailable for that customer).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchFeatureCheckResult {
+    
+    @JsonProperty("customerId")
+    private String customerId;
+    
+    @JsonProperty("features")
+    private List<FeatureStatus> features;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    @JsonProperty("stale")
+    private Boolean stale;
+}
@@ -0,0 +1,35 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    
+    @JsonProperty("enabled")
+    private boolean enabled;
+    
+    @JsonProperty("size")
+    private long size;
+    
+    @JsonProperty("hitCount")
+    private long hitCount;
+    
+    @JsonProperty("missCount")
+    private long missCount;
+    
+    @JsonProperty("loadFailureCount")
+    private long loadFailureCount;
+    
+    @JsonProperty("evictionCount")
+    private long evictionCount;
+    
+    @JsonProperty("hitRate")
+    private double hitRate;
+}
@@ -0,0 +1,34 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CircuitBreakerInfoResponse {
+    
+    private boolean enabled;
+    // CLOSED, OPEN or HALF_OPEN
+    private String state;
+    private LocalDateTime stateSince;
+    
+    // Failed or slow share of the calls in the sliding window, in percent
+    private double failureRate;
+    private int bufferedCalls;
+    
+    private int inFlightCalls;
+    private int maxConcurrentCalls;
+    private long rejectedWhileOpen;
+    private long rejectedByBulkhead;
+    
+    // Lookups answered from the last known accounts because the migration API failed
+    private long staleResponses;
+}
@@ -0,0 +1,34 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Compact feature check result: just feature to enabled, in request order. Also used per
+ * customer in a compact batch, where a customer whose lookup failed gets an error instead.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactFeatureCheckResponse {
+    
+    @JsonProperty("customerId")
+    private String customerId;
+    
+    @JsonProperty("features")
+    private Map<String, Boolean> features;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    @JsonProperty("stale")
+    private Boolean stale;
+}
@@ -30,5 +30,12 @@ public class CustomerAccountsResponse {
     
     @JsonProperty("featureSuppressionInfo")
     private Map<String, FeatureStatus> featureSuppressionInfo;
+    
+    // Only set for perAccount=true, in account order
+    @JsonProperty("accountFeatureSuppressionInfo")
+    private List<AccountFeatureSuppressionInfo> accountFeatureSuppressionInfo;
+    
+    // Only set when the accounts are the last known ones because the migration API is unavailable
+    @JsonProperty("stale")
+    private Boolean stale;
 }
-
@@ -1,5 +1,6 @@
 package com.bank.migration.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,6 +13,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class FeatureCheckResponse {
     
     @JsonProperty("customerId")
@@ -19,5 +21,8 @@ public class FeatureCheckResponse {
     
     @JsonProperty("features")
     private List<FeatureStatus> features;
+    
+    // Only set (true) when the decisions were made from the last known accounts, the migration API being unavailable
+    @JsonProperty("stale")
+    private Boolean stale;
 }
-
@@ -1,15 +1,21 @@
 package com.bank.migration.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Decision for one feature. reasonCode is a stable code clients can key on (e.g.
+ * WAVE1_DISABLED, DEFAULT); the human-readable reason is only filled in when requested.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class FeatureStatus {
     
     @JsonProperty("feature")
@@ -18,7 +24,9 @@ public class FeatureStatus {
     @JsonProperty("enabled")
     private boolean enabled;
     
+    @JsonProperty("reasonCode")
+    private String reasonCode;
+    
     @JsonProperty("reason")
     private String reason;
 }
-
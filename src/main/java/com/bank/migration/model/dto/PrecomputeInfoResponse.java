@@ -0,0 +1,36 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PrecomputeInfoResponse {
+    
+    private boolean enabled;
+    private boolean running;
+    private LocalDateTime nextRunAt;
+    
+    // Latest decision store, absent until the first run; current = built from the active snapshot and rules
+    private Boolean current;
+    private LocalDateTime computedAt;
+    private String ruleVersion;
+    private String rosterSource;
+    private Long customerCount;
+    private Integer outcomeCount;
+    private Long storeBytes;
+    private Long computeTimeMillis;
+    private Long customersPerSecond;
+    
+    // Last failed run, if it came after the latest store
+    private String lastError;
+    private LocalDateTime lastErrorAt;
+}
@@ -0,0 +1,50 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PrewarmInfoResponse {
+    
+    private boolean enabled;
+    private List<LocalDate> migrationDates;
+    private LocalDateTime nextBoundary;
+    private LocalDateTime nextPassAt;
+    
+    // Pass in progress, if any
+    private Pass current;
+    
+    // Latest first
+    private List<Pass> passes;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Pass {
+        private LocalDateTime boundary;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private Long durationMillis;
+        
+        // Customers with a window boundary at this one
+        private int customers;
+        private int warmed;
+        private int failed;
+        
+        // Left to live traffic: the boundary passed first
+        private int notReached;
+    }
+}
@@ -0,0 +1,32 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RosterInfoResponse {
+    
+    private boolean enabled;
+    private boolean liveFallback;
+    
+    // Active snapshot, absent until one has been loaded
+    private String source;
+    private LocalDateTime loadedAt;
+    private Long buildTimeMillis;
+    private Long customerCount;
+    private Long accountCount;
+    private Long indexBytes;
+    
+    // Last snapshot that could not be loaded, if it came after the active one
+    private String lastLoadError;
+    private LocalDateTime lastLoadErrorAt;
+}
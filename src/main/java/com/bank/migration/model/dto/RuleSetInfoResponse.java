@@ -0,0 +1,37 @@
+package com.bank.migration.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RuleSetInfoResponse {
+    
+    private String version;
+    private String source;
+    private String format;
+    private LocalDateTime compiledAt;
+    private long compileTimeMillis;
+    private int ruleCount;
+    private boolean precompiled;
+    
+    // Feature columns of the table, in column order
+    private List<String> features;
+    
+    // "decision-matrix" or the Drools session mode
+    private String evaluator;
+    private String decisionMatrixUnsupportedReason;
+    
+    // Last rejected reload, if it came after the active rule set
+    private String lastReloadError;
+    private LocalDateTime lastReloadErrorAt;
+}
@@ -0,0 +1,40 @@
+package com.bank.migration.model.dto;
+
+import com.bank.migration.model.rules.CustomerStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One sampled rule evaluation
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RuleTrace {
+    
+    // Keyed hashes of the IDs, stable until a restart (see RuleTracer)
+    private String customerRef;
+    
+    // Only for the evaluation of a single account (per-account decisions)
+    private String accountRef;
+    
+    private LocalDateTime evaluatedAt;
+    private String ruleVersion;
+    
+    // matrix or drools
+    private String engine;
+    private CustomerStatus customerStatus;
+    
+    // Rows (rules) that matched, in firing order
+    private List<String> matchedRows;
+    
+    // Features the matched rows decided
+    private List<FeatureStatus> decisions;
+    private long durationMicros;
+}
@@ -0,0 +1,38 @@
+package com.bank.migration.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleTraceResponse {
+    
+    private boolean enabled;
+    private double sampleRate;
+    
+    // Evaluations traced since tracing started or was reset
+    private long tracedEvaluations;
+    
+    // Per rule over the traced evaluations, most fired first
+    private List<RuleStats> rules;
+    
+    // Latest first
+    private List<RuleTrace> traces;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RuleStats {
+        private String rule;
+        private long fired;
+        private long totalMicros;
+        private double meanMicros;
+    }
+}
@@ -0,0 +1,52 @@
+package com.bank.migration.model.migration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * State of one account after a change on the migration platform, e.g. SCHEDULED to
+ * IN_PROGRESS. The version increases with every change to the account, so an event that
+ * arrives twice or after a later one can be recognized and skipped.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountStatusEvent {
+    
+    @JsonProperty("customerId")
+    private String customerId;
+    
+    @JsonProperty("accountId")
+    private String accountId;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("accountType")
+    private AccountType accountType;
+    
+    @JsonProperty("migrationStatus")
+    private MigrationStatus migrationStatus;
+    
+    @JsonProperty("migrationWave")
+    private MigrationWave migrationWave;
+    
+    @JsonProperty("migrationDate")
+    private LocalDate migrationDate;
+    
+    public AccountInfo toAccountInfo() {
+        return AccountInfo.builder()
+                .accountId(accountId)
+                .accountType(accountType)
+                .migrationStatus(migrationStatus)
+                .migrationWave(migrationWave)
+                .migrationDate(migrationDate)
+                .build();
+    }
+}
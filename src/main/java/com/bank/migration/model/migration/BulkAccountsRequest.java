@@ -0,0 +1,19 @@
+package com.bank.migration.model.migration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAccountsRequest {
+    
+    @JsonProperty("customerIds")
+    private List<String> customerIds;
+}
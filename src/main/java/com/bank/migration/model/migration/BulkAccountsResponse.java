@@ -0,0 +1,20 @@
+package com.bank.migration.model.migration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAccountsResponse {
+    
+    // One entry per customer found; unknown or failed customers are left out
+    @JsonProperty("customers")
+    private List<MigrationApiResponse> customers;
+}
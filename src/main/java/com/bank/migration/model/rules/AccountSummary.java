@@ -0,0 +1,172 @@
+package com.bank.migration.model.rules;
+
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable roll-up of a customer's accounts, built in a single pass so that status
+ * derivation and the rule helpers do not scan the account list again for every check.
+ * Presence of statuses and account types is kept as bitmasks indexed by enum ordinal.
+ */
+public final class AccountSummary {
+    
+    // Extra status bit for accounts without a status, so "all accounts are X" stays false for them
+    private static final int UNKNOWN_STATUS = 1 << MigrationStatus.values().length;
+    
+    private static final AccountSummary EMPTY = new AccountSummary(0, 0, new long[0], MigrationWave.NOT_APPLICABLE, 0);
+    
+    private final int statusMask;
+    private final int typeMask;
+    // Distinct migration dates as epoch days, ascending
+    private final long[] migrationDays;
+    private final MigrationWave currentWave;
+    private final int accountCount;
+    
+    private AccountSummary(int statusMask, int typeMask, long[] migrationDays, MigrationWave currentWave, int accountCount) {
+        this.statusMask = statusMask;
+        this.typeMask = typeMask;
+        this.migrationDays = migrationDays;
+        this.currentWave = currentWave;
+        this.accountCount = accountCount;
+    }
+    
+    public static AccountSummary of(List<AccountInfo> accounts) {
+        if (accounts == null || accounts.isEmpty()) {
+            return EMPTY;
+        }
+        
+        int statusMask = 0;
+        int typeMask = 0;
+        long[] days = new long[accounts.size()];
+        int dayCount = 0;
+        MigrationWave currentWave = null;
+        
+        for (AccountInfo account : accounts) {
+            statusMask |= account.getMigrationStatus() != null ? bit(account.getMigrationStatus()) : UNKNOWN_STATUS;
+            if (account.getAccountType() != null) {
+                typeMask |= bit(account.getAccountType());
+            }
+            if (account.getMigrationDate() != null) {
+                days[dayCount++] = account.getMigrationDate().toEpochDay();
+            }
+            // First account (in API order) that is part of a wave
+            if (currentWave == null && account.getMigrationWave() != null
+                    && account.getMigrationWave() != MigrationWave.NOT_APPLICABLE) {
+                currentWave = account.getMigrationWave();
+            }
+        }
+        
+        return new AccountSummary(statusMask, typeMask, distinctSorted(days, dayCount),
+                currentWave != null ? currentWave : MigrationWave.NOT_APPLICABLE, accounts.size());
+    }
+    
+    public int getAccountCount() {
+        return accountCount;
+    }
+    
+    public boolean hasStatus(MigrationStatus status) {
+        return (statusMask & bit(status)) != 0;
+    }
+    
+    // True for no accounts at all, like Stream.allMatch
+    public boolean allStatusesIn(MigrationStatus... statuses) {
+        int allowed = 0;
+        for (MigrationStatus status : statuses) {
+            allowed |= bit(status);
+        }
+        return (statusMask & ~allowed) == 0;
+    }
+    
+    public boolean hasAccountType(AccountType accountType) {
+        return (typeMask & bit(accountType)) != 0;
+    }
+    
+    public boolean hasAnyAccountType(AccountType... accountTypes) {
+        int wanted = 0;
+        for (AccountType accountType : accountTypes) {
+            wanted |= bit(accountType);
+        }
+        return (typeMask & wanted) != 0;
+    }
+    
+    public MigrationWave getCurrentWave() {
+        return currentWave;
+    }
+    
+    public LocalDate getEarliestMigrationDate() {
+        return migrationDays.length > 0 ? LocalDate.ofEpochDay(migrationDays[0]) : null;
+    }
+    
+    public LocalDate getLatestMigrationDate() {
+        return migrationDays.length > 0 ? LocalDate.ofEpochDay(migrationDays[migrationDays.length - 1]) : null;
+    }
+    
+    /**
+     * True if {@code now} falls in [migration date - hours, end of migration date) for any
+     * account. Only the earliest migration date not yet over can qualify, since it has the
+     * earliest window start of all dates still open.
+     */
+    public boolean isWithinMigrationWindow(int hoursBeforeMigration, LocalDateTime now) {
+        long today = now.toLocalDate().toEpochDay();
+        if (migrationDays.length == 0 || migrationDays[migrationDays.length - 1] < today) {
+            return false;
+        }
+        
+        int index = Arrays.binarySearch(migrationDays, today);
+        long nextDay = migrationDays[index >= 0 ? index : -index - 1];
+        LocalDateTime windowStart = LocalDate.ofEpochDay(nextDay).atStartOfDay().minusHours(hoursBeforeMigration);
+        return !now.isBefore(windowStart);
+    }
+    
+    /**
+     * The first instant after {@code now} at which {@link #isWithinMigrationWindow} can change
+     * its answer for one of the given window sizes: a window opening (migration date - hours)
+     * or an account's migration date ending. Null when no such instant is left.
+     */
+    public LocalDateTime nextWindowBoundary(Collection<Integer> windowHours, LocalDateTime now) {
+        LocalDateTime next = null;
+        for (long day : migrationDays) {
+            LocalDateTime migrationStart = LocalDate.ofEpochDay(day).atStartOfDay();
+            next = earliestAfter(now, next, migrationStart.plusDays(1));
+            for (int hours : windowHours) {
+                if (hours > 0) {
+                    next = earliestAfter(now, next, migrationStart.minusHours(hours));
+                }
+            }
+        }
+        return next;
+    }
+    
+    private static LocalDateTime earliestAfter(LocalDateTime now, LocalDateTime current, LocalDateTime candidate) {
+        if (!candidate.isAfter(now)) {
+            return current;
+        }
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+    
+    private static int bit(Enum<?> value) {
+        return 1 << value.ordinal();
+    }
+    
+    private static long[] distinctSorted(long[] days, int count) {
+        if (count == 0) {
+            return EMPTY.migrationDays;
+        }
+        Arrays.sort(days, 0, count);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (days[i] != days[distinct - 1]) {
+                days[distinct++] = days[i];
+            }
+        }
+        return Arrays.copyOf(days, distinct);
+    }
+}
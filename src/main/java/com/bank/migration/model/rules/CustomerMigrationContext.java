@@ -4,15 +4,18 @@ import com.bank.migration.model.migration.AccountInfo;
 import com.bank.migration.model.migration.AccountType;
 import com.bank.migration.model.migration.MigrationStatus;
 import com.bank.migration.model.migration.MigrationWave;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Data
@@ -22,63 +25,111 @@ import java.util.stream.Collectors;
 public class CustomerMigrationContext {
     
     private String customerId;
+    
+    // Set when the context covers one account of the customer only (per-account decisions)
+    private String accountId;
+    
     private List<AccountInfo> accounts;
     private List<String> requestedFeatures;
     
     // Derived customer-level status (computed from account statuses)
     private CustomerStatus customerStatus;
     
-    @Builder.Default
-    private Map<String, Boolean> featureDecisions = new HashMap<>();
+    // Time the migration window checks are made against; the current time when not set
+    private LocalDateTime evaluationTime;
     
+    // Feature columns of the rule table the context is evaluated against
     @Builder.Default
-    private Map<String, String> decisionReasons = new HashMap<>();
+    @ToString.Exclude
+    private FeatureRegistry featureRegistry = FeatureRegistry.EMPTY;
+    
+    // Created on the first decision (or read) and dropped when the registry changes
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private FeatureDecisions decisions;
+    
+    // Single-pass roll-up of the accounts, built on first use and dropped when the accounts change
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient AccountSummary accountSummary;
+    
+    public void setAccounts(List<AccountInfo> accounts) {
+        this.accounts = accounts;
+        this.accountSummary = null;
+    }
+    
+    public void setFeatureRegistry(FeatureRegistry featureRegistry) {
+        this.featureRegistry = featureRegistry;
+        this.decisions = null;
+    }
+    
+    public FeatureDecisions getDecisions() {
+        if (decisions == null) {
+            decisions = new FeatureDecisions(featureRegistry);
+        }
+        return decisions;
+    }
+    
+    public AccountSummary getAccountSummary() {
+        if (accountSummary == null) {
+            accountSummary = AccountSummary.of(accounts);
+        }
+        return accountSummary;
+    }
+    
+    /**
+     * Context for one of this customer's accounts on its own, evaluated by the same rules: its
+     * status is derived from that account alone and the window checks use only its migration
+     * date, so e.g. an excluded LENDING account is not held to the window of a savings account
+     * being migrated. Shares the evaluation time and rule table; decisions start empty.
+     */
+    public CustomerMigrationContext forAccount(AccountInfo account) {
+        CustomerMigrationContext accountContext = CustomerMigrationContext.builder()
+                .customerId(customerId)
+                .accountId(account.getAccountId())
+                .accounts(List.of(account))
+                .requestedFeatures(requestedFeatures)
+                .evaluationTime(evaluationTime)
+                .featureRegistry(featureRegistry)
+                .build();
+        accountContext.deriveCustomerStatus();
+        return accountContext;
+    }
     
     // Derive customer-level status from account statuses (most critical account wins)
     public CustomerStatus deriveCustomerStatus() {
-        // Priority 1: Any NOT_MIGRATED (dropped customer)
-        if (accounts.stream().anyMatch(a -> a.getMigrationStatus() == MigrationStatus.NOT_MIGRATED)) {
-            this.customerStatus = CustomerStatus.DROPPED;
-            return CustomerStatus.DROPPED;
-        }
+        AccountSummary summary = getAccountSummary();
         
-        // Priority 2: Any IN_PROGRESS (actively migrating)
-        if (accounts.stream().anyMatch(a -> a.getMigrationStatus() == MigrationStatus.IN_PROGRESS)) {
+        if (summary.hasStatus(MigrationStatus.NOT_MIGRATED)) {
+            // Priority 1: Any NOT_MIGRATED (dropped customer)
+            this.customerStatus = CustomerStatus.DROPPED;
+        } else if (summary.hasStatus(MigrationStatus.IN_PROGRESS)) {
+            // Priority 2: Any IN_PROGRESS (actively migrating)
             this.customerStatus = CustomerStatus.IN_PROGRESS;
-            return CustomerStatus.IN_PROGRESS;
-        }
-        
-        // Priority 3: Any SCHEDULED (planned for migration)
-        if (accounts.stream().anyMatch(a -> a.getMigrationStatus() == MigrationStatus.SCHEDULED)) {
+        } else if (summary.hasStatus(MigrationStatus.SCHEDULED)) {
+            // Priority 3: Any SCHEDULED (planned for migration)
             this.customerStatus = CustomerStatus.SCHEDULED;
-            return CustomerStatus.SCHEDULED;
-        }
-        
-        // Priority 4: All MIGRATED (migration completed)
-        if (accounts.stream().allMatch(a -> a.getMigrationStatus() == MigrationStatus.MIGRATED)) {
+        } else if (summary.allStatusesIn(MigrationStatus.MIGRATED)) {
+            // Priority 4: All MIGRATED (migration completed)
             this.customerStatus = CustomerStatus.COMPLETED;
-            return CustomerStatus.COMPLETED;
-        }
-        
-        // Priority 5: All EXCLUDED (lending/IRA only customers)
-        if (accounts.stream().allMatch(a -> a.getMigrationStatus() == MigrationStatus.EXCLUDED)) {
+        } else if (summary.allStatusesIn(MigrationStatus.EXCLUDED)) {
+            // Priority 5: All EXCLUDED (lending/IRA only customers)
             this.customerStatus = CustomerStatus.EXCLUDED;
-            return CustomerStatus.EXCLUDED;
+        } else {
+            // Priority 6: Default (no migration applicable)
+            this.customerStatus = CustomerStatus.NOT_IN_SCOPE;
         }
-        
-        // Priority 6: Default (no migration applicable)
-        this.customerStatus = CustomerStatus.NOT_IN_SCOPE;
-        return CustomerStatus.NOT_IN_SCOPE;
+        return this.customerStatus;
     }
     
     // Helper methods for rules
     public boolean hasAccountType(AccountType accountType) {
-        return accounts.stream()
-                .anyMatch(account -> account.getAccountType() == accountType);
+        return getAccountSummary().hasAccountType(accountType);
     }
     
     public boolean hasSavingsOrCD() {
-        return hasAccountType(AccountType.SAVINGS) || hasAccountType(AccountType.CD);
+        return getAccountSummary().hasAnyAccountType(AccountType.SAVINGS, AccountType.CD);
     }
     
     public boolean hasChecking() {
@@ -86,45 +137,33 @@ public class CustomerMigrationContext {
     }
     
     public boolean hasLendingOrIRA() {
-        return hasAccountType(AccountType.LENDING) || hasAccountType(AccountType.IRA);
+        return getAccountSummary().hasAnyAccountType(AccountType.LENDING, AccountType.IRA);
     }
     
     public boolean hasNotMigratedStatus() {
-        return accounts.stream()
-                .anyMatch(account -> account.getMigrationStatus() == MigrationStatus.NOT_MIGRATED);
+        return getAccountSummary().hasStatus(MigrationStatus.NOT_MIGRATED);
     }
     
     public boolean allAccountsInTerminalState() {
-        return accounts.stream()
-                .allMatch(account -> 
-                    account.getMigrationStatus() == MigrationStatus.MIGRATED ||
-                    account.getMigrationStatus() == MigrationStatus.EXCLUDED ||
-                    account.getMigrationStatus() == MigrationStatus.NOT_MIGRATED
-                );
+        return getAccountSummary().allStatusesIn(
+                MigrationStatus.MIGRATED, MigrationStatus.EXCLUDED, MigrationStatus.NOT_MIGRATED);
     }
     
+    // Within window if current time >= migration date - hours AND < migration date + 1 day, for any account
     public boolean isWithinMigrationWindow(int hoursBeforeMigration) {
-        LocalDateTime now = LocalDateTime.now();
-        
-        return accounts.stream()
-                .filter(account -> account.getMigrationDate() != null)
-                .anyMatch(account -> {
-                    LocalDateTime migrationDate = account.getMigrationDate().atStartOfDay();
-                    LocalDateTime windowStart = migrationDate.minusHours(hoursBeforeMigration);
-                    
-                    // Within window if current time >= window start AND < migration date + 1 day
-                    return !now.isBefore(windowStart) && now.isBefore(migrationDate.plusDays(1));
-                });
+        LocalDateTime now = evaluationTime != null ? evaluationTime : LocalDateTime.now();
+        return getAccountSummary().isWithinMigrationWindow(hoursBeforeMigration, now);
+    }
+    
+    // Decision table window column: N matches within the N-hour window, 0 marks the
+    // "before window" row that applies once the earlier rows for a status did not match
+    public boolean matchesMigrationWindow(int hoursBeforeMigration) {
+        return hoursBeforeMigration <= 0 || isWithinMigrationWindow(hoursBeforeMigration);
     }
     
+    // Wave of the first scheduled or in-progress account
     public MigrationWave getCurrentWave() {
-        // Get the wave from any scheduled or in-progress account
-        return accounts.stream()
-                .filter(account -> account.getMigrationWave() != null && 
-                        account.getMigrationWave() != MigrationWave.NOT_APPLICABLE)
-                .map(AccountInfo::getMigrationWave)
-                .findFirst()
-                .orElse(MigrationWave.NOT_APPLICABLE);
+        return getAccountSummary().getCurrentWave();
     }
     
     public List<AccountType> getMigratableAccountTypes() {
@@ -135,65 +174,120 @@ public class CustomerMigrationContext {
                 .collect(Collectors.toList());
     }
     
-    // Per-feature control methods
-    public void setFeatureStatus(String feature, boolean enabled, String reason) {
-        featureDecisions.put(feature, enabled);
-        decisionReasons.put(feature, reason);
+    // Decision table action setFeature("feature1", "$param"); first matching row in table order decides a feature
+    public void setFeature(String feature, String status) {
+        if (status == null || status.isBlank()) {
+            return;
+        }
+        int featureId = featureRegistry.idOf(feature);
+        if (featureId < 0) {
+            throw new IllegalArgumentException("Feature " + feature + " is not a column of the rule table");
+        }
+        int actionValueId = featureRegistry.actionValueId(status);
+        if (actionValueId < 0) {
+            throw new IllegalArgumentException("Value " + status + " for " + feature + " is not in the rule table");
+        }
+        decide(featureId, actionValueId);
     }
     
-    public void setFeature1(String status) {
-        if (status != null && !status.trim().isEmpty()) {
-            setFeatureStatus("feature1", "enabled".equalsIgnoreCase(status), 
-                getCurrentWave() + ": feature1 " + status);
+    // Same as setFeature, with the IDs already resolved (decision matrix)
+    public void decide(int featureId, int actionValueId) {
+        FeatureDecisions featureDecisions = getDecisions();
+        if (!featureDecisions.isDecided(featureId)) {
+            featureDecisions.decide(featureId, featureRegistry.isEnabledValue(actionValueId),
+                    featureRegistry.reasonCode(getCurrentWave(), actionValueId));
         }
     }
     
+    // Features not decided by the rules, or not in the rule table, are enabled
+    public boolean isFeatureEnabled(String feature) {
+        return getDecisions().isEnabled(feature);
+    }
+    
+    public String getDecisionReason(String feature) {
+        return getDecisions().getReason(feature);
+    }
+    
+    // Actions of rule tables written before setFeature(name, value)
+    @Deprecated
+    public void setFeature1(String status) {
+        setFeature("feature1", status);
+    }
+    
+    @Deprecated
     public void setFeature2(String status) {
-        if (status != null && !status.trim().isEmpty()) {
-            setFeatureStatus("feature2", "enabled".equalsIgnoreCase(status), 
-                getCurrentWave() + ": feature2 " + status);
-        }
+        setFeature("feature2", status);
     }
     
+    @Deprecated
     public void setFeature3(String status) {
-        if (status != null && !status.trim().isEmpty()) {
-            setFeatureStatus("feature3", "enabled".equalsIgnoreCase(status), 
-                getCurrentWave() + ": feature3 " + status);
-        }
+        setFeature("feature3", status);
     }
     
+    @Deprecated
     public void setFeature4(String status) {
-        if (status != null && !status.trim().isEmpty()) {
-            setFeatureStatus("feature4", "enabled".equalsIgnoreCase(status), 
-                getCurrentWave() + ": feature4 " + status);
+        setFeature("feature4", status);
+    }
+    
+    /**
+     * Decides a feature unless a rule already did; the first decision wins, as for setFeature.
+     * The reason is the table's, e.g. "WAVE1: feature1 disabled": only reasons the table can
+     * produce are kept, so the given one is not.
+     *
+     * @deprecated use {@link #setFeature(String, String)} with a value from the feature column
+     */
+    @Deprecated
+    public void setFeatureStatus(String feature, boolean enabled, String reason) {
+        int featureId = featureRegistry.idOf(feature);
+        if (featureId < 0) {
+            throw new IllegalArgumentException("Feature " + feature + " is not a column of the rule table");
+        }
+        int actionValueId = featureRegistry.actionValueId(enabled);
+        if (actionValueId < 0) {
+            throw new IllegalArgumentException("No " + (enabled ? "enabling" : "disabling")
+                    + " value for " + feature + " in the rule table");
         }
+        decide(featureId, actionValueId);
     }
     
-    // Apply default enabled status for features not set by rules
+    /**
+     * Nothing left to do: features no rule decided are enabled with the default reason.
+     *
+     * @deprecated no longer needed
+     */
+    @Deprecated
     public void applyDefaults() {
-        requestedFeatures.forEach(feature -> {
-            if (!featureDecisions.containsKey(feature)) {
-                featureDecisions.put(feature, true);
-                decisionReasons.put(feature, "Default: Feature enabled (not specified in rules)");
-            }
-        });
     }
     
-    // Legacy methods for backward compatibility (deprecated)
+    /**
+     * Disables every requested feature no rule decided yet. Earlier decisions are kept (they
+     * used to be overwritten), and features the table has no column for stay enabled.
+     *
+     * @deprecated use setFeature per feature column
+     */
     @Deprecated
     public void suppressAllFeatures(String reason) {
-        requestedFeatures.forEach(feature -> {
-            featureDecisions.put(feature, false);
-            decisionReasons.put(feature, reason);
-        });
+        decideRequested(false, reason);
     }
     
+    /**
+     * Enables every requested feature no rule decided yet, see {@link #suppressAllFeatures}.
+     *
+     * @deprecated use setFeature per feature column
+     */
     @Deprecated
     public void enableAllFeatures(String reason) {
-        requestedFeatures.forEach(feature -> {
-            featureDecisions.put(feature, true);
-            decisionReasons.put(feature, reason);
-        });
+        decideRequested(true, reason);
+    }
+    
+    private void decideRequested(boolean enabled, String reason) {
+        if (requestedFeatures == null) {
+            return;
+        }
+        for (String feature : requestedFeatures) {
+            if (featureRegistry.idOf(feature) >= 0) {
+                setFeatureStatus(feature, enabled, reason);
+            }
+        }
     }
 }
-
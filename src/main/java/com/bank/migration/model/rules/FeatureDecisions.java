@@ -0,0 +1,117 @@
+package com.bank.migration.model.rules;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Feature decisions of one evaluation, indexed by {@link FeatureRegistry} feature ID: one bit
+ * per feature for decided and one for enabled, plus the reason code of each decided feature.
+ * The size depends only on the rule table, and nothing is allocated per decision. The first
+ * decision for a feature wins, like the first matching row of the table; a feature no rule
+ * decided, or one the table has no column for, is enabled with the default reason.
+ * Not modified once the rules have run, so decisions can be shared after evaluation.
+ */
+public final class FeatureDecisions {
+    
+    private final FeatureRegistry registry;
+    private final long[] decided;
+    private final long[] enabled;
+    private final int[] reasons;
+    
+    public FeatureDecisions(FeatureRegistry registry) {
+        this.registry = registry;
+        int words = (registry.size() + 63) >>> 6;
+        this.decided = new long[words];
+        this.enabled = new long[words];
+        this.reasons = new int[registry.size()];
+    }
+    
+    public FeatureRegistry getRegistry() {
+        return registry;
+    }
+    
+    /**
+     * Records a decision unless the feature already has one.
+     *
+     * @return whether this was the first decision for the feature
+     */
+    public boolean decide(int featureId, boolean featureEnabled, int reasonCode) {
+        if (isDecided(featureId)) {
+            return false;
+        }
+        long bit = 1L << featureId;
+        decided[featureId >>> 6] |= bit;
+        if (featureEnabled) {
+            enabled[featureId >>> 6] |= bit;
+        }
+        reasons[featureId] = reasonCode;
+        return true;
+    }
+    
+    public boolean isDecided(int featureId) {
+        return featureId >= 0 && (decided[featureId >>> 6] & (1L << featureId)) != 0;
+    }
+    
+    public boolean isEnabled(int featureId) {
+        return !isDecided(featureId) || (enabled[featureId >>> 6] & (1L << featureId)) != 0;
+    }
+    
+    public int getReasonCode(int featureId) {
+        return isDecided(featureId) ? reasons[featureId] : FeatureRegistry.DEFAULT_REASON;
+    }
+    
+    public String getReason(int featureId) {
+        return registry.reasonText(featureId, getReasonCode(featureId));
+    }
+    
+    public String getReasonName(int featureId) {
+        return registry.reasonName(getReasonCode(featureId));
+    }
+    
+    public boolean isEnabled(String feature) {
+        return isEnabled(registry.idOf(feature));
+    }
+    
+    public String getReason(String feature) {
+        return getReason(registry.idOf(feature));
+    }
+    
+    public int getDecidedCount() {
+        int count = 0;
+        for (long word : decided) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FeatureDecisions that)) {
+            return false;
+        }
+        return registry == that.registry
+                && Arrays.equals(decided, that.decided)
+                && Arrays.equals(enabled, that.enabled)
+                && Arrays.equals(reasons, that.reasons);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(decided) + Arrays.hashCode(enabled)) + Arrays.hashCode(reasons);
+    }
+    
+    // Decided features only, e.g. {feature1=false (WAVE1: feature1 disabled)}
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (int featureId = 0; featureId < registry.size(); featureId++) {
+            if (isDecided(featureId)) {
+                joiner.add(registry.nameOf(featureId) + "=" + isEnabled(featureId) + " (" + getReason(featureId) + ")");
+            }
+        }
+        return joiner.toString();
+    }
+}
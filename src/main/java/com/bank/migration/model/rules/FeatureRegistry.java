@@ -0,0 +1,147 @@
+package com.bank.migration.model.rules;
+
+import com.bank.migration.model.migration.MigrationWave;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The features of one rule table, read from its header row: every feature column gets a
+ * dense ID in column order, and every distinct action value (enabled, disabled, ...) an ID
+ * of its own. Decisions are held per feature ID in {@link FeatureDecisions}, and a decision's
+ * reason is a small code for the current wave and action value. The reason texts, and the
+ * stable reason code names clients can key on (e.g. WAVE1_DISABLED), are rendered once per
+ * rule table, not per request.
+ */
+public final class FeatureRegistry {
+    
+    // Reason of a feature no rule decided; the rule reasons follow it
+    public static final int DEFAULT_REASON = 0;
+    private static final String DEFAULT_REASON_TEXT = "Default: Feature enabled (not specified in rules)";
+    private static final String DEFAULT_REASON_NAME = "DEFAULT";
+    
+    // A reason names the current wave, or none (index WAVES.length)
+    private static final MigrationWave[] WAVES = MigrationWave.values();
+    
+    public static final FeatureRegistry EMPTY = new FeatureRegistry(List.of(), List.of());
+    
+    private final List<String> features;
+    private final Map<String, Integer> featureIds;
+    private final List<String> actionValues;
+    private final Map<String, Integer> actionValueIds;
+    private final boolean[] actionValueEnabled;
+    // [feature ID][reason code]
+    private final String[][] reasonTexts;
+    // [reason code]; the same for every feature
+    private final String[] reasonNames;
+    
+    public FeatureRegistry(List<String> features, List<String> actionValues) {
+        this.features = List.copyOf(features);
+        this.actionValues = List.copyOf(actionValues);
+        this.featureIds = ids(this.features, "feature");
+        this.actionValueIds = ids(this.actionValues, "action value");
+        
+        this.actionValueEnabled = new boolean[this.actionValues.size()];
+        for (int valueId = 0; valueId < actionValueEnabled.length; valueId++) {
+            actionValueEnabled[valueId] = "enabled".equalsIgnoreCase(this.actionValues.get(valueId));
+        }
+        
+        int reasonCount = 1 + (WAVES.length + 1) * this.actionValues.size();
+        this.reasonNames = new String[reasonCount];
+        reasonNames[DEFAULT_REASON] = DEFAULT_REASON_NAME;
+        for (int wave = 0; wave <= WAVES.length; wave++) {
+            for (int valueId = 0; valueId < actionValueEnabled.length; valueId++) {
+                reasonNames[reasonCode(wave, valueId)] = reasonName(wave < WAVES.length ? WAVES[wave].name() : "NO_WAVE",
+                        this.actionValues.get(valueId));
+            }
+        }
+        
+        this.reasonTexts = new String[this.features.size()][reasonCount];
+        for (int featureId = 0; featureId < reasonTexts.length; featureId++) {
+            reasonTexts[featureId][DEFAULT_REASON] = DEFAULT_REASON_TEXT;
+            for (int wave = 0; wave <= WAVES.length; wave++) {
+                for (int valueId = 0; valueId < actionValueEnabled.length; valueId++) {
+                    reasonTexts[featureId][reasonCode(wave, valueId)] = (wave < WAVES.length ? WAVES[wave] : null)
+                            + ": " + this.features.get(featureId) + " " + this.actionValues.get(valueId);
+                }
+            }
+        }
+    }
+    
+    public int size() {
+        return features.size();
+    }
+    
+    public List<String> getFeatures() {
+        return features;
+    }
+    
+    // Feature ID, or -1 for a feature the rule table has no column for
+    public int idOf(String feature) {
+        Integer id = featureIds.get(feature);
+        return id != null ? id : -1;
+    }
+    
+    public String nameOf(int featureId) {
+        return features.get(featureId);
+    }
+    
+    // Action value ID, or -1 for a value that appears in no feature column
+    public int actionValueId(String value) {
+        Integer id = actionValueIds.get(value);
+        if (id == null) {
+            id = actionValueIds.get(value.trim());
+        }
+        return id != null ? id : -1;
+    }
+    
+    public boolean isEnabledValue(int actionValueId) {
+        return actionValueEnabled[actionValueId];
+    }
+    
+    // First action value that enables (or does not enable) a feature, or -1 if the table has none
+    public int actionValueId(boolean enabled) {
+        for (int valueId = 0; valueId < actionValueEnabled.length; valueId++) {
+            if (actionValueEnabled[valueId] == enabled) {
+                return valueId;
+            }
+        }
+        return -1;
+    }
+    
+    public int reasonCode(MigrationWave wave, int actionValueId) {
+        return reasonCode(wave != null ? wave.ordinal() : WAVES.length, actionValueId);
+    }
+    
+    public String reasonText(int featureId, int reasonCode) {
+        return reasonCode == DEFAULT_REASON ? DEFAULT_REASON_TEXT : reasonTexts[featureId][reasonCode];
+    }
+    
+    /**
+     * Stable name of a reason code, e.g. WAVE1_DISABLED or DEFAULT. Unlike the code itself it
+     * does not depend on the order of the action values, so it holds across rule versions.
+     */
+    public String reasonName(int reasonCode) {
+        return reasonNames[reasonCode];
+    }
+    
+    private int reasonCode(int waveIndex, int actionValueId) {
+        return 1 + waveIndex * actionValues.size() + actionValueId;
+    }
+    
+    private static String reasonName(String wave, String actionValue) {
+        return wave + "_" + actionValue.trim().toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]+", "_");
+    }
+    
+    private static Map<String, Integer> ids(List<String> names, String kind) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < names.size(); id++) {
+            if (ids.putIfAbsent(names.get(id), id) != null) {
+                throw new IllegalArgumentException("Duplicate " + kind + " " + names.get(id));
+            }
+        }
+        return Map.copyOf(ids);
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.MigrationApiConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans out account status lookups for many customers over a fixed number of worker
+ * threads, so a batch request cannot open more than migration.api.batch.parallelism
+ * concurrent calls to the migration API.
+ */
+@Service
+@Slf4j
+public class AccountBatchFetcher {
+    
+    private final AccountStatusCache accountStatusCache;
+    private final ExecutorService executor;
+    
+    public AccountBatchFetcher(AccountStatusCache accountStatusCache, MigrationApiConfig migrationApiConfig) {
+        this.accountStatusCache = accountStatusCache;
+        
+        // Not exposed as a bean: an Executor bean would replace Spring Boot's applicationTaskExecutor
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(migrationApiConfig.getBatch().getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "migration-api-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Starts a lookup per customer; each future completes with that customer's accounts
+     * or exceptionally with that customer's failure.
+     */
+    public Map<String, CompletableFuture<AccountStatusCache.Lookup>> fetch(Collection<String> customerIds) {
+        Map<String, CompletableFuture<AccountStatusCache.Lookup>> lookups = new LinkedHashMap<>();
+        customerIds.forEach(customerId -> lookups.put(customerId, CompletableFuture.supplyAsync(
+                () -> accountStatusCache.lookup(customerId), executor)));
+        log.debug("Started {} account lookups", lookups.size());
+        return lookups;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,137 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.AccountEventsConfig;
+import com.bank.migration.model.dto.AccountEventBatchResponse;
+import com.bank.migration.model.migration.AccountStatusEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies batches of account status-change events, from the ingestion endpoint or an
+ * {@link AccountEventSource}, to the {@link CustomerAccountStore}, and drops the cached
+ * decisions (and with them the derived customer status) of every customer whose accounts
+ * changed. A batch is checked in full before anything is applied, so an invalid event
+ * rejects the whole batch.
+ */
+@Service
+@Slf4j
+public class AccountEventIngestor {
+    
+    private final AccountEventsConfig config;
+    private final CustomerAccountStore customerAccountStore;
+    private final FeatureDecisionCache featureDecisionCache;
+    private final List<AccountEventSource> sources;
+    
+    private final Counter appliedEvents;
+    private final Counter duplicateEvents;
+    private final Counter outdatedEvents;
+    
+    public AccountEventIngestor(AccountEventsConfig config,
+                                CustomerAccountStore customerAccountStore,
+                                FeatureDecisionCache featureDecisionCache,
+                                List<AccountEventSource> sources,
+                                MeterRegistry meterRegistry) {
+        this.config = config;
+        this.customerAccountStore = customerAccountStore;
+        this.featureDecisionCache = featureDecisionCache;
+        this.sources = sources.stream().filter(AccountEventSource::isEnabled).toList();
+        
+        this.appliedEvents = counter(meterRegistry, "applied");
+        this.duplicateEvents = counter(meterRegistry, "duplicate");
+        this.outdatedEvents = counter(meterRegistry, "outdated");
+        
+        if (config.isEnabled()) {
+            this.sources.forEach(source -> source.start(this::ingest));
+            log.info("Account status events enabled ({} event sources besides the ingestion endpoint)", this.sources.size());
+        } else if (!this.sources.isEmpty()) {
+            throw new IllegalStateException("An account event source is enabled but migration.events.enabled is not");
+        }
+    }
+    
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+    
+    public AccountEventBatchResponse ingest(List<AccountStatusEvent> events) {
+        if (events.size() > config.getMaxBatchSize()) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + config.getMaxBatchSize() + " events");
+        }
+        Map<String, List<AccountStatusEvent>> byCustomer = new LinkedHashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            AccountStatusEvent event = events.get(i);
+            validate(i, event);
+            byCustomer.computeIfAbsent(event.getCustomerId(), id -> new ArrayList<>()).add(event);
+        }
+        
+        int applied = 0;
+        int duplicates = 0;
+        int outdated = 0;
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, List<AccountStatusEvent>> customer : byCustomer.entrySet()) {
+            CustomerAccountStore.Applied result = customerAccountStore.apply(customer.getKey(), customer.getValue());
+            applied += result.applied();
+            duplicates += result.duplicates();
+            outdated += result.outdated();
+            if (result.applied() > 0) {
+                changed.add(customer.getKey());
+            }
+        }
+        if (!changed.isEmpty()) {
+            featureDecisionCache.evict(changed);
+        }
+        
+        appliedEvents.increment(applied);
+        duplicateEvents.increment(duplicates);
+        outdatedEvents.increment(outdated);
+        log.debug("Applied {} of {} account status events ({} duplicates, {} outdated), {} customers changed",
+                applied, events.size(), duplicates, outdated, changed.size());
+        return AccountEventBatchResponse.builder()
+                .received(events.size())
+                .applied(applied)
+                .duplicates(duplicates)
+                .outdated(outdated)
+                .customersChanged(changed.size())
+                .build();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        sources.forEach(AccountEventSource::stop);
+    }
+    
+    // Events carry the account's full state, so every field but the migration date is required
+    private static void validate(int index, AccountStatusEvent event) {
+        String problem = null;
+        if (event == null) {
+            problem = "event is empty";
+        } else if (event.getCustomerId() == null || event.getCustomerId().isBlank()) {
+            problem = "customerId is required";
+        } else if (event.getAccountId() == null || event.getAccountId().isBlank()) {
+            problem = "accountId is required";
+        } else if (event.getVersion() == null || event.getVersion() < 1) {
+            problem = "version must be 1 or more";
+        } else if (event.getAccountType() == null || event.getMigrationStatus() == null || event.getMigrationWave() == null) {
+            problem = "accountType, migrationStatus and migrationWave are required";
+        }
+        if (problem != null) {
+            throw new IllegalArgumentException("Event " + index + ": " + problem);
+        }
+    }
+    
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("migration.events")
+                .description("Account status events received, by what applying them did")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,22 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.migration.AccountStatusEvent;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Where account status-change events come from besides the ingestion endpoint, e.g. a
+ * message queue consumer. Every source bean that is enabled is started by
+ * {@link AccountEventIngestor} and delivers its events in batches; a batch that is rejected
+ * (invalid event) throws from the sink, and the source decides what to do with it.
+ */
+public interface AccountEventSource {
+    
+    boolean isEnabled();
+    
+    // Starts delivering on the source's own thread(s)
+    void start(Consumer<List<AccountStatusEvent>> sink);
+    
+    void stop();
+}
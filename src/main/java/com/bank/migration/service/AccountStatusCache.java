@@ -0,0 +1,300 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.exception.MigrationApiException;
+import com.bank.migration.model.dto.CacheStatsResponse;
+import com.bank.migration.model.migration.AccountInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-through cache of account statuses in front of the migration API
+ * (through {@link SingleFlightAccountLoader}). In offline roster mode, customers in the
+ * roster snapshot are answered from {@link RosterStore} and never reach the cache.
+ * With account status events enabled, a customer whose accounts are in the
+ * {@link CustomerAccountStore} is answered from there; accounts read from the roster or
+ * the migration API are recorded in it, so each customer is only read once.
+ * Entries are bounded by size and TTL, and expire early around migration window
+ * boundaries since that is when the migration API data actually changes. A lookup
+ * answered from an entry says when the entry expires, so anything derived from it can
+ * be dropped at the same time.
+ * <p>
+ * The last accounts fetched for each customer are also kept, for up to stale.max-age, and
+ * answer a lookup when the migration API call fails. While the circuit breaker is not
+ * closed they answer straight away, and the customer is refreshed in the background.
+ * Such answers are flagged stale.
+ */
+@Service
+@Slf4j
+public class AccountStatusCache {
+    
+    private final SingleFlightAccountLoader accountLoader;
+    private final RosterStore rosterStore;
+    private final CustomerAccountStore customerAccountStore;
+    private final MigrationApiCircuitBreaker circuitBreaker;
+    private final MigrationApiConfig.Cache config;
+    private final MigrationApiConfig.Stale staleConfig;
+    private final Clock clock;
+    private final Cache<String, Cached> cache;
+    private final Cache<String, List<AccountInfo>> lastKnown;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+    private final Counter staleResponses;
+    
+    public AccountStatusCache(SingleFlightAccountLoader accountLoader,
+                              RosterStore rosterStore,
+                              CustomerAccountStore customerAccountStore,
+                              MigrationApiCircuitBreaker circuitBreaker,
+                              MigrationApiConfig migrationApiConfig,
+                              Clock clock,
+                              MeterRegistry meterRegistry) {
+        this.accountLoader = accountLoader;
+        this.rosterStore = rosterStore;
+        this.customerAccountStore = customerAccountStore;
+        this.circuitBreaker = circuitBreaker;
+        this.config = migrationApiConfig.getCache();
+        this.staleConfig = migrationApiConfig.getStale();
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new WindowAwareExpiry())
+                // Expiry follows the service clock, so a fixed or offset clock moves boundaries too
+                .ticker(this::clockNanos)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "migration.accounts");
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(staleConfig.getMaximumSize())
+                .expireAfterWrite(staleConfig.getMaxAge())
+                .build();
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refresher = Executors.newFixedThreadPool(staleConfig.getRefreshParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "migration-api-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.staleResponses = Counter.builder("migration.accounts.stale")
+                .description("Account lookups answered from the last known accounts because the migration API failed")
+                .register(meterRegistry);
+        log.info("Account status cache enabled: {} (maximumSize: {}, ttl: {}), stale fallback enabled: {} (maxAge: {})",
+                config.isEnabled(), config.getMaximumSize(), config.getTtl(), staleConfig.isEnabled(), staleConfig.getMaxAge());
+    }
+    
+    public List<AccountInfo> getAccountStatuses(String customerId) {
+        return lookup(customerId).accounts();
+    }
+    
+    // Accounts of a customer, flagged when they are the last known ones rather than current
+    public Lookup lookup(String customerId) {
+        List<AccountInfo> known = customerAccountStore.find(customerId);
+        if (known != null) {
+            return new Lookup(known, false, null);
+        }
+        if (rosterStore.isEnabled()) {
+            Optional<List<AccountInfo>> fromRoster = rosterStore.lookup(customerId);
+            if (fromRoster.isPresent()) {
+                return new Lookup(customerAccountStore.overlay(customerId, fromRoster.get()), false, null);
+            }
+        }
+        if (staleConfig.isEnabled() && !circuitBreaker.isClosed()) {
+            // The migration API is failing: no request waits for it, one refresh per customer probes it
+            Cached cached = config.isEnabled() ? cache.getIfPresent(customerId) : null;
+            if (cached != null) {
+                return cached.lookup(customerAccountStore.record(customerId, cached.accounts()));
+            }
+            List<AccountInfo> stale = lastKnown.getIfPresent(customerId);
+            if (stale != null) {
+                refreshInBackground(customerId);
+                return stale(customerId, stale, "circuit breaker " + circuitBreaker.getState());
+            }
+        }
+        try {
+            Cached loaded = load(customerId);
+            return loaded.lookup(customerAccountStore.record(customerId, loaded.accounts()));
+        } catch (MigrationApiException e) {
+            List<AccountInfo> stale = staleConfig.isEnabled() ? lastKnown.getIfPresent(customerId) : null;
+            if (stale == null) {
+                throw e;
+            }
+            return stale(customerId, stale, e.getMessage());
+        }
+    }
+    
+    // Reads the accounts again instead of from the cache; accounts kept current by events are not re-read
+    public Lookup refresh(String customerId) {
+        if (customerAccountStore.find(customerId) == null) {
+            cache.invalidate(customerId);
+        }
+        return lookup(customerId);
+    }
+    
+    // Customers read from the migration API recently: those kept for the stale fallback, else those cached
+    public void forEachRecentCustomer(BiConsumer<String, List<AccountInfo>> consumer) {
+        if (staleConfig.isEnabled()) {
+            lastKnown.asMap().forEach(consumer);
+        } else {
+            cache.asMap().forEach((customerId, cached) -> consumer.accept(customerId, cached.accounts()));
+        }
+    }
+    
+    public long getStaleResponses() {
+        return (long) staleResponses.count();
+    }
+    
+    // The last known accounts stay: they are only used when the migration API fails
+    public void evict(String customerId) {
+        log.info("Evicting cached accounts for customer: {}", customerId);
+        cache.invalidate(customerId);
+    }
+    
+    public void evictAll() {
+        log.info("Evicting all cached accounts ({} entries)", cache.estimatedSize());
+        cache.invalidateAll();
+    }
+    
+    public CacheStatsResponse getStats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsResponse.builder()
+                .enabled(config.isEnabled())
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .loadFailureCount(stats.loadFailureCount())
+                .evictionCount(stats.evictionCount())
+                .hitRate(stats.hitRate())
+                .build();
+    }
+    
+    // Failed lookups are not cached; the MigrationApiException reaches the caller as before
+    private Cached load(String customerId) {
+        if (!config.isEnabled()) {
+            return new Cached(remember(customerId, List.copyOf(accountLoader.getAccountStatuses(customerId))), null);
+        }
+        return cache.get(customerId, id -> {
+            List<AccountInfo> accounts = remember(id, List.copyOf(accountLoader.getAccountStatuses(id)));
+            LocalDateTime now = LocalDateTime.now(clock);
+            return new Cached(accounts, now.plus(expiryFor(accounts, now)));
+        });
+    }
+    
+    private List<AccountInfo> remember(String customerId, List<AccountInfo> accounts) {
+        if (staleConfig.isEnabled()) {
+            lastKnown.put(customerId, accounts);
+        }
+        return accounts;
+    }
+    
+    private Lookup stale(String customerId, List<AccountInfo> accounts, String reason) {
+        staleResponses.increment();
+        log.debug("Serving last known accounts for customer {}: {}", customerId, reason);
+        return new Lookup(accounts, true, null);
+    }
+    
+    private void refreshInBackground(String customerId) {
+        if (!refreshing.add(customerId)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(customerId);
+                    log.debug("Refreshed accounts for customer {} in the background", customerId);
+                } catch (MigrationApiException e) {
+                    log.debug("Background refresh failed for customer {}: {}", customerId, e.getMessage());
+                } finally {
+                    refreshing.remove(customerId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(customerId);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+    
+    // expiresAt: when the cache entry the accounts came from expires; null when they were not
+    // cached, i.e. read just now or kept current by events
+    public record Lookup(List<AccountInfo> accounts, boolean stale, LocalDateTime expiresAt) {
+    }
+    
+    // expiresAt is fixed when the entry is loaded; null for accounts read with the cache disabled
+    private record Cached(List<AccountInfo> accounts, LocalDateTime expiresAt) {
+        
+        Lookup lookup(List<AccountInfo> recorded) {
+            return new Lookup(recorded, false, expiresAt);
+        }
+    }
+    
+    // Time to live for an entry: the configured TTL, cut short at the next window boundary
+    // and capped at window-ttl while any account is near or inside its migration window
+    Duration expiryFor(List<AccountInfo> accounts, LocalDateTime now) {
+        Duration expiry = config.getTtl();
+        for (AccountInfo account : accounts) {
+            if (account.getMigrationDate() == null) {
+                continue;
+            }
+            LocalDateTime leadStart = account.getMigrationDate().atStartOfDay().minus(config.getWindowLeadTime());
+            LocalDateTime windowEnd = account.getMigrationDate().atStartOfDay().plusDays(1);
+            
+            if (now.isBefore(leadStart)) {
+                expiry = min(expiry, Duration.between(now, leadStart));
+            } else if (now.isBefore(windowEnd)) {
+                expiry = min(expiry, min(config.getWindowTtl(), Duration.between(now, windowEnd)));
+            }
+        }
+        return expiry;
+    }
+    
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+    
+    private long clockNanos() {
+        Instant instant = clock.instant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+    
+    private class WindowAwareExpiry implements Expiry<String, Cached> {
+        
+        @Override
+        public long expireAfterCreate(String customerId, Cached cached, long currentTime) {
+            return Math.max(0, Duration.between(LocalDateTime.now(clock), cached.expiresAt()).toNanos());
+        }
+        
+        @Override
+        public long expireAfterUpdate(String customerId, Cached cached, long currentTime, long currentDuration) {
+            return expireAfterCreate(customerId, cached, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String customerId, Cached cached, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
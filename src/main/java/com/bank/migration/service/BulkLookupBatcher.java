@@ -0,0 +1,148 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.exception.MigrationApiException;
+import com.bank.migration.model.migration.AccountInfo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Collects single-customer lookups for up to max-delay or max-batch-size customers,
+ * whichever comes first, sends them as one bulk request and completes each caller's
+ * future with its own customer's accounts.
+ */
+@Slf4j
+class BulkLookupBatcher {
+    
+    private final Function<List<String>, Map<String, List<AccountInfo>>> bulkFetch;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService scheduler;
+    
+    private final DistributionSummary sizeTriggeredBatches;
+    private final DistributionSummary delayTriggeredBatches;
+    
+    private final Object lock = new Object();
+    private List<PendingLookup> pending = new ArrayList<>();
+    private ScheduledFuture<?> flushTimer;
+    
+    BulkLookupBatcher(Function<List<String>, Map<String, List<AccountInfo>>> bulkFetch,
+                      MigrationApiConfig.Bulk config,
+                      MeterRegistry meterRegistry) {
+        this.bulkFetch = bulkFetch;
+        this.maxBatchSize = config.getMaxBatchSize();
+        this.maxDelayNanos = config.getMaxDelay().toNanos();
+        
+        // Runs the flush timers and the bulk calls themselves, so it also caps concurrent bulk requests
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(config.getMaxConcurrentBatches(), runnable -> {
+            Thread thread = new Thread(runnable, "migration-api-bulk-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        this.sizeTriggeredBatches = batchFill(meterRegistry, "size");
+        this.delayTriggeredBatches = batchFill(meterRegistry, "delay");
+    }
+    
+    private DistributionSummary batchFill(MeterRegistry meterRegistry, String trigger) {
+        return DistributionSummary.builder("migration.api.bulk.batch.size")
+                .description("Customers per bulk migration API request")
+                .tag("trigger", trigger)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue((double) maxBatchSize)
+                .register(meterRegistry);
+    }
+    
+    CompletableFuture<List<AccountInfo>> submit(String customerId) {
+        PendingLookup lookup = new PendingLookup(customerId, new CompletableFuture<>());
+        List<PendingLookup> fullBatch = null;
+        
+        synchronized (lock) {
+            pending.add(lookup);
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = drain();
+            } else if (pending.size() == 1) {
+                flushTimer = scheduler.schedule(this::flush, maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        
+        if (fullBatch != null) {
+            List<PendingLookup> batch = fullBatch;
+            scheduler.execute(() -> dispatch(batch, sizeTriggeredBatches));
+        }
+        return lookup.result();
+    }
+    
+    private void flush() {
+        List<PendingLookup> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch, delayTriggeredBatches);
+        }
+    }
+    
+    // Caller holds the lock
+    private List<PendingLookup> drain() {
+        List<PendingLookup> batch = pending;
+        pending = new ArrayList<>();
+        if (flushTimer != null) {
+            flushTimer.cancel(false);
+            flushTimer = null;
+        }
+        return batch;
+    }
+    
+    private void dispatch(List<PendingLookup> batch, DistributionSummary batchFill) {
+        // The same customer can be queued twice when call coalescing is off
+        List<String> customerIds = batch.stream().map(PendingLookup::customerId).distinct().toList();
+        batchFill.record(customerIds.size());
+        log.debug("Sending bulk migration API request for {} customers", customerIds.size());
+        
+        Map<String, List<AccountInfo>> accountsByCustomer;
+        try {
+            accountsByCustomer = bulkFetch.apply(customerIds);
+        } catch (RuntimeException e) {
+            batch.forEach(lookup -> lookup.result().completeExceptionally(e));
+            return;
+        }
+        
+        for (PendingLookup lookup : batch) {
+            List<AccountInfo> accounts = accountsByCustomer.get(lookup.customerId());
+            if (accounts == null) {
+                lookup.result().completeExceptionally(new MigrationApiException(
+                        "Failed to retrieve migration data for customer: " + lookup.customerId()));
+            } else {
+                lookup.result().complete(accounts);
+            }
+        }
+    }
+    
+    void shutdown() {
+        List<PendingLookup> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        batch.forEach(lookup -> lookup.result().completeExceptionally(
+                new MigrationApiException("Migration API client is shutting down")));
+        scheduler.shutdownNow();
+    }
+    
+    private record PendingLookup(String customerId, CompletableFuture<List<AccountInfo>> result) {
+    }
+}
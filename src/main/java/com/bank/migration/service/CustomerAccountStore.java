@@ -0,0 +1,177 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.AccountEventsConfig;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountStatusEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Accounts per customer, kept current by account status-change events. Each account keeps
+ * the version of the last event applied to it, and an event is only applied if its version
+ * is higher: applying the same event again, or an older one after a newer, changes nothing.
+ * <p>
+ * A customer is known once its full account list has been recorded, as read from the
+ * migration API or the roster snapshot. Those accounts count as version 0, so any event
+ * replaces them. Events for a customer that is not known yet are kept and laid over the
+ * full list when it is recorded.
+ * <p>
+ * The store is bounded by migration.events.store: customers are dropped when it is full or
+ * after they were idle for expire-after-access. A dropped customer is read again from the
+ * roster or the migration API like one never seen, so events applied to it only last if the
+ * source has caught up with them by then.
+ * <p>
+ * Every applied change also bumps a change version for the customer, so decisions made from
+ * accounts read before the change can be told apart and are not cached after it.
+ */
+@Service
+public class CustomerAccountStore {
+    
+    // Change versions are striped by customer; a change to another customer of the same stripe
+    // only costs a decision that is not cached
+    private static final int CHANGE_STRIPES = 4096;
+    
+    private final boolean enabled;
+    // The metrics only hold the cache weakly
+    private final Cache<String, CustomerAccounts> cache;
+    private final Map<String, CustomerAccounts> customers;
+    private final AtomicLongArray changeVersions = new AtomicLongArray(CHANGE_STRIPES);
+    
+    public CustomerAccountStore(AccountEventsConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getStore().getMaximumSize())
+                .expireAfterAccess(config.getStore().getExpireAfterAccess())
+                .recordStats()
+                .build();
+        this.customers = cache.asMap();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "migration.events.customers");
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // Accounts of a known customer, or null if they have to be read from elsewhere first
+    public List<AccountInfo> find(String customerId) {
+        if (!enabled) {
+            return null;
+        }
+        CustomerAccounts entry = customers.get(customerId);
+        return entry != null && entry.known() ? entry.list() : null;
+    }
+    
+    public void forEachKnown(BiConsumer<String, List<AccountInfo>> consumer) {
+        customers.forEach((customerId, entry) -> {
+            if (entry.known()) {
+                consumer.accept(customerId, entry.list());
+            }
+        });
+    }
+    
+    /**
+     * Version of the customer's accounts, bumped each time events change them. Read before
+     * looking up the accounts; if it differs afterwards, decisions made from them are outdated.
+     */
+    public long changeVersion(String customerId) {
+        return enabled ? changeVersions.get(stripe(customerId)) : 0;
+    }
+    
+    // Whether any events or accounts are held for the customer
+    public boolean contains(String customerId) {
+        return enabled && customers.containsKey(customerId);
+    }
+    
+    /**
+     * Records a customer's full account list, read from the migration API or the roster, and
+     * returns the accounts with the events applied so far laid over it.
+     */
+    public List<AccountInfo> record(String customerId, List<AccountInfo> accounts) {
+        if (!enabled) {
+            return accounts;
+        }
+        return customers.compute(customerId, (id, current) -> CustomerAccounts.recorded(accounts, current)).list();
+    }
+    
+    // As record, but only for a customer events were received for; others keep being read from the roster
+    public List<AccountInfo> overlay(String customerId, List<AccountInfo> accounts) {
+        if (!enabled) {
+            return accounts;
+        }
+        CustomerAccounts entry = customers.computeIfPresent(customerId,
+                (id, current) -> current.known() ? current : CustomerAccounts.recorded(accounts, current));
+        return entry != null ? entry.list() : accounts;
+    }
+    
+    // Applies the events of one customer, atomically for that customer
+    Applied apply(String customerId, List<AccountStatusEvent> events) {
+        int[] counts = new int[3];
+        customers.compute(customerId, (id, current) -> {
+            Map<String, VersionedAccount> accounts = current != null ? new LinkedHashMap<>(current.accounts()) : new LinkedHashMap<>();
+            for (AccountStatusEvent event : events) {
+                VersionedAccount existing = accounts.get(event.getAccountId());
+                long version = event.getVersion();
+                if (existing == null || version > existing.version()) {
+                    accounts.put(event.getAccountId(), new VersionedAccount(version, event.toAccountInfo()));
+                    counts[0]++;
+                } else if (version == existing.version()) {
+                    counts[1]++;
+                } else {
+                    counts[2]++;
+                }
+            }
+            if (counts[0] == 0 && current != null) {
+                return current;
+            }
+            return new CustomerAccounts(accounts, current != null && current.known());
+        });
+        if (counts[0] > 0) {
+            changeVersions.incrementAndGet(stripe(customerId));
+        }
+        return new Applied(counts[0], counts[1], counts[2]);
+    }
+    
+    private static int stripe(String customerId) {
+        int hash = customerId.hashCode();
+        return (hash ^ (hash >>> 16)) & (CHANGE_STRIPES - 1);
+    }
+    
+    record Applied(int applied, int duplicates, int outdated) {
+    }
+    
+    private record VersionedAccount(long version, AccountInfo account) {
+    }
+    
+    // Copied on every change; a customer has a handful of accounts
+    private record CustomerAccounts(Map<String, VersionedAccount> accounts, boolean known, List<AccountInfo> list) {
+        
+        CustomerAccounts(Map<String, VersionedAccount> accounts, boolean known) {
+            this(accounts, known, accounts.values().stream().map(VersionedAccount::account).toList());
+        }
+        
+        // The recorded accounts in their order, each replaced by an event-applied version if there is one
+        static CustomerAccounts recorded(List<AccountInfo> recorded, CustomerAccounts current) {
+            Map<String, VersionedAccount> accounts = new LinkedHashMap<>();
+            for (AccountInfo account : recorded) {
+                accounts.put(account.getAccountId(), new VersionedAccount(0, account));
+            }
+            if (current != null) {
+                current.accounts().forEach((accountId, account) -> {
+                    if (account.version() > 0) {
+                        accounts.put(accountId, account);
+                    }
+                });
+            }
+            return new CustomerAccounts(accounts, true);
+        }
+    }
+}
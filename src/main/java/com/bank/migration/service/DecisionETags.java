@@ -0,0 +1,107 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.rules.AccountSummary;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Weak ETags for feature responses, computed before the response itself: a 64-bit hash over
+ * the customer's accounts, the active rule version, the requested features, the response
+ * variant and the window bucket. The bucket is the customer's next migration window boundary;
+ * decisions cannot change before it without the accounts or the rules changing too. An
+ * If-None-Match that still matches can therefore be answered with 304 before anything is
+ * decided or serialized. The accounts and rules come from the
+ * {@link FeatureDecisionService.Snapshot} the response body is then made from.
+ */
+@Service
+public class DecisionETags {
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private final Clock clock;
+    
+    public DecisionETags(Clock clock) {
+        this.clock = clock;
+    }
+    
+    /**
+     * Tag for a customer's response; variant distinguishes response shapes of the same
+     * decisions (e.g. with or without reasons). Null when the window sizes are not known,
+     * which needs the rule table to be answered by the compiled decision matrix.
+     */
+    public String forCustomer(FeatureDecisionService.Snapshot snapshot, List<String> features, String variant) {
+        RuleSet ruleSet = snapshot.ruleSet();
+        DecisionMatrix decisionMatrix = ruleSet.getDecisionMatrix();
+        if (!decisionMatrix.isCompiled()) {
+            return null;
+        }
+        AccountStatusCache.Lookup lookup = snapshot.lookup();
+        LocalDateTime boundary = AccountSummary.of(lookup.accounts())
+                .nextWindowBoundary(decisionMatrix.getWindowThresholds(), LocalDateTime.now(clock));
+        
+        long hash = FNV_OFFSET;
+        hash = mix(hash, snapshot.customerId());
+        hash = mix(hash, ruleSet.getVersion());
+        hash = mix(hash, variant);
+        hash = mix(hash, lookup.stale() ? 1 : 0);
+        if (features != null) {
+            for (String feature : features) {
+                hash = mix(hash, feature);
+            }
+        }
+        for (AccountInfo account : lookup.accounts()) {
+            hash = mix(hash, account.getAccountId());
+            hash = mix(hash, account.getAccountType() != null ? account.getAccountType().ordinal() : -1);
+            hash = mix(hash, account.getMigrationStatus() != null ? account.getMigrationStatus().ordinal() : -1);
+            hash = mix(hash, account.getMigrationWave() != null ? account.getMigrationWave().ordinal() : -1);
+            hash = mix(hash, account.getMigrationDate() != null ? account.getMigrationDate().toEpochDay() : Long.MIN_VALUE);
+        }
+        hash = mix(hash, boundary != null ? boundary.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+    
+    /**
+     * Whether an If-None-Match header names the tag, compared weakly (W/ ignored) as HTTP
+     * does for If-None-Match.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || opaqueTag(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+    
+    // FNV-1a over the characters, with a separator so adjacent values cannot run together
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ 0x1f) * FNV_PRIME;
+    }
+    
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
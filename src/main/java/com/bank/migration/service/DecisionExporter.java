@@ -0,0 +1,271 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.ExportConfig;
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.model.dto.BatchFeatureCheckResponse;
+import com.bank.migration.model.dto.BatchFeatureCheckResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams feature decisions for a customer ID list of any length as NDJSON, one
+ * {@link BatchFeatureCheckResult} per line in input order. IDs are read and decided chunk-size
+ * at a time through {@link FeatureDecisionService#checkFeaturesBatch}, so they go through the
+ * same caches, precomputed decisions and bounded migration API fan-out as a batch check; the
+ * next chunk is decided while the current one is written. No more than two chunks are held,
+ * and since writing blocks while the client is not reading, a slow client also holds back
+ * reading and deciding. Each export reads at most migration.export.max-input-size and streams
+ * for at most migration.export.timeout.
+ */
+@Service
+@Slf4j
+public class DecisionExporter {
+    
+    private final FeatureDecisionService featureDecisionService;
+    private final RuleSetManager ruleSetManager;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final long maxInputBytes;
+    private final Duration timeout;
+    private final Semaphore exports;
+    private final ExecutorService deciders;
+    private final Counter exportedCustomers;
+    
+    public DecisionExporter(FeatureDecisionService featureDecisionService,
+                            RuleSetManager ruleSetManager,
+                            ObjectMapper objectMapper,
+                            ExportConfig config,
+                            MigrationApiConfig migrationApiConfig,
+                            MeterRegistry meterRegistry) {
+        this.featureDecisionService = featureDecisionService;
+        this.ruleSetManager = ruleSetManager;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.min(config.getChunkSize(), migrationApiConfig.getBatch().getMaxCustomers());
+        this.maxInputBytes = config.getMaxInputSize().toBytes();
+        this.timeout = config.getTimeout();
+        this.exports = new Semaphore(config.getMaxConcurrentExports());
+        
+        // One chunk decided ahead per export
+        AtomicInteger threadCount = new AtomicInteger();
+        this.deciders = Executors.newFixedThreadPool(config.getMaxConcurrentExports(), runnable -> {
+            Thread thread = new Thread(runnable, "decision-export-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.exportedCustomers = Counter.builder("migration.export.customers")
+                .description("Customers written by decision exports")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Starts an export of the customer IDs in input, one per line (blank lines and lines
+     * starting with # are skipped). Without features, every feature of the active rule table
+     * is exported.
+     *
+     * @return the response body writing the decisions, or null if max-concurrent-exports
+     *         exports are already running. The caller must {@link Export#abandon} it once the
+     *         request is over, in case the body never ran.
+     */
+    public Export start(InputStream input, List<String> features, boolean withReasons) {
+        if (!exports.tryAcquire()) {
+            return null;
+        }
+        List<String> exported = features != null && !features.isEmpty()
+                ? features
+                : ruleSetManager.current().getFeatureRegistry().getFeatures();
+        log.info("Starting decision export for features {}", exported);
+        return new Export(input, exported, withReasons);
+    }
+    
+    // Whether a customer ID list of this many bytes is over migration.export.max-input-size
+    public boolean isTooLarge(long size) {
+        return size > maxInputBytes;
+    }
+    
+    public Duration getTimeout() {
+        return timeout;
+    }
+    
+    private void write(BufferedReader reader, OutputStream out, List<String> features, boolean withReasons)
+            throws IOException {
+        long start = System.nanoTime();
+        long written = 0;
+        try {
+            List<String> chunk = nextChunk(reader);
+            CompletableFuture<BatchFeatureCheckResponse> pending = chunk.isEmpty() ? null
+                    : decide(chunk, features, withReasons);
+            while (pending != null) {
+                BatchFeatureCheckResponse decided;
+                try {
+                    decided = pending.join();
+                } catch (CompletionException e) {
+                    // Headers are already out, so the failure goes into the stream as its last line
+                    log.error("Decision export failed after {} customers", written, e.getCause());
+                    writeError(out, "Export failed after " + written + " customers: " + e.getCause().getMessage());
+                    return;
+                }
+                
+                chunk = nextChunk(reader);
+                pending = chunk.isEmpty() ? null : decide(chunk, features, withReasons);
+                try {
+                    for (BatchFeatureCheckResult result : decided.getResults()) {
+                        out.write(objectMapper.writeValueAsBytes(result));
+                        out.write('\n');
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    // Client went away; the chunk already being decided finishes on its own
+                    log.warn("Decision export aborted by the client after {} customers: {}", written, e.getMessage());
+                    throw e;
+                }
+                written += decided.getResults().size();
+                exportedCustomers.increment(decided.getResults().size());
+            }
+        } catch (InputTooLargeException e) {
+            log.warn("Decision export stopped after {} customers: {}", written, e.getMessage());
+            writeError(out, "Export stopped after " + written + " customers: " + e.getMessage());
+            return;
+        }
+        log.info("Decision export finished: {} customers in {} ms", written, (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    private void writeError(OutputStream out, String message) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(Map.of("error", message)));
+        out.write('\n');
+        out.flush();
+    }
+    
+    private List<String> nextChunk(BufferedReader reader) throws IOException {
+        List<String> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while (chunk.size() < chunkSize && (line = reader.readLine()) != null) {
+            String customerId = line.trim();
+            if (!customerId.isEmpty() && !customerId.startsWith("#")) {
+                chunk.add(customerId);
+            }
+        }
+        return chunk;
+    }
+    
+    private CompletableFuture<BatchFeatureCheckResponse> decide(List<String> customerIds, List<String> features,
+                                                                boolean withReasons) {
+        return CompletableFuture.supplyAsync(
+                () -> featureDecisionService.checkFeaturesBatch(customerIds, features, withReasons), deciders);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        deciders.shutdownNow();
+    }
+    
+    /**
+     * An export holding one of the max-concurrent-exports permits. The permit goes back
+     * exactly once: when the body finishes, or on {@link #abandon} if it never started
+     * (the request timed out or failed before the body was run).
+     */
+    public final class Export implements StreamingResponseBody {
+        
+        private final InputStream input;
+        private final List<String> features;
+        private final boolean withReasons;
+        // Set by whichever of writeTo and abandon comes first; that one releases the permit
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        
+        private Export(InputStream input, List<String> features, boolean withReasons) {
+            this.input = input;
+            this.features = features;
+            this.withReasons = withReasons;
+        }
+        
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            if (!claimed.compareAndSet(false, true)) {
+                // Abandoned: the request is already over
+                return;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new LimitedInputStream(input, maxInputBytes), StandardCharsets.UTF_8))) {
+                write(reader, new BufferedOutputStream(out, 64 * 1024), features, withReasons);
+            } finally {
+                exports.release();
+            }
+        }
+        
+        // Releases the permit unless the body started, in which case it releases it when done
+        public void abandon() {
+            if (claimed.compareAndSet(false, true)) {
+                log.warn("Decision export ended before it started");
+                exports.release();
+            }
+        }
+    }
+    
+    // Customer ID list input that fails once more than the limit has been read
+    private static final class LimitedInputStream extends FilterInputStream {
+        
+        private final long limit;
+        private long read;
+        
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+        
+        private void count(int n) throws InputTooLargeException {
+            read += n;
+            if (read > limit) {
+                throw new InputTooLargeException("customer ID list is larger than " + limit + " bytes");
+            }
+        }
+    }
+    
+    private static final class InputTooLargeException extends IOException {
+        
+        InputTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.bank.migration.model.rules.CustomerStatus;
+import com.bank.migration.model.rules.FeatureRegistry;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Immutable lookup compiled from the migration decision table: for each customer status,
+ * the table rows (window threshold plus feature actions) in the order Drools fires them.
+ * Evaluating it has the same effect on a {@link CustomerMigrationContext} as a KieSession
+ * over the same table, without creating one. Feature actions are resolved to registry IDs
+ * at compile time.
+ */
+public final class DecisionMatrix {
+    
+    private final FeatureRegistry featureRegistry;
+    private final Map<CustomerStatus, List<Row>> rowsByStatus;
+    private final int ruleCount;
+    private final String unsupportedReason;
+    private final SortedSet<Integer> windowThresholds;
+    
+    private DecisionMatrix(FeatureRegistry featureRegistry, Map<CustomerStatus, List<Row>> rowsByStatus,
+                           int ruleCount, String unsupportedReason) {
+        this.featureRegistry = featureRegistry;
+        this.rowsByStatus = rowsByStatus;
+        this.ruleCount = ruleCount;
+        this.unsupportedReason = unsupportedReason;
+        
+        SortedSet<Integer> thresholds = new TreeSet<>();
+        rowsByStatus.values().forEach(rows -> rows.stream()
+                .filter(row -> row.hoursBeforeMigration() != null)
+                .forEach(row -> thresholds.add(row.hoursBeforeMigration())));
+        this.windowThresholds = Collections.unmodifiableSortedSet(thresholds);
+    }
+    
+    static DecisionMatrix compiled(FeatureRegistry featureRegistry, Map<CustomerStatus, List<Row>> rowsByStatus,
+                                   int ruleCount) {
+        Map<CustomerStatus, List<Row>> rows = new EnumMap<>(CustomerStatus.class);
+        rowsByStatus.forEach((status, statusRows) -> rows.put(status, List.copyOf(statusRows)));
+        return new DecisionMatrix(featureRegistry, Collections.unmodifiableMap(rows), ruleCount, null);
+    }
+    
+    public static DecisionMatrix unsupported(String reason) {
+        return new DecisionMatrix(FeatureRegistry.EMPTY, Map.of(), 0, reason);
+    }
+    
+    public boolean isCompiled() {
+        return unsupportedReason == null;
+    }
+    
+    public String getUnsupportedReason() {
+        return unsupportedReason;
+    }
+    
+    public int getRuleCount() {
+        return ruleCount;
+    }
+    
+    // Distinct hour thresholds used by the window column, in ascending order
+    public SortedSet<Integer> getWindowThresholds() {
+        return windowThresholds;
+    }
+    
+    /**
+     * Applies every matching row to the context, like {@code fireAllRules()}.
+     *
+     * @return the number of rows that matched (the equivalent of rules fired)
+     */
+    public int evaluate(CustomerMigrationContext context) {
+        return evaluate(context, null);
+    }
+    
+    /**
+     * As {@link #evaluate(CustomerMigrationContext)}, reporting each matching row and the time
+     * it took to the listener, if there is one (tracing).
+     */
+    public int evaluate(CustomerMigrationContext context, RowListener listener) {
+        if (!isCompiled()) {
+            throw new IllegalStateException("Decision matrix not compiled: " + unsupportedReason);
+        }
+        if (context.getFeatureRegistry() != featureRegistry) {
+            // Feature IDs are only meaningful within the registry they were resolved against
+            throw new IllegalArgumentException("Context for customer " + context.getCustomerId()
+                    + " uses the features of another rule table");
+        }
+        
+        int rowsMatched = 0;
+        for (Row row : rowsByStatus.getOrDefault(context.getCustomerStatus(), List.of())) {
+            long start = listener != null ? System.nanoTime() : 0;
+            if (row.hoursBeforeMigration() == null || context.matchesMigrationWindow(row.hoursBeforeMigration())) {
+                for (Action action : row.actions()) {
+                    context.decide(action.featureId(), action.actionValueId());
+                }
+                rowsMatched++;
+                if (listener != null) {
+                    listener.rowMatched(row.name(), System.nanoTime() - start);
+                }
+            }
+        }
+        return rowsMatched;
+    }
+    
+    public interface RowListener {
+        void rowMatched(String rowName, long nanos);
+    }
+    
+    /**
+     * One decision table row; a null threshold means the window column was blank.
+     */
+    record Row(String name, Integer hoursBeforeMigration, List<Action> actions) {
+    }
+    
+    record Action(String feature, int featureId, int actionValueId) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.rules.CustomerStatus;
+import com.bank.migration.model.rules.FeatureRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the CSV migration decision table into a {@link DecisionMatrix}.
+ * Only the shape the table uses today is understood: a customerStatus condition,
+ * an optional migration window condition and feature actions, fired in row order.
+ * Anything else yields an unsupported matrix so requests stay on the Drools path.
+ */
+@Slf4j
+public final class DecisionMatrixCompiler {
+    
+    private static final String CONTEXT_PATTERN = "$context : CustomerMigrationContext";
+    private static final String CONTEXT_VARIABLE = "$context";
+    private static final String STATUS_CONDITION = "customerStatus == CustomerStatus.$param";
+    private static final String WINDOW_CONDITION = "eval($context.matchesMigrationWindow($param))";
+    
+    private enum Column { NAME, STATUS, WINDOW, ACTION }
+    
+    private DecisionMatrixCompiler() {
+    }
+    
+    /**
+     * @param lines the table's cells, see {@link RuleTable#rows()}
+     * @param featureRegistry the features read from the same table
+     */
+    public static DecisionMatrix compile(List<List<String>> lines, FeatureRegistry featureRegistry) {
+        try {
+            return compileTable(lines, featureRegistry);
+        } catch (UnsupportedTableException e) {
+            return DecisionMatrix.unsupported(e.getMessage());
+        }
+    }
+    
+    private static DecisionMatrix compileTable(List<List<String>> lines, FeatureRegistry featureRegistry) {
+        int index = 0;
+        boolean sequential = false;
+        
+        // RuleSet area: only the package, imports and Sequential are understood
+        for (; index < lines.size() && !cell(lines.get(index), 0).startsWith("RuleTable"); index++) {
+            String keyword = cell(lines.get(index), 0);
+            switch (keyword) {
+                case "", "RuleSet", "Import" -> { }
+                case "Sequential" -> sequential = Boolean.parseBoolean(cell(lines.get(index), 1));
+                default -> throw new UnsupportedTableException("ruleset keyword " + keyword);
+            }
+        }
+        if (!sequential) {
+            // Without Sequential the firing order of matching rows is not the row order
+            throw new UnsupportedTableException("table is not Sequential");
+        }
+        if (index + 4 >= lines.size()) {
+            throw new UnsupportedTableException("no rule table");
+        }
+        
+        List<String> types = lines.get(index + 1);
+        List<String> patterns = lines.get(index + 2);
+        List<String> snippets = lines.get(index + 3);
+        // index + 4 is the descriptive header row for business users
+        Column[] columns = new Column[types.size()];
+        List<String> features = new ArrayList<>();
+        
+        for (int column = 0; column < types.size(); column++) {
+            String type = cell(types, column);
+            String pattern = cell(patterns, column);
+            String snippet = cell(snippets, column);
+            features.add(null);
+            
+            if (type.equals("NAME")) {
+                columns[column] = Column.NAME;
+            } else if (type.equals("CONDITION") && pattern.equals(CONTEXT_PATTERN) && snippet.equals(STATUS_CONDITION)) {
+                columns[column] = Column.STATUS;
+            } else if (type.equals("CONDITION") && pattern.isEmpty() && snippet.equals(WINDOW_CONDITION)) {
+                columns[column] = Column.WINDOW;
+            } else if (type.equals("ACTION") && pattern.equals(CONTEXT_VARIABLE)) {
+                String feature = FeatureRegistryReader.actionFeature(snippet);
+                if (feature == null || featureRegistry.idOf(feature) < 0) {
+                    throw new UnsupportedTableException("action " + snippet);
+                }
+                columns[column] = Column.ACTION;
+                features.set(column, feature);
+            } else if (type.isEmpty()) {
+                columns[column] = null;
+            } else {
+                throw new UnsupportedTableException(type.toLowerCase() + " column " + snippet);
+            }
+        }
+        
+        Map<CustomerStatus, List<DecisionMatrix.Row>> rowsByStatus = new EnumMap<>(CustomerStatus.class);
+        int ruleCount = 0;
+        
+        // Rule rows run until the first blank line, same as the Drools parser
+        for (index += 5; index < lines.size() && !isBlank(lines.get(index)); index++) {
+            List<String> line = lines.get(index);
+            String name = null;
+            CustomerStatus status = null;
+            Integer hoursBeforeMigration = null;
+            List<DecisionMatrix.Action> actions = new ArrayList<>();
+            
+            for (int column = 0; column < columns.length; column++) {
+                String value = cell(line, column);
+                if (columns[column] == null || value.isEmpty()) {
+                    continue;
+                }
+                switch (columns[column]) {
+                    case NAME -> name = value;
+                    case STATUS -> status = parseStatus(value);
+                    case WINDOW -> hoursBeforeMigration = parseHours(value);
+                    case ACTION -> actions.add(action(featureRegistry, features.get(column), value));
+                }
+            }
+            if (status == null) {
+                throw new UnsupportedTableException("rule without customerStatus at row " + (index + 1));
+            }
+            
+            rowsByStatus.computeIfAbsent(status, s -> new ArrayList<>())
+                    .add(new DecisionMatrix.Row(name, hoursBeforeMigration, actions));
+            ruleCount++;
+        }
+        
+        for (; index < lines.size(); index++) {
+            if (cell(lines.get(index), 0).startsWith("RuleTable")) {
+                throw new UnsupportedTableException("more than one rule table");
+            }
+        }
+        
+        log.debug("Compiled {} decision table rules for {} customer statuses", ruleCount, rowsByStatus.size());
+        return DecisionMatrix.compiled(featureRegistry, rowsByStatus, ruleCount);
+    }
+    
+    private static DecisionMatrix.Action action(FeatureRegistry featureRegistry, String feature, String value) {
+        int actionValueId = featureRegistry.actionValueId(value);
+        if (actionValueId < 0) {
+            throw new UnsupportedTableException("action value " + value);
+        }
+        return new DecisionMatrix.Action(feature, featureRegistry.idOf(feature), actionValueId);
+    }
+    
+    private static CustomerStatus parseStatus(String value) {
+        try {
+            return CustomerStatus.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedTableException("customerStatus " + value);
+        }
+    }
+    
+    private static Integer parseHours(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new UnsupportedTableException("migration window " + value);
+        }
+    }
+    
+    static String cell(List<String> line, int column) {
+        return column < line.size() && line.get(column) != null ? line.get(column).trim() : "";
+    }
+    
+    static boolean isBlank(List<String> line) {
+        return line.stream().allMatch(value -> value == null || value.isBlank());
+    }
+    
+    private static class UnsupportedTableException extends RuntimeException {
+        
+        UnsupportedTableException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.bank.migration.model.rules.CustomerStatus;
+import com.bank.migration.model.rules.FeatureRegistry;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup self-check that runs the compiled {@link DecisionMatrix} and a Drools session
+ * over every customer status and migration window position and reports any disagreement.
+ */
+public final class DecisionMatrixVerifier {
+    
+    private DecisionMatrixVerifier() {
+    }
+    
+    public static List<String> verify(DecisionMatrix decisionMatrix, FeatureRegistry featureRegistry,
+                                      KieContainer kieContainer) {
+        // Window positions: outside every window, inside the windows of each threshold and up, inside all
+        List<Integer> openFromHours = new ArrayList<>();
+        openFromHours.add(Integer.MAX_VALUE);
+        openFromHours.addAll(decisionMatrix.getWindowThresholds());
+        openFromHours.add(Integer.MIN_VALUE);
+        
+        List<String> mismatches = new ArrayList<>();
+        for (CustomerStatus status : CustomerStatus.values()) {
+            for (int openFrom : openFromHours) {
+                CustomerMigrationContext expected = new SampleContext(status, openFrom, featureRegistry);
+                CustomerMigrationContext actual = new SampleContext(status, openFrom, featureRegistry);
+                
+                KieSession kieSession = kieContainer.newKieSession();
+                try {
+                    kieSession.insert(expected);
+                    kieSession.fireAllRules();
+                } finally {
+                    kieSession.dispose();
+                }
+                decisionMatrix.evaluate(actual);
+                
+                if (!expected.getDecisions().equals(actual.getDecisions())) {
+                    mismatches.add(status + "/window>=" + openFrom + "h: drools=" + expected.getDecisions()
+                            + " matrix=" + actual.getDecisions());
+                }
+            }
+        }
+        return mismatches;
+    }
+    
+    /**
+     * Context with a fixed status and a fixed answer for every window size, so the check
+     * does not depend on account dates or the time of day.
+     */
+    private static class SampleContext extends CustomerMigrationContext {
+        
+        private final int openFromHours;
+        
+        SampleContext(CustomerStatus status, int openFromHours, FeatureRegistry featureRegistry) {
+            this.openFromHours = openFromHours;
+            setCustomerId("SELF-CHECK");
+            setAccounts(List.of());
+            setRequestedFeatures(List.of());
+            setFeatureRegistry(featureRegistry);
+            setCustomerStatus(status);
+        }
+        
+        @Override
+        public boolean isWithinMigrationWindow(int hoursBeforeMigration) {
+            return hoursBeforeMigration >= openFromHours;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.rules.CustomerStatus;
+import com.bank.migration.model.rules.FeatureDecisions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the feature decision pipeline that are not tied to one component: accounts per
+ * customer, decision matrix evaluation and the decisions made. Drools session timings are
+ * recorded by {@link RuleSessionExecutor}, migration API calls by {@link MigrationApiClient}.
+ * The feature tag of migration.feature.decisions is only ever a feature of the rule table;
+ * any other requested name is counted as "other", so requests cannot add tag values.
+ */
+@Service
+public class DecisionMetrics {
+    
+    private static final int MAX_CACHED_COUNTERS = 10_000;
+    private static final String OTHER_FEATURE = "other";
+    
+    private final DistributionSummary accountsPerCustomer;
+    private final Timer matrixEvaluation;
+    private final DistributionSummary matrixRowsMatched;
+    private final Meter.MeterProvider<Counter> decisions;
+    // Saves the registry lookup per decision; bounded in case rule tables keep adding features
+    private final Map<DecisionKey, Counter> decisionCounters = new ConcurrentHashMap<>();
+    
+    public DecisionMetrics(MeterRegistry meterRegistry) {
+        this.accountsPerCustomer = DistributionSummary.builder("migration.customer.accounts")
+                .description("Accounts per customer looked up for a decision")
+                .baseUnit("accounts")
+                .register(meterRegistry);
+        // Tagged like the Drools session meters, so both evaluation paths show up side by side
+        this.matrixEvaluation = Timer.builder("migration.rules.fire")
+                .description("Time to insert the facts and fire all rules (stateless: the whole batch execution)")
+                .tag("mode", "matrix")
+                .register(meterRegistry);
+        this.matrixRowsMatched = DistributionSummary.builder("migration.rules.fired")
+                .description("Rules fired per evaluation")
+                .tag("mode", "matrix")
+                .register(meterRegistry);
+        this.decisions = Counter.builder("migration.feature.decisions")
+                .description("Feature decisions made, by customer status, feature, result and source")
+                .withRegistry(meterRegistry);
+    }
+    
+    public void recordAccounts(int accountCount) {
+        accountsPerCustomer.record(accountCount);
+    }
+    
+    public void recordMatrixEvaluation(long startNanos, int rowsMatched) {
+        matrixEvaluation.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        matrixRowsMatched.record(rowsMatched);
+    }
+    
+    // source: "rules" for live evaluation, "precomputed" for the roster decision store
+    public void recordDecisions(CustomerStatus customerStatus, FeatureDecisions featureDecisions,
+                                Collection<String> features, String source) {
+        for (String feature : features) {
+            int featureId = featureDecisions.getRegistry().idOf(feature);
+            DecisionKey key = new DecisionKey(customerStatus, featureId >= 0 ? feature : OTHER_FEATURE,
+                    featureDecisions.isEnabled(featureId), source);
+            Counter counter = decisionCounters.get(key);
+            if (counter == null) {
+                counter = decisions.withTags("status", String.valueOf(customerStatus), "feature", key.feature(),
+                        "enabled", String.valueOf(key.enabled()), "source", source);
+                if (decisionCounters.size() < MAX_CACHED_COUNTERS) {
+                    decisionCounters.put(key, counter);
+                }
+            }
+            counter.increment();
+        }
+    }
+    
+    private record DecisionKey(CustomerStatus customerStatus, String feature, boolean enabled, String source) {
+    }
+}
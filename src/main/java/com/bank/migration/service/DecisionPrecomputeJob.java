@@ -0,0 +1,283 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.RosterConfig;
+import com.bank.migration.model.dto.PrecomputeInfoResponse;
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.bank.migration.model.rules.FeatureDecisions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Precomputes the feature decisions of every customer in the roster snapshot into a
+ * {@link DecisionStore}, nightly (migration.roster.precompute.cron) and whenever a new
+ * snapshot is loaded. Customers are evaluated in parallel, a range of roster slots per
+ * task, with the compiled decision matrix. Requests answer from the store while it matches
+ * the active snapshot and rule set, and fall back to live evaluation once a customer's
+ * entry has passed its next migration window boundary.
+ */
+@Service
+@Slf4j
+public class DecisionPrecomputeJob {
+    
+    private static final long SLOTS_PER_TASK = 1 << 16;
+    
+    private final RosterStore rosterStore;
+    private final CustomerAccountStore customerAccountStore;
+    private final RuleSetManager ruleSetManager;
+    private final RosterConfig rosterConfig;
+    private final RosterConfig.Precompute config;
+    private final Clock clock;
+    private final AtomicReference<DecisionStore> active = new AtomicReference<>();
+    
+    // Runs are started and retired here one at a time; evaluation happens on the workers
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "decision-precompute");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService workers;
+    
+    private final Timer runTimer;
+    private final Counter hits;
+    private final Counter misses;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile LocalDateTime nextRunAt;
+    private volatile String lastError;
+    private volatile LocalDateTime lastErrorAt;
+    
+    public DecisionPrecomputeJob(RosterStore rosterStore,
+                                 CustomerAccountStore customerAccountStore,
+                                 RuleSetManager ruleSetManager,
+                                 RosterConfig rosterConfig,
+                                 Clock clock,
+                                 MeterRegistry meterRegistry) {
+        this.rosterStore = rosterStore;
+        this.customerAccountStore = customerAccountStore;
+        this.ruleSetManager = ruleSetManager;
+        this.rosterConfig = rosterConfig;
+        this.config = rosterConfig.getPrecompute();
+        this.clock = clock;
+        
+        int parallelism = config.getParallelism() > 0 ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "decision-precompute-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        this.runTimer = Timer.builder("migration.precompute.run")
+                .description("Time to precompute decisions for the whole roster")
+                .register(meterRegistry);
+        this.hits = Counter.builder("migration.precompute.lookups")
+                .description("Feature checks looked up in the precomputed decision store")
+                .tag("outcome", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("migration.precompute.lookups")
+                .description("Feature checks looked up in the precomputed decision store")
+                .tag("outcome", "miss")
+                .register(meterRegistry);
+        
+        if (config.isEnabled()) {
+            if (!rosterStore.isEnabled()) {
+                throw new IllegalStateException("migration.roster.precompute.enabled requires migration.roster.enabled");
+            }
+            rosterStore.addActivationListener(index -> trigger());
+            scheduleNextRun(CronExpression.parse(config.getCron()));
+            log.info("Decision precompute enabled (cron: {}, parallelism: {})", config.getCron(), parallelism);
+        }
+    }
+    
+    /**
+     * The precomputed decision, or null if there is none that still applies: no store for the
+     * active snapshot and rule set, customer not in the snapshot, or window boundary reached.
+     * Nor is there one for a customer held in the {@link CustomerAccountStore}: its accounts
+     * there may have changed since the snapshot.
+     */
+    public DecisionStore.Decision lookup(String customerId, RuleSet ruleSet, LocalDateTime now) {
+        DecisionStore store = active.get();
+        if (store == null || !store.isFor(rosterStore.current(), ruleSet) || customerAccountStore.contains(customerId)) {
+            return null;
+        }
+        DecisionStore.Decision decision = store.find(customerId, now);
+        (decision != null ? hits : misses).increment();
+        return decision;
+    }
+    
+    // Starts a run in the background unless one is already queued or running
+    public boolean trigger() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        scheduler.execute(this::run);
+        return true;
+    }
+    
+    public PrecomputeInfoResponse getInfo() {
+        DecisionStore store = active.get();
+        PrecomputeInfoResponse.PrecomputeInfoResponseBuilder info = PrecomputeInfoResponse.builder()
+                .enabled(config.isEnabled())
+                .running(running.get())
+                .nextRunAt(nextRunAt);
+        if (store != null) {
+            long millis = Math.max(1, store.getComputeTime().toMillis());
+            info.current(store.isFor(rosterStore.current(), ruleSetManager.current()))
+                    .computedAt(store.getComputedAt())
+                    .ruleVersion(store.getRuleSetVersion())
+                    .rosterSource(store.getRosterSource())
+                    .customerCount(store.getCustomerCount())
+                    .outcomeCount(store.getOutcomeCount())
+                    .storeBytes(store.getSizeBytes())
+                    .computeTimeMillis(store.getComputeTime().toMillis())
+                    .customersPerSecond(store.getCustomerCount() * 1000 / millis);
+        }
+        LocalDateTime errorAt = lastErrorAt;
+        if (errorAt != null && (store == null || errorAt.isAfter(store.getComputedAt()))) {
+            info.lastError(lastError).lastErrorAt(errorAt);
+        }
+        return info.build();
+    }
+    
+    // Runs on the scheduler thread
+    private void run() {
+        try {
+            RosterIndex rosterIndex = rosterStore.current();
+            RuleSet ruleSet = ruleSetManager.current();
+            if (rosterIndex == null) {
+                log.info("No roster snapshot loaded, skipping decision precompute");
+                return;
+            }
+            if (!ruleSet.getDecisionMatrix().isCompiled()) {
+                // Window sizes, and fast evaluation, come from the compiled decision matrix
+                throw new IllegalStateException("rule version " + ruleSet.getVersion() + " has no compiled decision matrix");
+            }
+            DecisionStore store = runTimer.recordCallable(() -> precompute(rosterIndex, ruleSet));
+            DecisionStore previous = active.getAndSet(store);
+            if (previous != null) {
+                scheduler.schedule(previous::dispose, rosterConfig.getRetireDelay().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            long millis = Math.max(1, store.getComputeTime().toMillis());
+            log.info("Precomputed decisions for {} customers in {} ms ({} customers/sec, {} distinct outcomes)",
+                    store.getCustomerCount(), millis, store.getCustomerCount() * 1000 / millis, store.getOutcomeCount());
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            lastErrorAt = LocalDateTime.now(clock);
+            log.error("Decision precompute failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private DecisionStore precompute(RosterIndex rosterIndex, RuleSet ruleSet) throws Exception {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now(clock);
+        DecisionMatrix decisionMatrix = ruleSet.getDecisionMatrix();
+        Path file = rosterStore.newIndexFile("decisions");
+        
+        List<FeatureDecisions> outcomes = new ArrayList<>();
+        Map<FeatureDecisions, Integer> outcomeIds = new ConcurrentHashMap<>();
+        LongAdder customers = new LongAdder();
+        
+        try (MappedSegments out = MappedSegments.create(file)) {
+            // The workers share the mapping, so it is mapped in full before they start
+            out.mapTo(rosterIndex.getSlotCount() * DecisionStore.ENTRY_SIZE);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (long taskStart = 0; taskStart < rosterIndex.getSlotCount(); taskStart += SLOTS_PER_TASK) {
+                long from = taskStart;
+                long to = Math.min(from + SLOTS_PER_TASK, rosterIndex.getSlotCount());
+                tasks.add(workers.submit(() -> rosterIndex.forEachCustomer(from, to, (slot, customerId, accounts) -> {
+                    CustomerMigrationContext context = CustomerMigrationContext.builder()
+                            .customerId(customerId)
+                            .accounts(accounts)
+                            .requestedFeatures(List.of())
+                            .evaluationTime(now)
+                            .featureRegistry(ruleSet.getFeatureRegistry())
+                            .build();
+                    context.deriveCustomerStatus();
+                    decisionMatrix.evaluate(context);
+                    
+                    int outcomeId = outcomeIds.computeIfAbsent(context.getDecisions(), newOutcome -> {
+                        synchronized (outcomes) {
+                            outcomes.add(newOutcome);
+                            return outcomes.size() - 1;
+                        }
+                    });
+                    DecisionStore.write(out, slot, context.getCustomerStatus(), outcomeId,
+                            context.getAccountSummary().nextWindowBoundary(decisionMatrix.getWindowThresholds(), now));
+                    customers.increment();
+                })));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            Files.deleteIfExists(file);
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        
+        // Segments are mapped whole; drop the unused tail
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(rosterIndex.getSlotCount() * DecisionStore.ENTRY_SIZE);
+        }
+        
+        // Lookups read through a fresh read-only mapping of the finished file
+        return new DecisionStore(file, MappedSegments.open(file), rosterIndex, ruleSet.getVersion(), outcomes,
+                now, customers.sum(), Duration.ofNanos(System.nanoTime() - start));
+    }
+    
+    private void scheduleNextRun(CronExpression cron) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime next = cron.next(now);
+        if (next == null) {
+            return;
+        }
+        nextRunAt = next;
+        scheduler.schedule(() -> {
+            if (trigger()) {
+                log.info("Starting scheduled decision precompute");
+            }
+            scheduleNextRun(cron);
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        DecisionStore store = active.getAndSet(null);
+        if (store != null) {
+            store.dispose();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.rules.CustomerStatus;
+import com.bank.migration.model.rules.FeatureDecisions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Feature decisions precomputed for every customer of one roster snapshot under one rule set,
+ * written by {@link DecisionPrecomputeJob}. Entries live in a memory-mapped file laid out
+ * parallel to the {@link RosterIndex} hash table, so the customer's roster slot addresses
+ * its entry directly. An entry holds the customer status, an index into the distinct
+ * decision outcomes ({@link FeatureDecisions} shared by every customer with the same
+ * rule decisions) and the next migration window
+ * boundary, after which the decision has to be made again.
+ */
+@Slf4j
+public final class DecisionStore {
+    
+    // Entry: next boundary (0 = no customer in the slot), outcome index, customer status
+    static final int ENTRY_SIZE = 16;
+    private static final long NO_BOUNDARY = Long.MAX_VALUE;
+    private static final CustomerStatus[] CUSTOMER_STATUSES = CustomerStatus.values();
+    
+    private final Path path;
+    private final MappedSegments mapped;
+    private final RosterIndex rosterIndex;
+    private final String ruleSetVersion;
+    private final List<FeatureDecisions> outcomes;
+    private final LocalDateTime computedAt;
+    private final long customerCount;
+    private final Duration computeTime;
+    
+    DecisionStore(Path path, MappedSegments mapped, RosterIndex rosterIndex, String ruleSetVersion,
+                  List<FeatureDecisions> outcomes, LocalDateTime computedAt, long customerCount, Duration computeTime) {
+        this.path = path;
+        this.mapped = mapped;
+        this.rosterIndex = rosterIndex;
+        this.ruleSetVersion = ruleSetVersion;
+        this.outcomes = List.copyOf(outcomes);
+        this.computedAt = computedAt;
+        this.customerCount = customerCount;
+        this.computeTime = computeTime;
+    }
+    
+    /**
+     * The precomputed decision, or null if the customer is not in the snapshot or the
+     * decision has reached its next window boundary.
+     */
+    public Decision find(String customerId, LocalDateTime now) {
+        long slot = rosterIndex.findSlot(customerId);
+        if (slot < 0) {
+            return null;
+        }
+        long offset = slot * ENTRY_SIZE;
+        if (encode(now) >= mapped.getLong(offset)) {
+            return null;
+        }
+        return new Decision(CUSTOMER_STATUSES[mapped.get(offset + 12)], outcomes.get(mapped.getInt(offset + 8)));
+    }
+    
+    public boolean isFor(RosterIndex rosterIndex, RuleSet ruleSet) {
+        return this.rosterIndex == rosterIndex && ruleSetVersion.equals(ruleSet.getVersion());
+    }
+    
+    public String getRuleSetVersion() {
+        return ruleSetVersion;
+    }
+    
+    public String getRosterSource() {
+        return rosterIndex.getSource();
+    }
+    
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+    
+    public long getCustomerCount() {
+        return customerCount;
+    }
+    
+    public int getOutcomeCount() {
+        return outcomes.size();
+    }
+    
+    public long getSizeBytes() {
+        return rosterIndex.getSlotCount() * ENTRY_SIZE;
+    }
+    
+    public Duration getComputeTime() {
+        return computeTime;
+    }
+    
+    // Unmapping is left to the garbage collector, as for the roster index
+    void dispose() {
+        try {
+            mapped.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete decision store {}", path, e);
+        }
+    }
+    
+    // Written by the precompute job; each slot is written by one thread only
+    static void write(MappedSegments mapped, long slot, CustomerStatus status, int outcome, LocalDateTime nextBoundary) {
+        long offset = slot * ENTRY_SIZE;
+        mapped.putLong(offset, nextBoundary != null ? encode(nextBoundary) : NO_BOUNDARY);
+        mapped.putInt(offset + 8, outcome);
+        mapped.put(offset + 12, (byte) status.ordinal());
+    }
+    
+    // Local date-times compared as seconds; the zone is irrelevant as long as it is always the same
+    private static long encode(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    public record Decision(CustomerStatus customerStatus, FeatureDecisions featureDecisions) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.DroolsConfig;
+import com.bank.migration.model.dto.CacheStatsResponse;
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Final feature decisions per customer and rule set version. The decisions cover every
+ * feature of the rule table, so one entry answers any requested feature list; responses
+ * are rendered from it per request.
+ * A decision only depends on the accounts, the rules and where the current time falls
+ * relative to the migration windows, so an entry is kept until the first of: the next
+ * window boundary for the customer's migration dates and the rule table's window sizes,
+ * the expiry the account status cache would give the same accounts, or the expiry of the
+ * account cache entry the decisions were actually made from.
+ * A hit skips both the migration API lookup and rule evaluation.
+ * <p>
+ * Decisions can also be made ahead for a customer's next window boundary (pre-warming).
+ * They are held apart and take over from the current decisions once the boundary passes.
+ * <p>
+ * Decisions are only stored if the customer's accounts did not change through events since
+ * they were read (see {@link CustomerAccountStore#changeVersion}); an event evicts the
+ * customer's entries, and a put racing with it must not bring them back.
+ */
+@Service
+@Slf4j
+public class FeatureDecisionCache {
+    
+    private final DroolsConfig.DecisionCache config;
+    private final AccountStatusCache accountStatusCache;
+    private final CustomerAccountStore customerAccountStore;
+    private final Clock clock;
+    private final Cache<Key, Entry> cache;
+    private final Cache<Key, Entry> upcoming;
+    
+    public FeatureDecisionCache(DroolsConfig droolsConfig,
+                                AccountStatusCache accountStatusCache,
+                                CustomerAccountStore customerAccountStore,
+                                Clock clock,
+                                MeterRegistry meterRegistry) {
+        this.config = droolsConfig.getDecisionCache();
+        this.accountStatusCache = accountStatusCache;
+        this.customerAccountStore = customerAccountStore;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new BoundaryExpiry())
+                // Expiry follows the service clock, so a fixed or offset clock moves boundaries too
+                .ticker(this::clockNanos)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "migration.decisions");
+        this.upcoming = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new BoundaryExpiry())
+                .ticker(this::clockNanos)
+                .build();
+        log.info("Feature decision cache enabled: {} (maximumSize: {})", config.isEnabled(), config.getMaximumSize());
+    }
+    
+    // Cached decisions, or null on a miss
+    public DecisionStore.Decision get(String customerId, RuleSet ruleSet) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Key key = new Key(customerId, ruleSet.getVersion());
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            entry = upcoming.getIfPresent(key);
+            if (entry == null || LocalDateTime.now(clock).isBefore(entry.validFrom())) {
+                return null;
+            }
+            // The boundary they were made for has passed: these are the current decisions now
+            cache.put(key, entry);
+            upcoming.invalidate(key);
+        }
+        return entry.decision();
+    }
+    
+    /**
+     * Stores the decisions made for an evaluated context; the context's evaluation time
+     * is taken as the time the decisions were made. accountsVersion is the customer's
+     * change version read before its accounts were looked up, accountsExpireAt the
+     * {@link AccountStatusCache.Lookup#expiresAt} of that lookup: decisions made from a
+     * cached account snapshot go when the snapshot does.
+     */
+    public void put(CustomerMigrationContext context, RuleSet ruleSet, long accountsVersion,
+                    LocalDateTime accountsExpireAt) {
+        if (store(cache, context, ruleSet, accountsVersion, accountsExpireAt)) {
+            log.debug("Cached decisions for customer {}", context.getCustomerId());
+        }
+    }
+    
+    /**
+     * Holds decisions made ahead, for a context evaluated as of a coming window boundary;
+     * get answers with them from that time on. The accounts must have been read again for
+     * them, so they expire as if read at the boundary.
+     */
+    public void putUpcoming(CustomerMigrationContext context, RuleSet ruleSet, long accountsVersion) {
+        if (store(upcoming, context, ruleSet, accountsVersion, null)) {
+            log.debug("Holding decisions for customer {} from {}", context.getCustomerId(), context.getEvaluationTime());
+        }
+    }
+    
+    // Decisions depend on the accounts, so they go whenever the customer's accounts are evicted
+    public void evict(String customerId) {
+        cache.asMap().keySet().removeIf(key -> key.customerId().equals(customerId));
+        upcoming.asMap().keySet().removeIf(key -> key.customerId().equals(customerId));
+    }
+    
+    // One pass over the cache for any number of customers
+    public void evict(Set<String> customerIds) {
+        cache.asMap().keySet().removeIf(key -> customerIds.contains(key.customerId()));
+        upcoming.asMap().keySet().removeIf(key -> customerIds.contains(key.customerId()));
+    }
+    
+    public void evictAll() {
+        cache.invalidateAll();
+        upcoming.invalidateAll();
+    }
+    
+    public CacheStatsResponse getStats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsResponse.builder()
+                .enabled(config.isEnabled())
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .loadFailureCount(stats.loadFailureCount())
+                .evictionCount(stats.evictionCount())
+                .hitRate(stats.hitRate())
+                .build();
+    }
+    
+    // An event changing the accounts bumps their version before it evicts the customer. Checking
+    // again after the put catches an event that came in between: either the check sees the new
+    // version and takes the entry back, or the eviction comes after the put and removes it.
+    private boolean store(Cache<Key, Entry> target, CustomerMigrationContext context, RuleSet ruleSet,
+                          long accountsVersion, LocalDateTime accountsExpireAt) {
+        String customerId = context.getCustomerId();
+        if (customerAccountStore.changeVersion(customerId) != accountsVersion) {
+            return false;
+        }
+        Entry entry = entryFor(context, ruleSet, accountsExpireAt);
+        if (entry == null) {
+            return false;
+        }
+        Key key = new Key(customerId, ruleSet.getVersion());
+        target.put(key, entry);
+        if (customerAccountStore.changeVersion(customerId) != accountsVersion) {
+            target.invalidate(key);
+            return false;
+        }
+        return true;
+    }
+    
+    // Null when decisions are not cached
+    private Entry entryFor(CustomerMigrationContext context, RuleSet ruleSet, LocalDateTime accountsExpireAt) {
+        DecisionMatrix decisionMatrix = ruleSet.getDecisionMatrix();
+        if (!config.isEnabled() || !decisionMatrix.isCompiled()) {
+            // The window sizes are only known from the compiled decision matrix
+            return null;
+        }
+        
+        LocalDateTime now = context.getEvaluationTime() != null ? context.getEvaluationTime() : LocalDateTime.now(clock);
+        LocalDateTime expiresAt = now.plus(accountStatusCache.expiryFor(context.getAccounts(), now));
+        if (accountsExpireAt != null && accountsExpireAt.isBefore(expiresAt)) {
+            expiresAt = accountsExpireAt;
+        }
+        LocalDateTime boundary = context.getAccountSummary()
+                .nextWindowBoundary(decisionMatrix.getWindowThresholds(), now);
+        if (boundary != null && boundary.isBefore(expiresAt)) {
+            expiresAt = boundary;
+        }
+        
+        DecisionStore.Decision decision = new DecisionStore.Decision(context.getCustomerStatus(), context.getDecisions());
+        return new Entry(decision, now, expiresAt);
+    }
+    
+    private long clockNanos() {
+        Instant instant = clock.instant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+    
+    private record Key(String customerId, String ruleSetVersion) {
+    }
+    
+    private record Entry(DecisionStore.Decision decision, LocalDateTime validFrom, LocalDateTime expiresAt) {
+    }
+    
+    private class BoundaryExpiry implements Expiry<Key, Entry> {
+        
+        @Override
+        public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+            return Math.max(0, Duration.between(LocalDateTime.now(clock), entry.expiresAt()).toNanos());
+        }
+        
+        @Override
+        public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,90 +1,116 @@
 package com.bank.migration.service;
 
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.exception.MigrationApiException;
+import com.bank.migration.model.dto.AccountFeatureSuppressionInfo;
+import com.bank.migration.model.dto.BatchFeatureCheckResponse;
+import com.bank.migration.model.dto.BatchFeatureCheckResult;
+import com.bank.migration.model.dto.CompactBatchFeatureCheckResponse;
+import com.bank.migration.model.dto.CompactFeatureCheckResponse;
 import com.bank.migration.model.dto.CustomerAccountsResponse;
 import com.bank.migration.model.dto.FeatureCheckResponse;
 import com.bank.migration.model.dto.FeatureStatus;
 import com.bank.migration.model.migration.AccountInfo;
 import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.bank.migration.model.rules.FeatureDecisions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FeatureDecisionService {
     
-    private final KieContainer kieContainer;
-    private final MigrationApiClient migrationApiClient;
+    private final RuleSetManager ruleSetManager;
+    private final AccountStatusCache accountStatusCache;
+    private final AccountBatchFetcher accountBatchFetcher;
+    private final FeatureDecisionCache featureDecisionCache;
+    private final CustomerAccountStore customerAccountStore;
+    private final DecisionPrecomputeJob decisionPrecomputeJob;
+    private final DecisionMetrics decisionMetrics;
+    private final RuleTracer ruleTracer;
+    private final MigrationApiConfig migrationApiConfig;
+    private final Clock clock;
     
     public FeatureCheckResponse checkFeatures(String customerId, List<String> features) {
-        log.info("Checking features for customer: {}", customerId);
-        
-        // Step 1: Get account statuses from migration API
-        List<AccountInfo> accounts = migrationApiClient.getAccountStatuses(customerId);
-        log.debug("Retrieved {} accounts for customer {}", accounts.size(), customerId);
-        
-        // Step 2: Create context for Drools
-        CustomerMigrationContext context = CustomerMigrationContext.builder()
-                .customerId(customerId)
-                .accounts(accounts)
-                .requestedFeatures(features)
+        return checkFeatures(customerId, features, true);
+    }
+    
+    // withReasons: also render the human-readable reason next to each reason code
+    public FeatureCheckResponse checkFeatures(String customerId, List<String> features, boolean withReasons) {
+        return toCheckResponse(customerId, decide(customerId, features, null), features, withReasons);
+    }
+    
+    // As above, made from a snapshot already taken for the response's ETag
+    public FeatureCheckResponse checkFeatures(Snapshot snapshot, List<String> features, boolean withReasons) {
+        String customerId = snapshot.customerId();
+        return toCheckResponse(customerId, decide(customerId, features, snapshot), features, withReasons);
+    }
+    
+    public CompactFeatureCheckResponse checkFeaturesCompact(Snapshot snapshot, List<String> features) {
+        CustomerDecisions decisions = decide(snapshot.customerId(), features, snapshot);
+        return CompactFeatureCheckResponse.builder()
+                .customerId(snapshot.customerId())
+                .features(toEnabledMap(decisions.featureDecisions(), features))
+                .stale(decisions.stale() ? true : null)
                 .build();
-        
-        // Step 3: Derive customer-level status from account statuses
-        context.deriveCustomerStatus();
-        log.info("Customer {} has derived status: {}", customerId, context.getCustomerStatus());
-        
-        // Step 4: Execute Drools rules (all logic now in CSV)
-        KieSession kieSession = kieContainer.newKieSession();
+    }
+    
+    /**
+     * Reads the active rules and the customer's accounts once, for both a response's ETag
+     * (see {@link DecisionETags}) and its body, so the two cannot come from different
+     * account snapshots and the accounts are not looked up twice. The rules are held until
+     * the snapshot is closed.
+     */
+    public Snapshot snapshot(String customerId) {
+        RuleSet ruleSet = ruleSetManager.acquire();
         try {
-            kieSession.insert(context);
-            int rulesFired = kieSession.fireAllRules();
-            log.debug("Fired {} rules for customer {}", rulesFired, customerId);
-        } finally {
-            kieSession.dispose();
+            // Read before the lookup, as for any decisions that are cached
+            long accountsVersion = customerAccountStore.changeVersion(customerId);
+            return new Snapshot(customerId, ruleSet, accountsVersion, accountStatusCache.lookup(customerId));
+        } catch (RuntimeException e) {
+            ruleSet.release();
+            throw e;
         }
-        
-        // Step 5: Apply defaults for features not set by rules (enabled by default)
-        context.applyDefaults();
-        log.debug("Applied defaults for unspecified features");
-        
-        // Step 6: Build response from context decisions
-        List<FeatureStatus> featureStatuses = features.stream()
-                .map(feature -> FeatureStatus.builder()
-                        .feature(feature)
-                        .enabled(context.getFeatureDecisions().getOrDefault(feature, true))
-                        .reason(context.getDecisionReasons().getOrDefault(feature, "Default: Feature enabled"))
-                        .build())
-                .collect(Collectors.toList());
-        
-        log.info("Completed feature check for customer: {} with {} features", customerId, featureStatuses.size());
-        
-        return FeatureCheckResponse.builder()
-                .customerId(customerId)
-                .features(featureStatuses)
-                .build();
     }
     
-    public CustomerAccountsResponse getAccountsWithFeatures(String customerId, boolean withFeatures, List<String> features) {
-        log.info("Getting accounts for customer: {} (withFeatures: {})", customerId, withFeatures);
+    // perAccount: also decide the features for each account on its own
+    public CustomerAccountsResponse getAccountsWithFeatures(Snapshot snapshot, boolean withFeatures,
+                                                            List<String> features, boolean withReasons,
+                                                            boolean perAccount) {
+        String customerId = snapshot.customerId();
+        log.info("Getting accounts for customer: {} (withFeatures: {}, perAccount: {})", customerId, withFeatures,
+                perAccount);
+        RuleSet ruleSet = snapshot.ruleSet();
         
-        // Step 1: Get account statuses from migration API
-        List<AccountInfo> accounts = migrationApiClient.getAccountStatuses(customerId);
+        // Step 1: Account statuses, as read for the snapshot (read-through cache)
+        AccountStatusCache.Lookup lookup = snapshot.lookup();
+        List<AccountInfo> accounts = lookup.accounts();
         log.debug("Retrieved {} accounts for customer {}", accounts.size(), customerId);
+        decisionMetrics.recordAccounts(accounts.size());
         
         // Step 2: Create context and derive customer status
         CustomerMigrationContext context = CustomerMigrationContext.builder()
                 .customerId(customerId)
                 .accounts(accounts)
                 .requestedFeatures(features != null ? features : List.of())
+                .evaluationTime(LocalDateTime.now(clock))
+                .featureRegistry(ruleSet.getFeatureRegistry())
                 .build();
         
         context.deriveCustomerStatus();
@@ -94,42 +120,383 @@ public class FeatureDecisionService {
         CustomerAccountsResponse.CustomerAccountsResponseBuilder responseBuilder = CustomerAccountsResponse.builder()
                 .customerId(customerId)
                 .customerStatus(context.getCustomerStatus())
-                .accounts(accounts);
+                .accounts(accounts)
+                .stale(lookup.stale() ? true : null);
         
         // Step 4: If withFeatures=true, evaluate feature suppression
         if (withFeatures && features != null && !features.isEmpty()) {
             log.debug("Evaluating feature suppression for {} features", features.size());
             
-            // Execute Drools rules
-            KieSession kieSession = kieContainer.newKieSession();
-            try {
-                kieSession.insert(context);
-                int rulesFired = kieSession.fireAllRules();
-                log.debug("Fired {} rules for customer {}", rulesFired, customerId);
-            } finally {
-                kieSession.dispose();
+            // Execute rules; per account, every account is a context of its own in the same
+            // evaluation (one session for Drools) as the customer
+            List<CustomerMigrationContext> accountContexts = new ArrayList<>(perAccount ? accounts.size() : 0);
+            if (perAccount) {
+                accounts.forEach(account -> accountContexts.add(context.forAccount(account)));
             }
-            
-            // Apply defaults
-            context.applyDefaults();
+            List<CustomerMigrationContext> contexts = new ArrayList<>(accountContexts.size() + 1);
+            contexts.add(context);
+            contexts.addAll(accountContexts);
+            evaluateRules(ruleSet, contexts);
             
             // Build feature suppression info map
-            Map<String, FeatureStatus> featureSuppressionInfo = new HashMap<>();
-            features.forEach(feature -> {
-                FeatureStatus status = FeatureStatus.builder()
-                        .feature(feature)
-                        .enabled(context.getFeatureDecisions().getOrDefault(feature, true))
-                        .reason(context.getDecisionReasons().getOrDefault(feature, "Default: Feature enabled"))
-                        .build();
-                featureSuppressionInfo.put(feature, status);
-            });
+            responseBuilder.featureSuppressionInfo(toSuppressionInfo(context.getDecisions(), features, withReasons));
+            decisionMetrics.recordDecisions(context.getCustomerStatus(), context.getDecisions(), features, "rules");
             
-            responseBuilder.featureSuppressionInfo(featureSuppressionInfo);
-            log.debug("Added feature suppression info for {} features", features.size());
+            if (perAccount) {
+                List<AccountFeatureSuppressionInfo> accountInfo = new ArrayList<>(accountContexts.size());
+                for (CustomerMigrationContext accountContext : accountContexts) {
+                    accountInfo.add(AccountFeatureSuppressionInfo.builder()
+                            .accountId(accountContext.getAccountId())
+                            .accountStatus(accountContext.getCustomerStatus())
+                            .features(toSuppressionInfo(accountContext.getDecisions(), features, withReasons))
+                            .build());
+                }
+                responseBuilder.accountFeatureSuppressionInfo(accountInfo);
+            }
+            log.debug("Added feature suppression info for {} features{}", features.size(),
+                    perAccount ? " and " + accountContexts.size() + " accounts" : "");
         }
         
         log.info("Completed accounts retrieval for customer: {}", customerId);
         return responseBuilder.build();
     }
+    
+    public BatchFeatureCheckResponse checkFeaturesBatch(List<String> customerIds, List<String> features) {
+        return checkFeaturesBatch(customerIds, features, true);
+    }
+    
+    public BatchFeatureCheckResponse checkFeaturesBatch(List<String> customerIds, List<String> features, boolean withReasons) {
+        BatchDecisions batch = decideBatch(customerIds, features);
+        List<BatchFeatureCheckResult> results = new ArrayList<>(batch.customerIds().size());
+        for (String customerId : batch.customerIds()) {
+            CustomerDecisions decisions = batch.decisions().get(customerId);
+            results.add(decisions != null
+                    ? BatchFeatureCheckResult.builder()
+                            .customerId(customerId)
+                            .features(toFeatureStatuses(decisions.featureDecisions(), features, withReasons))
+                            .stale(decisions.stale() ? true : null)
+                            .build()
+                    : BatchFeatureCheckResult.builder()
+                            .customerId(customerId)
+                            .error(batch.errors().get(customerId))
+                            .build());
+        }
+        return BatchFeatureCheckResponse.builder()
+                .results(results)
+                .build();
+    }
+    
+    public CompactBatchFeatureCheckResponse checkFeaturesBatchCompact(List<String> customerIds, List<String> features) {
+        BatchDecisions batch = decideBatch(customerIds, features);
+        List<CompactFeatureCheckResponse> results = new ArrayList<>(batch.customerIds().size());
+        for (String customerId : batch.customerIds()) {
+            CustomerDecisions decisions = batch.decisions().get(customerId);
+            results.add(decisions != null
+                    ? CompactFeatureCheckResponse.builder()
+                            .customerId(customerId)
+                            .features(toEnabledMap(decisions.featureDecisions(), features))
+                            .stale(decisions.stale() ? true : null)
+                            .build()
+                    : CompactFeatureCheckResponse.builder()
+                            .customerId(customerId)
+                            .error(batch.errors().get(customerId))
+                            .build());
+        }
+        return CompactBatchFeatureCheckResponse.builder()
+                .results(results)
+                .build();
+    }
+    
+    // Decisions for one customer; they cover every feature of the rule table, the response picks the requested ones.
+    // With a snapshot, its rules and accounts are used instead of reading them here.
+    private CustomerDecisions decide(String customerId, List<String> features, Snapshot snapshot) {
+        if (snapshot != null) {
+            return decide(customerId, features, snapshot.ruleSet(), snapshot);
+        }
+        // The active rule set is read once so a concurrent reload cannot mix two rule versions
+        RuleSet ruleSet = ruleSetManager.acquire();
+        try {
+            return decide(customerId, features, ruleSet, null);
+        } finally {
+            ruleSet.release();
+        }
+    }
+    
+    private CustomerDecisions decide(String customerId, List<String> features, RuleSet ruleSet, Snapshot snapshot) {
+        log.info("Checking features for customer: {}", customerId);
+        
+        // Step 0: Decisions made earlier, or precomputed for the roster, still hold until the next
+        // migration window boundary
+        DecisionStore.Decision cached = featureDecisionCache.get(customerId, ruleSet);
+        if (cached != null) {
+            log.info("Completed feature check for customer: {} with {} features (cached decisions)",
+                    customerId, features.size());
+            return new CustomerDecisions(cached.featureDecisions(), false);
+        }
+        LocalDateTime evaluationTime = LocalDateTime.now(clock);
+        DecisionStore.Decision precomputed = precomputedDecision(customerId, features, ruleSet, evaluationTime);
+        if (precomputed != null) {
+            log.info("Completed feature check for customer: {} with {} features (precomputed decisions)",
+                    customerId, features.size());
+            return new CustomerDecisions(precomputed.featureDecisions(), false);
+        }
+        
+        // Step 1: Get account statuses from migration API (read-through cache, last known accounts
+        // while the migration API is unavailable). The change version is read first, so decisions
+        // are not cached if an event changes the accounts meanwhile.
+        long accountsVersion = snapshot != null
+                ? snapshot.accountsVersion() : customerAccountStore.changeVersion(customerId);
+        AccountStatusCache.Lookup lookup = snapshot != null ? snapshot.lookup() : accountStatusCache.lookup(customerId);
+        List<AccountInfo> accounts = lookup.accounts();
+        log.debug("Retrieved {} accounts for customer {}", accounts.size(), customerId);
+        decisionMetrics.recordAccounts(accounts.size());
+        
+        // Step 2: Create context for Drools
+        CustomerMigrationContext context = CustomerMigrationContext.builder()
+                .customerId(customerId)
+                .accounts(accounts)
+                .requestedFeatures(features)
+                .evaluationTime(evaluationTime)
+                .featureRegistry(ruleSet.getFeatureRegistry())
+                .build();
+        
+        // Step 3: Derive customer-level status from account statuses
+        context.deriveCustomerStatus();
+        log.info("Customer {} has derived status: {}", customerId, context.getCustomerStatus());
+        
+        // Step 4: Execute rules (all logic now in CSV)
+        evaluateRules(ruleSet, List.of(context));
+        
+        // Step 5: Keep the context decisions (features not set by rules are enabled); decisions made
+        // from stale accounts are not cached
+        decisionMetrics.recordDecisions(context.getCustomerStatus(), context.getDecisions(), features, "rules");
+        if (!lookup.stale()) {
+            featureDecisionCache.put(context, ruleSet, accountsVersion, lookup.expiresAt());
+        }
+        
+        log.info("Completed feature check for customer: {} with {} features{}", customerId, features.size(),
+                lookup.stale() ? " (stale accounts)" : "");
+        return new CustomerDecisions(context.getDecisions(), lookup.stale());
+    }
+    
+    /**
+     * Makes a customer's decisions as of a coming window boundary, from accounts read again
+     * now, and holds them in the decision cache for when the boundary passes.
+     *
+     * @return false if only last known accounts could be read, and nothing was held
+     */
+    public boolean prewarm(String customerId, LocalDateTime boundary) {
+        RuleSet ruleSet = ruleSetManager.acquire();
+        try {
+            return prewarm(customerId, boundary, ruleSet);
+        } finally {
+            ruleSet.release();
+        }
+    }
+    
+    private boolean prewarm(String customerId, LocalDateTime boundary, RuleSet ruleSet) {
+        long accountsVersion = customerAccountStore.changeVersion(customerId);
+        AccountStatusCache.Lookup lookup = accountStatusCache.refresh(customerId);
+        if (lookup.stale()) {
+            return false;
+        }
+        CustomerMigrationContext context = CustomerMigrationContext.builder()
+                .customerId(customerId)
+                .accounts(lookup.accounts())
+                .requestedFeatures(List.of())
+                .evaluationTime(boundary)
+                .featureRegistry(ruleSet.getFeatureRegistry())
+                .build();
+        context.deriveCustomerStatus();
+        evaluateRules(ruleSet, List.of(context));
+        featureDecisionCache.putUpcoming(context, ruleSet, accountsVersion);
+        return true;
+    }
+    
+    private BatchDecisions decideBatch(List<String> customerIds, List<String> features) {
+        Set<String> uniqueCustomerIds = new LinkedHashSet<>(customerIds);
+        int maxCustomers = migrationApiConfig.getBatch().getMaxCustomers();
+        if (uniqueCustomerIds.size() > maxCustomers) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + maxCustomers + " customers");
+        }
+        log.info("Checking features for batch of {} customers", uniqueCustomerIds.size());
+        RuleSet ruleSet = ruleSetManager.acquire();
+        try {
+            return decideBatch(uniqueCustomerIds, features, ruleSet);
+        } finally {
+            ruleSet.release();
+        }
+    }
+    
+    private BatchDecisions decideBatch(Set<String> uniqueCustomerIds, List<String> features, RuleSet ruleSet) {
+        LocalDateTime evaluationTime = LocalDateTime.now(clock);
+        
+        // Step 0: Only customers without cached decisions need a lookup and rule evaluation
+        Map<String, CustomerDecisions> decisions = new HashMap<>();
+        List<String> uncachedCustomerIds = new ArrayList<>();
+        for (String customerId : uniqueCustomerIds) {
+            DecisionStore.Decision cached = featureDecisionCache.get(customerId, ruleSet);
+            if (cached == null) {
+                cached = precomputedDecision(customerId, features, ruleSet, evaluationTime);
+            }
+            if (cached != null) {
+                decisions.put(customerId, new CustomerDecisions(cached.featureDecisions(), false));
+            } else {
+                uncachedCustomerIds.add(customerId);
+            }
+        }
+        log.debug("Batch decisions cached for {} of {} customers", decisions.size(), uniqueCustomerIds.size());
+        
+        // Step 1: Get account statuses for the remaining customers concurrently
+        Map<String, Long> accountsVersions = new HashMap<>();
+        uncachedCustomerIds.forEach(customerId ->
+                accountsVersions.put(customerId, customerAccountStore.changeVersion(customerId)));
+        Map<String, CompletableFuture<AccountStatusCache.Lookup>> lookups = accountBatchFetcher.fetch(uncachedCustomerIds);
+        
+        // Step 2: Create contexts and derive customer status; a failed lookup only fails that customer
+        Map<String, CustomerMigrationContext> contexts = new LinkedHashMap<>();
+        Set<String> staleCustomerIds = new HashSet<>();
+        Map<String, String> errors = new HashMap<>();
+        lookups.forEach((customerId, pending) -> {
+            try {
+                AccountStatusCache.Lookup lookup = pending.join();
+                List<AccountInfo> accounts = lookup.accounts();
+                if (lookup.stale()) {
+                    staleCustomerIds.add(customerId);
+                }
+                decisionMetrics.recordAccounts(accounts.size());
+                CustomerMigrationContext context = CustomerMigrationContext.builder()
+                        .customerId(customerId)
+                        .accounts(accounts)
+                        .requestedFeatures(features)
+                        .evaluationTime(evaluationTime)
+                        .featureRegistry(ruleSet.getFeatureRegistry())
+                        .build();
+                context.deriveCustomerStatus();
+                contexts.put(customerId, context);
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof MigrationApiException)) {
+                    throw e;
+                }
+                log.warn("Migration API lookup failed for customer {} in batch: {}", customerId, e.getCause().getMessage());
+                errors.put(customerId, e.getCause().getMessage());
+            }
+        });
+        
+        // Step 3: Execute rules for all customers in one pass
+        evaluateRules(ruleSet, contexts.values());
+        contexts.forEach((customerId, context) -> {
+            boolean stale = staleCustomerIds.contains(customerId);
+            decisionMetrics.recordDecisions(context.getCustomerStatus(), context.getDecisions(), features, "rules");
+            if (!stale) {
+                // The lookup is complete: its context was made from it
+                LocalDateTime accountsExpireAt = lookups.get(customerId).join().expiresAt();
+                featureDecisionCache.put(context, ruleSet, accountsVersions.get(customerId), accountsExpireAt);
+            }
+            decisions.put(customerId, new CustomerDecisions(context.getDecisions(), stale));
+        });
+        
+        log.info("Completed batch feature check: {} customers, {} errors", uniqueCustomerIds.size(), errors.size());
+        return new BatchDecisions(uniqueCustomerIds, decisions, errors);
+    }
+    
+    // Decisions from the precomputed roster store, or null if they have to be made live
+    private DecisionStore.Decision precomputedDecision(String customerId, List<String> features,
+                                                       RuleSet ruleSet, LocalDateTime now) {
+        DecisionStore.Decision decision = decisionPrecomputeJob.lookup(customerId, ruleSet, now);
+        if (decision != null) {
+            decisionMetrics.recordDecisions(decision.customerStatus(), decision.featureDecisions(), features, "precomputed");
+        }
+        return decision;
+    }
+    
+    // In request order; each name is looked up once in the rule set's feature registry. The reason
+    // texts are rendered once per rule table, so asking for them costs payload, not allocation.
+    private static FeatureCheckResponse toCheckResponse(String customerId, CustomerDecisions decisions,
+                                                        List<String> features, boolean withReasons) {
+        return FeatureCheckResponse.builder()
+                .customerId(customerId)
+                .features(toFeatureStatuses(decisions.featureDecisions(), features, withReasons))
+                .stale(decisions.stale() ? true : null)
+                .build();
+    }
+    
+    private static List<FeatureStatus> toFeatureStatuses(FeatureDecisions decisions, List<String> features,
+                                                         boolean withReasons) {
+        List<FeatureStatus> featureStatuses = new ArrayList<>(features.size());
+        for (String feature : features) {
+            int featureId = decisions.getRegistry().idOf(feature);
+            featureStatuses.add(FeatureStatus.builder()
+                    .feature(feature)
+                    .enabled(decisions.isEnabled(featureId))
+                    .reasonCode(decisions.getReasonName(featureId))
+                    .reason(withReasons ? decisions.getReason(featureId) : null)
+                    .build());
+        }
+        return featureStatuses;
+    }
+    
+    private static Map<String, FeatureStatus> toSuppressionInfo(FeatureDecisions decisions, List<String> features,
+                                                               boolean withReasons) {
+        Map<String, FeatureStatus> suppressionInfo = new HashMap<>();
+        toFeatureStatuses(decisions, features, withReasons)
+                .forEach(status -> suppressionInfo.put(status.getFeature(), status));
+        return suppressionInfo;
+    }
+    
+    private static Map<String, Boolean> toEnabledMap(FeatureDecisions decisions, List<String> features) {
+        Map<String, Boolean> enabled = new LinkedHashMap<>();
+        for (String feature : features) {
+            enabled.put(feature, decisions.isEnabled(feature));
+        }
+        return enabled;
+    }
+    
+    // Answer from the compiled decision matrix when available, otherwise fire the rules in a Drools
+    // session (all contexts go into the same session, the rules match each one independently).
+    // Contexts sampled for tracing are evaluated on their own first.
+    private void evaluateRules(RuleSet ruleSet, Collection<CustomerMigrationContext> contexts) {
+        if (ruleTracer.isEnabled()) {
+            contexts = ruleTracer.evaluateSampled(ruleSet, contexts);
+        }
+        if (contexts.isEmpty()) {
+            return;
+        }
+        DecisionMatrix decisionMatrix = ruleSet.getDecisionMatrix();
+        if (decisionMatrix.isCompiled()) {
+            long start = System.nanoTime();
+            int rowsMatched = 0;
+            for (CustomerMigrationContext context : contexts) {
+                rowsMatched += decisionMatrix.evaluate(context);
+            }
+            decisionMetrics.recordMatrixEvaluation(start, rowsMatched);
+            log.debug("Matched {} decision matrix rows for {} customer(s)", rowsMatched, contexts.size());
+            return;
+        }
+        
+        int rulesFired = ruleSet.getSessionExecutor().execute(contexts);
+        log.debug("Fired {} rules for {} customer(s)", rulesFired, contexts.size());
+    }
+    
+    // Per-customer decisions of a batch in request order; customers missing from decisions have an error
+    private record BatchDecisions(Set<String> customerIds, Map<String, CustomerDecisions> decisions,
+                                  Map<String, String> errors) {
+    }
+    
+    /**
+     * What a customer's response is made from: the active rules, and the accounts looked up
+     * after their change version was read. Closing it releases the rules.
+     */
+    public record Snapshot(String customerId, RuleSet ruleSet, long accountsVersion, AccountStatusCache.Lookup lookup)
+            implements AutoCloseable {
+        
+        @Override
+        public void close() {
+            ruleSet.release();
+        }
+    }
+    
+    // stale: made from the last known accounts
+    private record CustomerDecisions(FeatureDecisions featureDecisions, boolean stale) {
+    }
 }
-
@@ -0,0 +1,95 @@
+package com.bank.migration.service;
+
+import com.bank.migration.exception.RuleCompilationException;
+import com.bank.migration.model.rules.FeatureRegistry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the {@link FeatureRegistry} of a decision table from its header: each ACTION column
+ * whose snippet is {@code setFeature("name", "$param")} is a feature, named by its cell in the
+ * header row, which must match the snippet. Older tables with {@code setFeatureN("$param")}
+ * snippets are read as features featureN. The action values are those used in the rule rows.
+ */
+public final class FeatureRegistryReader {
+    
+    private static final Pattern FEATURE_ACTION = Pattern.compile("setFeature\\(\"([^\"]+)\"\\s*,\\s*\"\\$param\"\\);?");
+    private static final Pattern NUMBERED_FEATURE_ACTION = Pattern.compile("setFeature(\\d+)\\(\"\\$param\"\\);?");
+    
+    private FeatureRegistryReader() {
+    }
+    
+    public static FeatureRegistry read(RuleTable table, List<List<String>> rows) {
+        int tableRow = 0;
+        int firstColumn = -1;
+        for (; tableRow < rows.size() && firstColumn < 0; tableRow++) {
+            firstColumn = ruleTableColumn(rows.get(tableRow));
+        }
+        // tableRow is now the row after "RuleTable ..."; the header row comes after the
+        // type, pattern and snippet rows
+        int headerRow = tableRow + 3;
+        if (firstColumn < 0 || headerRow >= rows.size()) {
+            return FeatureRegistry.EMPTY;
+        }
+        List<String> types = rows.get(tableRow);
+        List<String> snippets = rows.get(tableRow + 2);
+        List<String> header = rows.get(headerRow);
+        
+        List<String> features = new ArrayList<>();
+        List<Integer> featureColumns = new ArrayList<>();
+        for (int column = firstColumn; column < types.size(); column++) {
+            String feature = actionFeature(DecisionMatrixCompiler.cell(snippets, column));
+            if (!DecisionMatrixCompiler.cell(types, column).equals("ACTION") || feature == null) {
+                continue;
+            }
+            String name = DecisionMatrixCompiler.cell(header, column);
+            if (!name.equals(feature)) {
+                throw new RuleCompilationException("Feature column header '" + name + "' in " + table.source()
+                        + " does not match its action " + DecisionMatrixCompiler.cell(snippets, column));
+            }
+            features.add(name);
+            featureColumns.add(column);
+        }
+        
+        // Rule rows run until the first blank line, same as the Drools parser
+        Set<String> actionValues = new LinkedHashSet<>();
+        for (int row = headerRow + 1; row < rows.size() && !DecisionMatrixCompiler.isBlank(rows.get(row)); row++) {
+            for (int column : featureColumns) {
+                String value = DecisionMatrixCompiler.cell(rows.get(row), column);
+                if (!value.isEmpty()) {
+                    actionValues.add(value);
+                }
+            }
+        }
+        
+        try {
+            return new FeatureRegistry(features, new ArrayList<>(actionValues));
+        } catch (IllegalArgumentException e) {
+            throw new RuleCompilationException(e.getMessage() + " in " + table.source(), e);
+        }
+    }
+    
+    // Feature a decision table action sets, or null if the action is not a feature action
+    static String actionFeature(String snippet) {
+        Matcher matcher = FEATURE_ACTION.matcher(snippet);
+        if (matcher.matches()) {
+            return matcher.group(1);
+        }
+        matcher = NUMBERED_FEATURE_ACTION.matcher(snippet);
+        return matcher.matches() ? "feature" + matcher.group(1) : null;
+    }
+    
+    private static int ruleTableColumn(List<String> row) {
+        for (int column = 0; column < row.size(); column++) {
+            if (DecisionMatrixCompiler.cell(row, column).startsWith("RuleTable")) {
+                return column;
+            }
+        }
+        return -1;
+    }
+}
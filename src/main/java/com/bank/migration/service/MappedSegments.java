@@ -0,0 +1,137 @@
+package com.bank.migration.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A file mapped into memory as fixed-size segments, addressed by a long offset, since a
+ * single MappedByteBuffer cannot exceed 2 GB. Values must not straddle a segment boundary;
+ * callers align their data to {@link #SEGMENT_SIZE}.
+ * A read-only mapping is safe to share between threads (absolute reads only). A read-write
+ * mapping grows on demand for a single writer; to share it between writers, map the whole
+ * range up front with {@link #mapTo(long)} so they never grow it.
+ */
+final class MappedSegments implements Closeable {
+    
+    static final int SEGMENT_BITS = 26;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    
+    private MappedSegments(FileChannel channel, FileChannel.MapMode mode) {
+        this.channel = channel;
+        this.mode = mode;
+    }
+    
+    // New file, mapped read-write and grown a segment at a time as it is written
+    static MappedSegments create(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new MappedSegments(channel, FileChannel.MapMode.READ_WRITE);
+    }
+    
+    // Existing file, mapped read-only in full
+    static MappedSegments open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        MappedSegments mapped = new MappedSegments(channel, FileChannel.MapMode.READ_ONLY);
+        long size = channel.size();
+        for (long start = 0; start < size; start += SEGMENT_SIZE) {
+            mapped.segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start)));
+        }
+        return mapped;
+    }
+    
+    /**
+     * Maps every segment needed for the first {@code size} bytes of a new file. Writers that
+     * stay below {@code size} then only read the segment list, and may run concurrently
+     * once they see the mapping through a happens-before edge (e.g. submitting the task).
+     */
+    void mapTo(long size) {
+        if (size > 0) {
+            segment(size - 1);
+        }
+    }
+    
+    // Bytes left in the segment that contains the offset
+    static long remainingInSegment(long offset) {
+        return SEGMENT_SIZE - (offset & SEGMENT_MASK);
+    }
+    
+    byte get(long offset) {
+        return segment(offset).get(position(offset));
+    }
+    
+    short getShort(long offset) {
+        return segment(offset).getShort(position(offset));
+    }
+    
+    int getInt(long offset) {
+        return segment(offset).getInt(position(offset));
+    }
+    
+    long getLong(long offset) {
+        return segment(offset).getLong(position(offset));
+    }
+    
+    void get(long offset, byte[] destination) {
+        segment(offset).get(position(offset), destination);
+    }
+    
+    void put(long offset, byte value) {
+        segment(offset).put(position(offset), value);
+    }
+    
+    void putShort(long offset, short value) {
+        segment(offset).putShort(position(offset), value);
+    }
+    
+    void putInt(long offset, int value) {
+        segment(offset).putInt(position(offset), value);
+    }
+    
+    void putLong(long offset, long value) {
+        segment(offset).putLong(position(offset), value);
+    }
+    
+    void put(long offset, byte[] source) {
+        segment(offset).put(position(offset), source);
+    }
+    
+    // Flushes written segments to the file
+    void force() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+    
+    // The mapping stays readable after close until the buffers are garbage collected
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    private MappedByteBuffer segment(long offset) {
+        int index = (int) (offset >>> SEGMENT_BITS);
+        if (index >= segments.size() && mode == FileChannel.MapMode.READ_WRITE) {
+            try {
+                while (segments.size() <= index) {
+                    segments.add(channel.map(mode, segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map index segment " + index, e);
+            }
+        }
+        return segments.get(index);
+    }
+    
+    private static int position(long offset) {
+        return (int) (offset & SEGMENT_MASK);
+    }
+}
@@ -0,0 +1,219 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.exception.MigrationApiException;
+import com.bank.migration.model.dto.CircuitBreakerInfoResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker and concurrency bulkhead around migration API calls. The outcomes of the
+ * last sliding-window-size calls are kept in a ring; once minimum-calls have been seen and
+ * the share of failed or slow calls reaches failure-rate-threshold, the circuit opens and
+ * calls fail straight away for open-duration. Then half-open-calls trial calls go through:
+ * if all succeed the circuit closes, if any fails it opens again.
+ * Separately, at most max-concurrent-calls calls are in flight; further calls are rejected
+ * rather than queued, so a slow migration API cannot hold every request thread.
+ */
+@Service
+@Slf4j
+public class MigrationApiCircuitBreaker {
+    
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    private final MigrationApiConfig.CircuitBreaker config;
+    private final Clock clock;
+    private final Semaphore bulkhead;
+    private final long slowCallNanos;
+    
+    private final Counter rejectedWhileOpen;
+    private final Counter rejectedByBulkhead;
+    
+    // Sliding window of call outcomes, true for a failed or slow call; guarded by this
+    private final boolean[] window;
+    private int windowNext;
+    private int windowCalls;
+    private int windowFailures;
+    private int halfOpenSuccesses;
+    
+    private volatile State state = State.CLOSED;
+    private volatile LocalDateTime stateSince;
+    private volatile long openUntilNanos;
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    
+    public MigrationApiCircuitBreaker(MigrationApiConfig migrationApiConfig, Clock clock, MeterRegistry meterRegistry) {
+        this.config = migrationApiConfig.getCircuitBreaker();
+        this.clock = clock;
+        this.bulkhead = new Semaphore(config.getMaxConcurrentCalls());
+        this.slowCallNanos = config.getSlowCallDuration().toNanos();
+        this.window = new boolean[config.getSlidingWindowSize()];
+        this.stateSince = LocalDateTime.now(clock);
+        
+        this.rejectedWhileOpen = rejected(meterRegistry, "open");
+        this.rejectedByBulkhead = rejected(meterRegistry, "bulkhead");
+        for (State gaugeState : State.values()) {
+            Gauge.builder("migration.api.circuit.state", this, breaker -> breaker.state == gaugeState ? 1 : 0)
+                    .description("1 for the current state of the migration API circuit breaker")
+                    .tag("state", gaugeState.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("migration.api.bulkhead.calls", this, MigrationApiCircuitBreaker::getInFlightCalls)
+                .description("Migration API calls in flight")
+                .register(meterRegistry);
+        log.info("Migration API circuit breaker enabled: {} (failure rate: {}% of {} calls, slow call: {}, "
+                        + "open for: {}, max concurrent calls: {})", config.isEnabled(), config.getFailureRateThreshold(),
+                config.getSlidingWindowSize(), config.getSlowCallDuration(), config.getOpenDuration(),
+                config.getMaxConcurrentCalls());
+    }
+    
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("migration.api.circuit.rejected")
+                .description("Migration API calls rejected without being made, by reason")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Takes a permit for one call; every permit must be given back through {@link #release}.
+     *
+     * @throws MigrationApiException when the circuit is open or too many calls are in flight
+     */
+    public void acquire() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (!bulkhead.tryAcquire()) {
+            rejectedByBulkhead.increment();
+            throw new MigrationApiException("Too many concurrent migration API calls ("
+                    + config.getMaxConcurrentCalls() + ")");
+        }
+        if (!callPermitted()) {
+            bulkhead.release();
+            rejectedWhileOpen.increment();
+            throw new MigrationApiException("Migration API circuit breaker is " + state
+                    + (state == State.HALF_OPEN ? " (trial calls in flight)" : ""));
+        }
+    }
+    
+    // Records the outcome of a call made with a permit from acquire(); startNanos is System.nanoTime() at the call
+    public void release(long startNanos, boolean succeeded) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        bulkhead.release();
+        boolean failed = !succeeded || System.nanoTime() - startNanos > slowCallNanos;
+        synchronized (this) {
+            switch (state) {
+                case CLOSED -> recordInWindow(failed);
+                case HALF_OPEN -> {
+                    if (failed) {
+                        log.warn("Migration API circuit breaker reopened: trial call failed");
+                        open();
+                    } else if (++halfOpenSuccesses >= config.getHalfOpenCalls()) {
+                        log.info("Migration API circuit breaker closed after {} successful trial calls", halfOpenSuccesses);
+                        transition(State.CLOSED);
+                    }
+                }
+                // A call that finished after the circuit opened no longer counts
+                case OPEN -> {
+                }
+            }
+        }
+    }
+    
+    // False while calls are failing fast or only trial calls go through
+    public boolean isClosed() {
+        return !config.isEnabled() || state == State.CLOSED;
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    public int getInFlightCalls() {
+        return config.getMaxConcurrentCalls() - bulkhead.availablePermits();
+    }
+    
+    public CircuitBreakerInfoResponse getInfo() {
+        synchronized (this) {
+            return CircuitBreakerInfoResponse.builder()
+                    .enabled(config.isEnabled())
+                    .state(state.name())
+                    .stateSince(stateSince)
+                    .failureRate(windowCalls > 0 ? 100.0 * windowFailures / windowCalls : 0)
+                    .bufferedCalls(windowCalls)
+                    .inFlightCalls(getInFlightCalls())
+                    .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                    .rejectedWhileOpen((long) rejectedWhileOpen.count())
+                    .rejectedByBulkhead((long) rejectedByBulkhead.count())
+                    .build();
+        }
+    }
+    
+    private boolean callPermitted() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                return false;
+            }
+            synchronized (this) {
+                if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+                    log.info("Migration API circuit breaker half-open, letting {} trial calls through", config.getHalfOpenCalls());
+                    transition(State.HALF_OPEN);
+                }
+            }
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> halfOpenPermits.getAndUpdate(permits -> Math.max(0, permits - 1)) > 0;
+        };
+    }
+    
+    private void recordInWindow(boolean failed) {
+        if (windowCalls == window.length) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowNext] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+        
+        if (windowCalls >= config.getMinimumCalls()
+                && windowFailures * 100 >= config.getFailureRateThreshold() * windowCalls) {
+            log.warn("Migration API circuit breaker opened: {} of the last {} calls failed or were slower than {}",
+                    windowFailures, windowCalls, config.getSlowCallDuration());
+            open();
+        }
+    }
+    
+    private void open() {
+        openUntilNanos = System.nanoTime() + config.getOpenDuration().toNanos();
+        transition(State.OPEN);
+    }
+    
+    private void transition(State next) {
+        windowNext = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+        halfOpenSuccesses = 0;
+        halfOpenPermits.set(next == State.HALF_OPEN ? config.getHalfOpenCalls() : 0);
+        stateSince = LocalDateTime.now(clock);
+        state = next;
+    }
+}
@@ -3,41 +3,171 @@ package com.bank.migration.service;
 import com.bank.migration.config.MigrationApiConfig;
 import com.bank.migration.exception.MigrationApiException;
 import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.BulkAccountsRequest;
+import com.bank.migration.model.migration.BulkAccountsResponse;
 import com.bank.migration.model.migration.MigrationApiResponse;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class MigrationApiClient {
     
     private final RestTemplate restTemplate;
     private final MigrationApiConfig config;
+    private final MigrationApiCircuitBreaker circuitBreaker;
+    // Only set when migration.api.bulk.enabled is true
+    private final BulkLookupBatcher bulkLookupBatcher;
+    private final Meter.MeterProvider<Timer> calls;
+    
+    public MigrationApiClient(RestTemplate restTemplate, MigrationApiConfig config,
+                              MigrationApiCircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.config = config;
+        this.circuitBreaker = circuitBreaker;
+        this.calls = Timer.builder("migration.api.calls")
+                .description("Migration API calls, including response mapping, by call kind and error type")
+                .withRegistry(meterRegistry);
+        this.bulkLookupBatcher = config.getBulk().isEnabled()
+                ? new BulkLookupBatcher(this::getAccountStatusesBulk, config.getBulk(), meterRegistry)
+                : null;
+        log.info("Migration API bulk mode enabled: {}", config.getBulk().isEnabled());
+    }
     
     public List<AccountInfo> getAccountStatuses(String customerId) {
+        if (bulkLookupBatcher != null) {
+            try {
+                return bulkLookupBatcher.submit(customerId).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        
+        // Rejected calls fail here, before any time is spent on them
+        circuitBreaker.acquire();
+        long start = System.nanoTime();
+        String error = null;
         try {
-            String url = config.getBaseUrl() + config.getEndpoint().replace("{customerId}", customerId);
+            // Expanded by RestTemplate so the client metrics are tagged with the template, not every customer
+            String url = config.getBaseUrl() + config.getEndpoint();
             log.debug("Calling migration API for customer: {} at URL: {}", customerId, url);
             
-            MigrationApiResponse response = restTemplate.getForObject(url, MigrationApiResponse.class);
+            MigrationApiResponse response = restTemplate.getForObject(url, MigrationApiResponse.class, customerId);
             
             if (response == null || response.getAccounts() == null) {
+                error = "empty_response";
                 throw new MigrationApiException("Empty response from migration API for customer: " + customerId);
             }
             
             log.debug("Retrieved {} accounts for customer: {}", response.getAccounts().size(), customerId);
             return response.getAccounts();
-            
+        
         } catch (RestClientException e) {
+            error = errorType(e);
             log.error("Error calling migration API for customer: {}", customerId, e);
             throw new MigrationApiException("Failed to retrieve migration data for customer: " + customerId, e);
+        } catch (RuntimeException e) {
+            // Anything else, e.g. a failure mapping the response, still counts as a failed call
+            if (error == null) {
+                error = "unexpected";
+            }
+            throw e;
+        } finally {
+            recordCall("single", start, error);
+            circuitBreaker.release(start, error == null);
+        }
+    }
+    
+    /**
+     * Fetches many customers in one request to the bulk endpoint.
+     *
+     * @return accounts by customerId; customers the migration API did not return are absent
+     */
+    public Map<String, List<AccountInfo>> getAccountStatusesBulk(List<String> customerIds) {
+        circuitBreaker.acquire();
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            String url = config.getBaseUrl() + config.getBulk().getEndpoint();
+            log.debug("Calling bulk migration API for {} customers at URL: {}", customerIds.size(), url);
+            
+            BulkAccountsResponse response = restTemplate.postForObject(
+                    url, new BulkAccountsRequest(customerIds), BulkAccountsResponse.class);
+            
+            if (response == null || response.getCustomers() == null) {
+                error = "empty_response";
+                throw new MigrationApiException("Empty response from bulk migration API for "
+                        + customerIds.size() + " customers");
+            }
+            
+            Map<String, List<AccountInfo>> accountsByCustomer = new HashMap<>();
+            for (MigrationApiResponse customer : response.getCustomers()) {
+                if (customer.getCustomerId() != null && customer.getAccounts() != null) {
+                    accountsByCustomer.put(customer.getCustomerId(), customer.getAccounts());
+                }
+            }
+            log.debug("Retrieved accounts for {} of {} customers", accountsByCustomer.size(), customerIds.size());
+            return accountsByCustomer;
+        
+        } catch (RestClientException e) {
+            error = errorType(e);
+            log.error("Error calling bulk migration API for {} customers", customerIds.size(), e);
+            throw new MigrationApiException("Failed to retrieve migration data for "
+                    + customerIds.size() + " customers", e);
+        } catch (RuntimeException e) {
+            if (error == null) {
+                error = "unexpected";
+            }
+            throw e;
+        } finally {
+            recordCall("bulk", start, error);
+            circuitBreaker.release(start, error == null);
+        }
+    }
+    
+    private void recordCall(String call, long startNanos, String error) {
+        calls.withTags("call", call, "outcome", error == null ? "success" : "error", "error", error == null ? "none" : error)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    // Coarse error classes, so the error tag stays low-cardinality
+    private static String errorType(RestClientException e) {
+        if (e instanceof HttpStatusCodeException status) {
+            return status.getStatusCode().is4xxClientError() ? "http_4xx" : "http_5xx";
+        }
+        if (e instanceof ResourceAccessException) {
+            // Read, connect and connection pool timeouts are all interrupted I/O
+            if (e.getCause() instanceof InterruptedIOException) {
+                return "timeout";
+            }
+            return e.getCause() instanceof ConnectException ? "connect" : "io";
+        }
+        return "response";
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (bulkLookupBatcher != null) {
+            bulkLookupBatcher.shutdown();
         }
     }
 }
-
@@ -0,0 +1,250 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only, memory-mapped index of a roster snapshot, built by {@link RosterIndexBuilder}.
+ * Account data lives in the mapped file, not on the heap, so a roster of tens of millions
+ * of accounts only costs page cache. Lookups are safe from any thread.
+ *
+ * <p>File layout: a header page, an open-addressing hash table from customerId to the
+ * offset of the customer's last account record, then the account records. Each record
+ * links to the customer's previous record, so a lookup walks one customer's accounts only.
+ */
+@Slf4j
+public final class RosterIndex {
+    
+    static final long MAGIC = 0x524F535445523031L; // "ROSTER01"
+    static final long HEADER_SIZE = 4096;
+    static final int SLOT_SIZE = 8;
+    
+    // Slot: top bits of the customerId hash as a tag, then the record offset; 0 is an empty slot
+    static final int OFFSET_BITS = 40;
+    static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    
+    // Header fields
+    static final long SLOT_COUNT_OFFSET = 8;
+    static final long DATA_END_OFFSET = 16;
+    static final long CUSTOMER_COUNT_OFFSET = 24;
+    static final long ACCOUNT_COUNT_OFFSET = 32;
+    
+    // Record: previous record offset, customerId, accountId, type, status, wave, migration date
+    static final int RECORD_FIXED_SIZE = 8 + 2 + 2 + 3 + 4;
+    static final int MAX_ID_BYTES = 1024;
+    static final short NULL_ID = -1;
+    static final int NULL_DATE = Integer.MIN_VALUE;
+    
+    private static final AccountType[] ACCOUNT_TYPES = AccountType.values();
+    private static final MigrationStatus[] MIGRATION_STATUSES = MigrationStatus.values();
+    private static final MigrationWave[] MIGRATION_WAVES = MigrationWave.values();
+    
+    private final Path path;
+    private final String source;
+    private final MappedSegments mapped;
+    private final long slotMask;
+    private final long customerCount;
+    private final long accountCount;
+    private final long sizeBytes;
+    private final LocalDateTime loadedAt;
+    private final Duration buildTime;
+    
+    private RosterIndex(Path path, String source, MappedSegments mapped, Duration buildTime) throws IOException {
+        if (mapped.getLong(0) != MAGIC) {
+            throw new IOException("Not a roster index: " + path);
+        }
+        this.path = path;
+        this.source = source;
+        this.mapped = mapped;
+        this.slotMask = mapped.getLong(SLOT_COUNT_OFFSET) - 1;
+        this.customerCount = mapped.getLong(CUSTOMER_COUNT_OFFSET);
+        this.accountCount = mapped.getLong(ACCOUNT_COUNT_OFFSET);
+        this.sizeBytes = mapped.getLong(DATA_END_OFFSET);
+        this.loadedAt = LocalDateTime.now();
+        this.buildTime = buildTime;
+    }
+    
+    static RosterIndex open(Path path, String source, Duration buildTime) throws IOException {
+        MappedSegments mapped = MappedSegments.open(path);
+        try {
+            return new RosterIndex(path, source, mapped, buildTime);
+        } catch (IOException e) {
+            mapped.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * The customer's accounts in snapshot order, or null if the customer is not in the snapshot.
+     */
+    public List<AccountInfo> find(String customerId) {
+        long slot = findSlot(customerId);
+        return slot >= 0 ? readAccounts(mapped.getLong(slotOffset(slot)) & OFFSET_MASK) : null;
+    }
+    
+    // Hash table slot holding the customer, or -1; slots identify customers for the life of the index
+    public long findSlot(String customerId) {
+        byte[] key = customerId.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(key);
+        for (long slot = hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            long entry = mapped.getLong(slotOffset(slot));
+            if (entry == 0) {
+                return -1;
+            }
+            if (tag(entry) == tag(hash) && customerIdEquals(mapped, entry & OFFSET_MASK, key)) {
+                return slot;
+            }
+        }
+    }
+    
+    public long getSlotCount() {
+        return slotMask + 1;
+    }
+    
+    /**
+     * Streams the customers held in slots [fromSlot, toSlot); disjoint ranges can be read
+     * from different threads at the same time.
+     */
+    public void forEachCustomer(long fromSlot, long toSlot, CustomerConsumer consumer) {
+        for (long slot = fromSlot; slot < toSlot; slot++) {
+            long entry = mapped.getLong(slotOffset(slot));
+            if (entry != 0) {
+                long head = entry & OFFSET_MASK;
+                consumer.accept(slot, readCustomerId(head), readAccounts(head));
+            }
+        }
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public long getCustomerCount() {
+        return customerCount;
+    }
+    
+    public long getAccountCount() {
+        return accountCount;
+    }
+    
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+    
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+    
+    public Duration getBuildTime() {
+        return buildTime;
+    }
+    
+    // Unmapping is left to the garbage collector; the file can go as soon as nothing new reads it
+    void dispose() {
+        try {
+            mapped.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete roster index {}", path, e);
+        }
+    }
+    
+    private String readCustomerId(long record) {
+        byte[] customerId = new byte[mapped.getShort(record + 8)];
+        mapped.get(record + 10, customerId);
+        return new String(customerId, StandardCharsets.UTF_8);
+    }
+    
+    private List<AccountInfo> readAccounts(long head) {
+        List<AccountInfo> accounts = new ArrayList<>();
+        for (long record = head; record != 0; record = mapped.getLong(record)) {
+            accounts.add(readAccount(record));
+        }
+        // Records are linked newest first
+        Collections.reverse(accounts);
+        return Collections.unmodifiableList(accounts);
+    }
+    
+    private AccountInfo readAccount(long record) {
+        long offset = record + 8;
+        offset += 2 + mapped.getShort(offset);
+        
+        short accountIdLength = mapped.getShort(offset);
+        offset += 2;
+        String accountId = null;
+        if (accountIdLength != NULL_ID) {
+            byte[] accountIdBytes = new byte[accountIdLength];
+            mapped.get(offset, accountIdBytes);
+            accountId = new String(accountIdBytes, StandardCharsets.UTF_8);
+            offset += accountIdLength;
+        }
+        
+        int migrationDate = mapped.getInt(offset + 3);
+        return AccountInfo.builder()
+                .accountId(accountId)
+                .accountType(decode(ACCOUNT_TYPES, mapped.get(offset)))
+                .migrationStatus(decode(MIGRATION_STATUSES, mapped.get(offset + 1)))
+                .migrationWave(decode(MIGRATION_WAVES, mapped.get(offset + 2)))
+                .migrationDate(migrationDate != NULL_DATE ? LocalDate.ofEpochDay(migrationDate) : null)
+                .build();
+    }
+    
+    static boolean customerIdEquals(MappedSegments mapped, long record, byte[] key) {
+        short length = mapped.getShort(record + 8);
+        if (length != key.length) {
+            return false;
+        }
+        byte[] stored = new byte[length];
+        mapped.get(record + 10, stored);
+        return Arrays.equals(stored, key);
+    }
+    
+    static long slotOffset(long slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+    
+    static long tag(long hashOrEntry) {
+        return hashOrEntry >>> OFFSET_BITS;
+    }
+    
+    static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    // Enums are stored as ordinal + 1, with 0 for a missing value
+    static byte encode(Enum<?> value) {
+        return value != null ? (byte) (value.ordinal() + 1) : 0;
+    }
+    
+    private static <E extends Enum<E>> E decode(E[] values, byte code) {
+        return code != 0 ? values[code - 1] : null;
+    }
+    
+    @FunctionalInterface
+    public interface CustomerConsumer {
+        void accept(long slot, String customerId, List<AccountInfo> accounts);
+    }
+}
@@ -0,0 +1,276 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.drools.decisiontable.parser.csv.CsvLineParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds a {@link RosterIndex} from a roster extract with one account per line, either CSV
+ * with a header row or NDJSON, using the {@code AccountInfo} field names plus customerId.
+ * CSV fields may be quoted (with "" for a quote inside one), but a record must fit on one line.
+ * The extract is streamed and the index written straight into a mapped file, so the heap
+ * use does not grow with the roster size. The index is written under a temporary name and
+ * moved into place once complete.
+ */
+final class RosterIndexBuilder {
+    
+    private static final List<String> COLUMNS = List.of(
+            "customerId", "accountId", "accountType", "migrationStatus", "migrationWave", "migrationDate");
+    private static final int CUSTOMER_ID = 0;
+    private static final int ACCOUNT_ID = 1;
+    private static final int ACCOUNT_TYPE = 2;
+    private static final int MIGRATION_STATUS = 3;
+    private static final int MIGRATION_WAVE = 4;
+    private static final int MIGRATION_DATE = 5;
+    
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final MappedSegments out;
+    private final long slotMask;
+    private long dataEnd;
+    private long customerCount;
+    private long accountCount;
+    
+    private RosterIndexBuilder(MappedSegments out, long slotCount) {
+        this.out = out;
+        this.slotMask = slotCount - 1;
+        this.dataEnd = RosterIndex.slotOffset(slotCount);
+    }
+    
+    static RosterIndex build(Path snapshot, Path indexFile) throws IOException {
+        long start = System.nanoTime();
+        boolean ndjson = snapshot.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".ndjson");
+        
+        // At most one customer per line; keeping the table at most two thirds full keeps probes short
+        long slotCount = Long.highestOneBit(Math.max(16, countLines(snapshot) * 3 / 2)) << 1;
+        
+        Path temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        Files.deleteIfExists(temporaryFile);
+        long size;
+        try (MappedSegments out = MappedSegments.create(temporaryFile)) {
+            RosterIndexBuilder builder = new RosterIndexBuilder(out, slotCount);
+            try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+                if (ndjson) {
+                    builder.readNdjson(reader);
+                } else {
+                    builder.readCsv(reader);
+                }
+            }
+            builder.writeHeader(slotCount);
+            out.force();
+            size = builder.dataEnd;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+        
+        // Segments are mapped whole while writing; drop the unused tail
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+        Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return RosterIndex.open(indexFile, snapshot.toString(), Duration.ofNanos(System.nanoTime() - start));
+    }
+    
+    private void readCsv(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException("Roster snapshot is empty");
+        }
+        CsvLineParser parser = new CsvLineParser();
+        List<String> names = parseCsvLine(parser, header, 1);
+        int[] columnOf = new int[names.size()];
+        boolean hasCustomerId = false;
+        for (int i = 0; i < columnOf.length; i++) {
+            columnOf[i] = COLUMNS.indexOf(names.get(i).trim());
+            hasCustomerId |= columnOf[i] == CUSTOMER_ID;
+        }
+        if (!hasCustomerId) {
+            throw new IOException("Roster snapshot header has no customerId column: " + header);
+        }
+        
+        String line;
+        for (long lineNumber = 2; (line = reader.readLine()) != null; lineNumber++) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = parseCsvLine(parser, line, lineNumber);
+            String[] values = new String[COLUMNS.size()];
+            for (int i = 0; i < fields.size() && i < columnOf.length; i++) {
+                if (columnOf[i] >= 0) {
+                    values[columnOf[i]] = fields.get(i).trim();
+                }
+            }
+            add(values, lineNumber);
+        }
+    }
+    
+    // The parser reuses its result list between lines
+    private static List<String> parseCsvLine(CsvLineParser parser, String line, long lineNumber) throws IOException {
+        // The parser would take an unclosed quote to the end of the line; a record split over lines is not supported
+        if (line.chars().filter(c -> c == '"').count() % 2 != 0) {
+            throw new IOException("Roster snapshot line " + lineNumber + " has an unclosed quote");
+        }
+        return parser.parse(line);
+    }
+    
+    private void readNdjson(BufferedReader reader) throws IOException {
+        String line;
+        for (long lineNumber = 1; (line = reader.readLine()) != null; lineNumber++) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] values = new String[COLUMNS.size()];
+            try (JsonParser parser = jsonFactory.createParser(line)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Roster snapshot line " + lineNumber + " is not a JSON object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    int column = COLUMNS.indexOf(parser.getCurrentName());
+                    JsonToken token = parser.nextToken();
+                    if (column >= 0 && token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                        values[column] = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+            add(values, lineNumber);
+        }
+    }
+    
+    private void add(String[] values, long lineNumber) throws IOException {
+        if (isBlank(values[CUSTOMER_ID])) {
+            throw new IOException("Roster snapshot line " + lineNumber + " has no customerId");
+        }
+        byte[] customerId = idBytes(values[CUSTOMER_ID], lineNumber);
+        byte[] accountId = isBlank(values[ACCOUNT_ID]) ? null : idBytes(values[ACCOUNT_ID], lineNumber);
+        
+        long record;
+        try {
+            record = appendRecord(customerId, accountId,
+                    parseEnum(AccountType.class, values[ACCOUNT_TYPE]),
+                    parseEnum(MigrationStatus.class, values[MIGRATION_STATUS]),
+                    parseEnum(MigrationWave.class, values[MIGRATION_WAVE]),
+                    isBlank(values[MIGRATION_DATE]) ? null : LocalDate.parse(values[MIGRATION_DATE].trim()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IOException("Roster snapshot line " + lineNumber + ": " + e.getMessage(), e);
+        }
+        linkToCustomer(customerId, record);
+        accountCount++;
+    }
+    
+    private long appendRecord(byte[] customerId, byte[] accountId, AccountType accountType,
+                              MigrationStatus migrationStatus, MigrationWave migrationWave, LocalDate migrationDate) {
+        int size = RosterIndex.RECORD_FIXED_SIZE + customerId.length + (accountId != null ? accountId.length : 0);
+        if (MappedSegments.remainingInSegment(dataEnd) < size) {
+            // Records never straddle two mapped segments
+            dataEnd += MappedSegments.remainingInSegment(dataEnd);
+        }
+        if (dataEnd + size > RosterIndex.OFFSET_MASK) {
+            throw new IllegalStateException("Roster snapshot too large for the index format");
+        }
+        long record = dataEnd;
+        long offset = record + 8;
+        
+        out.putShort(offset, (short) customerId.length);
+        out.put(offset + 2, customerId);
+        offset += 2 + customerId.length;
+        if (accountId != null) {
+            out.putShort(offset, (short) accountId.length);
+            out.put(offset + 2, accountId);
+            offset += 2 + accountId.length;
+        } else {
+            out.putShort(offset, RosterIndex.NULL_ID);
+            offset += 2;
+        }
+        out.put(offset, RosterIndex.encode(accountType));
+        out.put(offset + 1, RosterIndex.encode(migrationStatus));
+        out.put(offset + 2, RosterIndex.encode(migrationWave));
+        out.putInt(offset + 3, migrationDate != null ? Math.toIntExact(migrationDate.toEpochDay()) : RosterIndex.NULL_DATE);
+        
+        dataEnd += size;
+        return record;
+    }
+    
+    // Makes the record the customer's newest one, linking it to the previous newest
+    private void linkToCustomer(byte[] customerId, long record) {
+        long hash = RosterIndex.hash(customerId);
+        long tag = RosterIndex.tag(hash) << RosterIndex.OFFSET_BITS;
+        for (long slot = hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            long slotOffset = RosterIndex.slotOffset(slot);
+            long entry = out.getLong(slotOffset);
+            if (entry == 0) {
+                out.putLong(slotOffset, tag | record);
+                out.putLong(record, 0);
+                customerCount++;
+                return;
+            }
+            long head = entry & RosterIndex.OFFSET_MASK;
+            if (RosterIndex.tag(entry) == RosterIndex.tag(hash) && RosterIndex.customerIdEquals(out, head, customerId)) {
+                out.putLong(record, head);
+                out.putLong(slotOffset, tag | record);
+                return;
+            }
+        }
+    }
+    
+    private void writeHeader(long slotCount) {
+        out.putLong(RosterIndex.SLOT_COUNT_OFFSET, slotCount);
+        out.putLong(RosterIndex.DATA_END_OFFSET, dataEnd);
+        out.putLong(RosterIndex.CUSTOMER_COUNT_OFFSET, customerCount);
+        out.putLong(RosterIndex.ACCOUNT_COUNT_OFFSET, accountCount);
+        // Written last, so an index cut short by a crash is never taken for a valid one
+        out.putLong(0, RosterIndex.MAGIC);
+    }
+    
+    private static byte[] idBytes(String id, long lineNumber) throws IOException {
+        byte[] bytes = id.trim().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > RosterIndex.MAX_ID_BYTES) {
+            throw new IOException("Roster snapshot line " + lineNumber + " has an id longer than "
+                    + RosterIndex.MAX_ID_BYTES + " bytes");
+        }
+        return bytes;
+    }
+    
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        return isBlank(value) ? null : Enum.valueOf(type, value.trim());
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+    
+    private static long countLines(Path snapshot) throws IOException {
+        long lines = 1;
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(snapshot)) {
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+}
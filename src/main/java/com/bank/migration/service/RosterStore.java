@@ -0,0 +1,222 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.RosterConfig;
+import com.bank.migration.exception.MigrationApiException;
+import com.bank.migration.model.dto.RosterInfoResponse;
+import com.bank.migration.model.migration.AccountInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Offline roster mode: answers account lookups from a local roster snapshot. The snapshot
+ * file is indexed into a memory-mapped {@link RosterIndex} on a background thread, at
+ * startup and whenever the file changes, and the new index is swapped in atomically, so
+ * lookups never wait for a load. A snapshot that fails to load leaves the previous index
+ * active. A replaced index is deleted after retire-delay.
+ */
+@Service
+@Slf4j
+public class RosterStore {
+    
+    private final RosterConfig config;
+    private final AtomicReference<RosterIndex> active = new AtomicReference<>();
+    
+    // Loads, file polling and retirement all run here, one at a time
+    private final ScheduledExecutorService loadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "roster-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loadTimer;
+    private final Counter loadFailures;
+    
+    private final List<Consumer<RosterIndex>> activationListeners = new CopyOnWriteArrayList<>();
+    
+    private volatile FileState snapshotState;
+    private volatile String lastLoadError;
+    private volatile LocalDateTime lastLoadErrorAt;
+    private final AtomicLong indexSequence = new AtomicLong();
+    
+    public RosterStore(RosterConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        
+        this.hits = Counter.builder("migration.roster.lookups")
+                .description("Account lookups answered from the roster snapshot")
+                .tag("outcome", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("migration.roster.lookups")
+                .description("Account lookups answered from the roster snapshot")
+                .tag("outcome", "miss")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("migration.roster.load")
+                .description("Time to index a roster snapshot")
+                .register(meterRegistry);
+        this.loadFailures = Counter.builder("migration.roster.load.failures")
+                .description("Roster snapshots that could not be loaded")
+                .register(meterRegistry);
+        Gauge.builder("migration.roster.customers", active, index -> index.get() != null ? index.get().getCustomerCount() : 0)
+                .description("Customers in the active roster snapshot")
+                .register(meterRegistry);
+        Gauge.builder("migration.roster.accounts", active, index -> index.get() != null ? index.get().getAccountCount() : 0)
+                .description("Accounts in the active roster snapshot")
+                .register(meterRegistry);
+        
+        if (config.isEnabled()) {
+            if (config.getFile() == null) {
+                throw new IllegalStateException("migration.roster.enabled requires migration.roster.file");
+            }
+            long interval = config.getPollInterval().toMillis();
+            loadExecutor.scheduleWithFixedDelay(this::checkSnapshot, 0, interval, TimeUnit.MILLISECONDS);
+            log.info("Offline roster mode: serving accounts from {} (live fallback: {})",
+                    config.getFile(), config.isLiveFallback());
+        }
+    }
+    
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+    
+    // Active snapshot index, null until the first snapshot is loaded
+    public RosterIndex current() {
+        return active.get();
+    }
+    
+    // Called on the load thread after each new snapshot becomes active
+    public void addActivationListener(Consumer<RosterIndex> listener) {
+        activationListeners.add(listener);
+    }
+    
+    /**
+     * Accounts from the active snapshot, or empty if the migration API should be asked instead
+     * (customer not in the snapshot, or no snapshot loaded yet, with live fallback enabled).
+     * Without live fallback a customer missing from the snapshot has no accounts.
+     */
+    public Optional<List<AccountInfo>> lookup(String customerId) {
+        RosterIndex index = active.get();
+        if (index == null) {
+            if (config.isLiveFallback()) {
+                return Optional.empty();
+            }
+            throw new MigrationApiException("Roster snapshot not loaded yet, cannot look up customer: " + customerId);
+        }
+        
+        List<AccountInfo> accounts = index.find(customerId);
+        if (accounts != null) {
+            hits.increment();
+            return Optional.of(accounts);
+        }
+        misses.increment();
+        return config.isLiveFallback() ? Optional.empty() : Optional.of(List.of());
+    }
+    
+    public RosterInfoResponse getInfo() {
+        RosterIndex index = active.get();
+        RosterInfoResponse.RosterInfoResponseBuilder info = RosterInfoResponse.builder()
+                .enabled(config.isEnabled())
+                .liveFallback(config.isLiveFallback());
+        if (index != null) {
+            info.source(index.getSource())
+                    .loadedAt(index.getLoadedAt())
+                    .buildTimeMillis(index.getBuildTime().toMillis())
+                    .customerCount(index.getCustomerCount())
+                    .accountCount(index.getAccountCount())
+                    .indexBytes(index.getSizeBytes());
+        }
+        LocalDateTime errorAt = lastLoadErrorAt;
+        if (errorAt != null && (index == null || errorAt.isAfter(index.getLoadedAt()))) {
+            info.lastLoadError(lastLoadError).lastLoadErrorAt(errorAt);
+        }
+        return info.build();
+    }
+    
+    // Runs on the load thread
+    private void checkSnapshot() {
+        Path snapshot = Path.of(config.getFile());
+        try {
+            if (!Files.isRegularFile(snapshot)) {
+                if (snapshotState == null) {
+                    log.warn("Roster snapshot {} not found", snapshot);
+                    snapshotState = FileState.MISSING;
+                }
+                return;
+            }
+            FileState state = FileState.of(snapshot);
+            if (state.equals(snapshotState)) {
+                return;
+            }
+            snapshotState = state;
+            log.info("Roster snapshot {} changed, indexing", snapshot);
+            activate(loadTimer.recordCallable(() -> RosterIndexBuilder.build(snapshot, newIndexFile("roster"))));
+        } catch (Exception e) {
+            loadFailures.increment();
+            lastLoadError = e.getMessage();
+            lastLoadErrorAt = LocalDateTime.now();
+            RosterIndex current = active.get();
+            log.error("Could not load roster snapshot {}, keeping {}: {}", snapshot,
+                    current != null ? current.getSource() + " from " + current.getLoadedAt() : "live lookups",
+                    e.getMessage());
+        }
+    }
+    
+    private void activate(RosterIndex next) {
+        RosterIndex previous = active.getAndSet(next);
+        log.info("Activated roster snapshot {}: {} customers, {} accounts, {} MB index, built in {} ms",
+                next.getSource(), next.getCustomerCount(), next.getAccountCount(),
+                next.getSizeBytes() >> 20, next.getBuildTime().toMillis());
+        if (previous != null) {
+            loadExecutor.schedule(previous::dispose, config.getRetireDelay().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        activationListeners.forEach(listener -> listener.accept(next));
+    }
+    
+    // New file name in the index directory, unique to this process
+    Path newIndexFile(String prefix) throws IOException {
+        Path directory = Path.of(config.getIndexDirectory() != null
+                ? config.getIndexDirectory()
+                : System.getProperty("java.io.tmpdir"));
+        Files.createDirectories(directory);
+        return directory.resolve(prefix + "-" + ProcessHandle.current().pid() + "-" + indexSequence.incrementAndGet() + ".idx");
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdownNow();
+        RosterIndex index = active.getAndSet(null);
+        if (index != null) {
+            index.dispose();
+        }
+    }
+    
+    private record FileState(long lastModified, long size) {
+        
+        static final FileState MISSING = new FileState(-1, -1);
+        
+        static FileState of(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileState(attributes.lastModifiedTime().toMillis(), attributes.size());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.DroolsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.KieServices;
+import org.kie.api.command.BatchExecutionCommand;
+import org.kie.api.command.Command;
+import org.kie.api.command.KieCommands;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieContainerSessionsPool;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs facts through the migration rules using the sessions defined in kmodule.xml, in the
+ * mode selected by migration.rules.session.mode. All modes are safe to call from any
+ * request thread; only the pooled mode holds on to stateful sessions between calls.
+ * There is one executor per {@link RuleSet}, created and shut down along with it.
+ */
+@Slf4j
+public class RuleSessionExecutor {
+    
+    private static final String RULES_FIRED = "rulesFired";
+    
+    private final KieContainer kieContainer;
+    private final DroolsConfig.Session config;
+    private final KieCommands commands = KieServices.Factory.get().getCommands();
+    
+    private StatelessKieSession statelessSession;
+    private KieContainerSessionsPool sessionsPool;
+    private Semaphore poolPermits;
+    
+    private final Counter poolSaturations;
+    private final Timer poolWait;
+    private final Timer sessionCreate;
+    private final Timer fire;
+    private final DistributionSummary rulesFired;
+    
+    public RuleSessionExecutor(KieContainer kieContainer, DroolsConfig.Session config, MeterRegistry meterRegistry) {
+        this.kieContainer = kieContainer;
+        this.config = config;
+        
+        switch (config.getMode()) {
+            case STATELESS -> statelessSession = kieContainer.newStatelessKieSession(config.getStatelessName());
+            case POOLED -> {
+                sessionsPool = kieContainer.newKieSessionsPool(config.getPoolSize());
+                poolPermits = new Semaphore(config.getPoolSize());
+            }
+            case NEW -> { }
+        }
+        
+        // Shared by the executors of every rule set, registering again returns the existing meter
+        this.poolSaturations = Counter.builder("migration.rules.session.pool.saturated")
+                .description("Evaluations that found no free pooled session within pool-max-wait")
+                .register(meterRegistry);
+        this.poolWait = Timer.builder("migration.rules.session.pool.wait")
+                .description("Time spent waiting for a pooled rule session")
+                .register(meterRegistry);
+        String mode = config.getMode().name().toLowerCase(Locale.ROOT);
+        this.sessionCreate = Timer.builder("migration.rules.session.create")
+                .description("Time to create a rule session, or take one from the pool")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.fire = Timer.builder("migration.rules.fire")
+                .description("Time to insert the facts and fire all rules (stateless: the whole batch execution)")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.rulesFired = DistributionSummary.builder("migration.rules.fired")
+                .description("Rules fired per evaluation")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        log.debug("Rule session mode: {}", config.getMode());
+    }
+    
+    public DroolsConfig.SessionMode getMode() {
+        return config.getMode();
+    }
+    
+    // Pooled sessions currently in use; always 0 outside the pooled mode
+    public int getActiveSessions() {
+        return poolPermits != null ? config.getPoolSize() - poolPermits.availablePermits() : 0;
+    }
+    
+    /**
+     * Inserts the facts into a session of the configured kind and fires all rules.
+     *
+     * @return the number of rules fired
+     */
+    public int execute(Collection<?> facts) {
+        int fired = switch (config.getMode()) {
+            case STATELESS -> executeStateless(facts);
+            case POOLED -> executePooled(facts);
+            case NEW -> fireAll(newKieSession(), facts);
+        };
+        rulesFired.record(fired);
+        return fired;
+    }
+    
+    private int executeStateless(Collection<?> facts) {
+        List<Command<?>> batch = new ArrayList<>(facts.size() + 1);
+        facts.forEach(fact -> batch.add(commands.newInsert(fact)));
+        batch.add(commands.newFireAllRules(RULES_FIRED));
+        
+        BatchExecutionCommand command = commands.newBatchExecution(batch);
+        long start = System.nanoTime();
+        ExecutionResults results = statelessSession.execute(command);
+        fire.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return (Integer) results.getValue(RULES_FIRED);
+    }
+    
+    private int executePooled(Collection<?> facts) {
+        long waitStart = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = poolPermits.tryAcquire(config.getPoolMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        poolWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        
+        if (!acquired) {
+            // Pool exhausted: do not make the request wait any longer, use a throwaway session
+            poolSaturations.increment();
+            log.debug("Rule session pool saturated, using a new session");
+            return fireAll(newKieSession(), facts);
+        }
+        try {
+            // dispose() on a pooled session resets it and hands it back to the pool
+            long start = System.nanoTime();
+            KieSession kieSession = sessionsPool.newKieSession(config.getStatefulName());
+            sessionCreate.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return fireAll(kieSession, facts);
+        } finally {
+            poolPermits.release();
+        }
+    }
+    
+    /**
+     * Fires the rules for one fact in a session of its own with the listener attached, so
+     * the shared sessions never carry it (tracing). Not counted in the session metrics.
+     */
+    public int executeTraced(Object fact, AgendaEventListener listener) {
+        KieSession kieSession = kieContainer.newKieSession(config.getStatefulName());
+        try {
+            kieSession.addEventListener(listener);
+            kieSession.insert(fact);
+            return kieSession.fireAllRules();
+        } finally {
+            kieSession.dispose();
+        }
+    }
+    
+    private KieSession newKieSession() {
+        long start = System.nanoTime();
+        KieSession kieSession = kieContainer.newKieSession(config.getStatefulName());
+        sessionCreate.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return kieSession;
+    }
+    
+    private int fireAll(KieSession kieSession, Collection<?> facts) {
+        long start = System.nanoTime();
+        try {
+            facts.forEach(kieSession::insert);
+            return kieSession.fireAllRules();
+        } finally {
+            fire.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            kieSession.dispose();
+        }
+    }
+    
+    public void shutdown() {
+        if (sessionsPool != null) {
+            sessionsPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.rules.FeatureRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.KieServices;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One compiled rule table and everything evaluated from it: the KieContainer, its rule
+ * sessions and the decision matrix. A request reads the active rule set once and uses it
+ * throughout, so a reload never changes the rules under a request that is already running.
+ * <p>
+ * A request that evaluates holds the rule set (see {@link RuleSetManager#acquire}) and
+ * releases it when done. The manager holds it while it is active; once replaced and
+ * released by its last holder, the KieContainer and sessions are disposed.
+ */
+@Slf4j
+public final class RuleSet {
+    
+    private final String version;
+    private final String source;
+    private final RuleTable.Format format;
+    private final boolean precompiled;
+    private final LocalDateTime compiledAt;
+    private final Duration compileTime;
+    private final ReleaseId releaseId;
+    private final KieContainer kieContainer;
+    private final FeatureRegistry featureRegistry;
+    private final DecisionMatrix decisionMatrix;
+    private final RuleSessionExecutor sessionExecutor;
+    private final int ruleCount;
+    // Holders, counting the manager while this is the active rule set; 0 once disposed
+    private final AtomicInteger references = new AtomicInteger(1);
+    
+    RuleSet(String version, RuleTable table, boolean precompiled, LocalDateTime compiledAt, Duration compileTime,
+            ReleaseId releaseId, KieContainer kieContainer, FeatureRegistry featureRegistry,
+            DecisionMatrix decisionMatrix, RuleSessionExecutor sessionExecutor) {
+        this.version = version;
+        this.source = table.source();
+        this.format = table.format();
+        this.precompiled = precompiled;
+        this.compiledAt = compiledAt;
+        this.compileTime = compileTime;
+        this.releaseId = releaseId;
+        this.kieContainer = kieContainer;
+        this.featureRegistry = featureRegistry;
+        this.decisionMatrix = decisionMatrix;
+        this.sessionExecutor = sessionExecutor;
+        this.ruleCount = kieContainer.getKieBaseNames().stream()
+                .flatMap(name -> kieContainer.getKieBase(name).getKiePackages().stream())
+                .mapToInt(kiePackage -> kiePackage.getRules().size())
+                .sum();
+    }
+    
+    public String getVersion() {
+        return version;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public RuleTable.Format getFormat() {
+        return format;
+    }
+    
+    // Loaded from the build-time artifact rather than compiled at runtime
+    public boolean isPrecompiled() {
+        return precompiled;
+    }
+    
+    // When the rule set was compiled, or loaded if precompiled
+    public LocalDateTime getCompiledAt() {
+        return compiledAt;
+    }
+    
+    public Duration getCompileTime() {
+        return compileTime;
+    }
+    
+    public int getRuleCount() {
+        return ruleCount;
+    }
+    
+    public KieContainer getKieContainer() {
+        return kieContainer;
+    }
+    
+    // Feature columns of the table; contexts evaluated with this rule set must use it
+    public FeatureRegistry getFeatureRegistry() {
+        return featureRegistry;
+    }
+    
+    public DecisionMatrix getDecisionMatrix() {
+        return decisionMatrix;
+    }
+    
+    public RuleSessionExecutor getSessionExecutor() {
+        return sessionExecutor;
+    }
+    
+    // Holds the rule set for one more user; false if it was already disposed
+    boolean retain() {
+        while (true) {
+            int held = references.get();
+            if (held == 0) {
+                return false;
+            }
+            if (references.compareAndSet(held, held + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    // Gives up a hold; the last one disposes the rule set
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            try {
+                dispose();
+                log.debug("Disposed rule version {}", version);
+            } catch (RuntimeException e) {
+                log.warn("Error disposing rule version {}", version, e);
+            }
+        }
+    }
+    
+    // Called once no request can still be using this rule set
+    void dispose() {
+        sessionExecutor.shutdown();
+        kieContainer.dispose();
+        KieServices.Factory.get().getRepository().removeKieModule(releaseId);
+    }
+}
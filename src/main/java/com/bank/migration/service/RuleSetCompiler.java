@@ -0,0 +1,232 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.DroolsConfig;
+import com.bank.migration.exception.RuleCompilationException;
+import com.bank.migration.model.rules.FeatureRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles a decision table into a {@link RuleSet}: builds a KieModule of its own for the
+ * table, then the decision matrix when the table allows it. Any build error is reported as
+ * a {@link RuleCompilationException} and leaves nothing behind. The bundled table can also
+ * be loaded from the artifact {@link com.bank.migration.build.RuleArtifactBuilder} precompiles
+ * during the build.
+ */
+@Service
+@Slf4j
+public class RuleSetCompiler {
+    
+    // KieBuilder only compiles files under src/main/resources of its file system, and only
+    // recognises decision tables by their .drl.xlsx / .drl.csv extension
+    private static final String KIE_RULES_PATH = "src/main/resources/com/bank/migration/rules/migration-rules.drl.";
+    
+    // Knowledge base and session definitions (migrationRulesSession etc.)
+    private static final String KMODULE_PATH = "META-INF/kmodule.xml";
+    
+    // Written by RuleArtifactBuilder: the KieModule jar and the version of the table it was built from
+    public static final String PRECOMPILED_PATH = "rules/migration-rules.kjar";
+    public static final String PRECOMPILED_INFO_PATH = "rules/migration-rules.kjar.properties";
+    
+    private final DroolsConfig droolsConfig;
+    private final MeterRegistry meterRegistry;
+    private final KieServices kieServices = KieServices.Factory.get();
+    private final byte[] kmoduleXml;
+    
+    // Every compile gets its own release so the previous KieModule stays intact until it is retired
+    private final AtomicInteger generation = new AtomicInteger();
+    
+    public RuleSetCompiler(DroolsConfig droolsConfig, MeterRegistry meterRegistry) {
+        this.droolsConfig = droolsConfig;
+        this.meterRegistry = meterRegistry;
+        this.kmoduleXml = readKModuleXml(getClass().getClassLoader());
+    }
+    
+    public RuleSet compile(RuleTable table) {
+        long start = System.nanoTime();
+        LocalDateTime compiledAt = LocalDateTime.now();
+        ReleaseId releaseId = kieServices.newReleaseId(
+                "com.bank.migration", "migration-rules", "1.0." + generation.incrementAndGet());
+        log.info("Compiling decision table {} ({}, version {})", table.source(), table.format(), table.version());
+        
+        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem(kieServices, kmoduleXml, table, releaseId));
+        try {
+            kieBuilder.buildAll();
+        } catch (RuntimeException e) {
+            // Decision table parse errors surface as exceptions rather than build messages
+            kieServices.getRepository().removeKieModule(releaseId);
+            throw new RuleCompilationException("Error building rules from " + table.source() + ": " + e.getMessage(), e);
+        }
+        
+        // Log any errors or warnings during rule compilation
+        if (kieBuilder.getResults().hasMessages(Message.Level.ERROR)) {
+            log.error("Errors building rules: {}", kieBuilder.getResults().toString());
+            kieServices.getRepository().removeKieModule(releaseId);
+            throw new RuleCompilationException("Error building rules from " + table.source() + ": "
+                    + kieBuilder.getResults().toString());
+        }
+        
+        if (kieBuilder.getResults().hasMessages(Message.Level.WARNING)) {
+            log.warn("Warnings building rules: {}", kieBuilder.getResults().toString());
+        }
+        
+        return assemble(table, releaseId, false, compiledAt, start);
+    }
+    
+    /**
+     * Loads the build-time artifact for the given (bundled) table. Empty when there is no
+     * artifact, or it was built from a different table, so the caller compiles instead.
+     */
+    public Optional<RuleSet> loadPrecompiled(RuleTable table) {
+        long start = System.nanoTime();
+        LocalDateTime compiledAt = LocalDateTime.now();
+        ClassLoader classLoader = getClass().getClassLoader();
+        
+        Properties info = new Properties();
+        byte[] kjar;
+        try (InputStream infoIn = classLoader.getResourceAsStream(PRECOMPILED_INFO_PATH);
+             InputStream kjarIn = classLoader.getResourceAsStream(PRECOMPILED_PATH)) {
+            if (infoIn == null || kjarIn == null) {
+                log.info("No precompiled rules on the classpath, compiling {}", table.source());
+                return Optional.empty();
+            }
+            info.load(infoIn);
+            kjar = kjarIn.readAllBytes();
+        } catch (IOException e) {
+            log.warn("Could not read precompiled rules, compiling {}", table.source(), e);
+            return Optional.empty();
+        }
+        
+        if (!table.version().equals(info.getProperty("version"))) {
+            log.warn("Precompiled rules are for version {} but {} is version {}, compiling it instead",
+                    info.getProperty("version"), table.source(), table.version());
+            return Optional.empty();
+        }
+        
+        ReleaseId releaseId;
+        try {
+            releaseId = kieServices.getRepository()
+                    .addKieModule(kieServices.getResources().newByteArrayResource(kjar))
+                    .getReleaseId();
+        } catch (RuntimeException e) {
+            log.warn("Could not load precompiled rules, compiling {}", table.source(), e);
+            return Optional.empty();
+        }
+        
+        try {
+            return Optional.of(assemble(table, releaseId, true, compiledAt, start));
+        } catch (RuleCompilationException e) {
+            log.warn("Precompiled rules unusable ({}), compiling {}", e.getMessage(), table.source());
+            return Optional.empty();
+        }
+    }
+    
+    // Container, sessions and decision matrix for a KieModule that is already in the repository
+    private RuleSet assemble(RuleTable table, ReleaseId releaseId, boolean precompiled,
+                             LocalDateTime compiledAt, long start) {
+        List<List<String>> rows;
+        FeatureRegistry featureRegistry;
+        try {
+            rows = table.rows();
+            featureRegistry = FeatureRegistryReader.read(table, rows);
+        } catch (RuntimeException e) {
+            kieServices.getRepository().removeKieModule(releaseId);
+            throw e instanceof RuleCompilationException ruleCompilationException ? ruleCompilationException
+                    : new RuleCompilationException("Error reading feature columns from " + table.source(), e);
+        }
+        
+        KieContainer kieContainer;
+        RuleSessionExecutor sessionExecutor;
+        try {
+            kieContainer = kieServices.newKieContainer(releaseId);
+        } catch (RuntimeException e) {
+            kieServices.getRepository().removeKieModule(releaseId);
+            throw new RuleCompilationException("Error loading rules from " + table.source(), e);
+        }
+        try {
+            sessionExecutor = new RuleSessionExecutor(kieContainer, droolsConfig.getSession(), meterRegistry);
+        } catch (RuntimeException e) {
+            // e.g. a session name missing from kmodule.xml
+            kieContainer.dispose();
+            kieServices.getRepository().removeKieModule(releaseId);
+            throw new RuleCompilationException("Error creating rule sessions for " + table.source(), e);
+        }
+        DecisionMatrix decisionMatrix = decisionMatrix(table, rows, featureRegistry, kieContainer);
+        
+        RuleSet ruleSet = new RuleSet(table.version(), table, precompiled, compiledAt,
+                Duration.ofNanos(System.nanoTime() - start), releaseId, kieContainer, featureRegistry,
+                decisionMatrix, sessionExecutor);
+        if (ruleSet.getRuleCount() == 0) {
+            // A table the parser did not recognise builds cleanly into an empty knowledge base
+            ruleSet.dispose();
+            throw new RuleCompilationException("No rules found in " + table.source());
+        }
+        log.info("Successfully loaded migration rules decision table: {} rules, {} features, version {}, {} in {} ms",
+                ruleSet.getRuleCount(), featureRegistry.size(), ruleSet.getVersion(),
+                precompiled ? "precompiled" : "compiled", ruleSet.getCompileTime().toMillis());
+        return ruleSet;
+    }
+    
+    private DecisionMatrix decisionMatrix(RuleTable table, List<List<String>> rows, FeatureRegistry featureRegistry,
+                                          KieContainer kieContainer) {
+        if (!droolsConfig.isDecisionMatrixEnabled()) {
+            return DecisionMatrix.unsupported("disabled by configuration");
+        }
+        if (table.format() != RuleTable.Format.CSV) {
+            return DecisionMatrix.unsupported("Excel decision tables are not compiled");
+        }
+        
+        DecisionMatrix decisionMatrix = DecisionMatrixCompiler.compile(rows, featureRegistry);
+        if (!decisionMatrix.isCompiled()) {
+            log.info("Decision matrix not compiled ({}), using Drools sessions", decisionMatrix.getUnsupportedReason());
+            return decisionMatrix;
+        }
+        
+        // Self-check: both paths must agree before the fast path is trusted
+        List<String> mismatches = DecisionMatrixVerifier.verify(decisionMatrix, featureRegistry, kieContainer);
+        if (!mismatches.isEmpty()) {
+            log.error("Decision matrix disagrees with Drools in {} case(s), using Drools sessions: {}",
+                    mismatches.size(), mismatches);
+            return DecisionMatrix.unsupported("self-check failed");
+        }
+        
+        log.info("Compiled decision matrix with {} rules, verified against Drools", decisionMatrix.getRuleCount());
+        return decisionMatrix;
+    }
+    
+    public static KieFileSystem kieFileSystem(KieServices kieServices, byte[] kmoduleXml, RuleTable table, ReleaseId releaseId) {
+        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+        kieFileSystem.generateAndWritePomXML(releaseId);
+        kieFileSystem.writeKModuleXML(kmoduleXml);
+        kieFileSystem.write(KIE_RULES_PATH + table.format().getExtension(), table.content());
+        return kieFileSystem;
+    }
+    
+    public static byte[] readKModuleXml(ClassLoader classLoader) {
+        try (InputStream kmodule = classLoader.getResourceAsStream(KMODULE_PATH)) {
+            if (kmodule == null) {
+                throw new IllegalStateException("Missing " + KMODULE_PATH);
+            }
+            return kmodule.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + KMODULE_PATH, e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.DroolsConfig;
+import com.bank.migration.exception.RuleCompilationException;
+import com.bank.migration.model.dto.RuleSetInfoResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the active {@link RuleSet} and replaces it without a restart, either from an
+ * uploaded rule table or when the watched rule file changes. New tables are compiled on a
+ * background thread and swapped in atomically; a table that does not compile leaves the
+ * active rules untouched. A replaced rule set is disposed as soon as the last request
+ * that acquired it releases it.
+ */
+@Service
+@Slf4j
+public class RuleSetManager {
+    
+    private final RuleSetCompiler compiler;
+    private final DroolsConfig.Reload config;
+    private final AtomicReference<RuleSet> active = new AtomicReference<>();
+    
+    // Compiles and file polling run here, one at a time
+    private final ScheduledExecutorService reloadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rules-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final Timer compileTimer;
+    private final Counter reloadSuccesses;
+    private final Counter reloadFailures;
+    
+    private volatile FileState watchedFileState;
+    private volatile String lastReloadError;
+    private volatile LocalDateTime lastReloadErrorAt;
+    
+    public RuleSetManager(RuleSetCompiler compiler, DroolsConfig droolsConfig, MeterRegistry meterRegistry) {
+        this.compiler = compiler;
+        this.config = droolsConfig.getReload();
+        
+        this.compileTimer = Timer.builder("migration.rules.compile")
+                .description("Time to compile a rule table into a rule set")
+                .register(meterRegistry);
+        this.reloadSuccesses = Counter.builder("migration.rules.reload")
+                .description("Rule table reloads")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.reloadFailures = Counter.builder("migration.rules.reload")
+                .description("Rule table reloads")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        
+        // A broken rule table at startup is still fatal, there is nothing to fall back to
+        active.set(initialRuleSet(droolsConfig.isPrecompiledEnabled()));
+        
+        Gauge.builder("migration.rules.session.pool.active", active, rules -> rules.get().getSessionExecutor().getActiveSessions())
+                .description("Pooled rule sessions currently in use")
+                .register(meterRegistry);
+        Gauge.builder("migration.rules.session.pool.size", droolsConfig.getSession(), DroolsConfig.Session::getPoolSize)
+                .description("Maximum number of pooled rule sessions")
+                .register(meterRegistry);
+        
+        if (config.getWatchFile() != null) {
+            long interval = config.getPollInterval().toMillis();
+            reloadExecutor.scheduleWithFixedDelay(this::checkWatchedFile, interval, interval, TimeUnit.MILLISECONDS);
+            log.info("Watching rule table {} every {}", config.getWatchFile(), config.getPollInterval());
+        }
+    }
+    
+    // The active rule set, for its version, features or window sizes; evaluating needs acquire()
+    public RuleSet current() {
+        return active.get();
+    }
+    
+    /**
+     * The active rule set, held until the caller calls {@link RuleSet#release}: it is not
+     * disposed in the meantime, even if a reload replaces it.
+     */
+    public RuleSet acquire() {
+        while (true) {
+            RuleSet ruleSet = active.get();
+            if (ruleSet.retain()) {
+                return ruleSet;
+            }
+            // Replaced and released by its last holder since it was read; the next read gets its successor
+        }
+    }
+    
+    /**
+     * Compiles the table in the background and makes it the active rule set.
+     * Blocks until the table is active, or throws if it was rejected.
+     */
+    public RuleSet reload(RuleTable table) {
+        Future<RuleSet> reload = reloadExecutor.submit(() -> activate(table));
+        try {
+            return reload.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuleCompilationException("Rule reload failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuleCompilationException("Interrupted while reloading rules", e);
+        }
+    }
+    
+    public RuleSetInfoResponse getInfo() {
+        RuleSet ruleSet = active.get();
+        DecisionMatrix decisionMatrix = ruleSet.getDecisionMatrix();
+        LocalDateTime errorAt = lastReloadErrorAt;
+        boolean errorIsRecent = errorAt != null && errorAt.isAfter(ruleSet.getCompiledAt());
+        
+        return RuleSetInfoResponse.builder()
+                .version(ruleSet.getVersion())
+                .source(ruleSet.getSource())
+                .format(ruleSet.getFormat().getExtension())
+                .compiledAt(ruleSet.getCompiledAt())
+                .compileTimeMillis(ruleSet.getCompileTime().toMillis())
+                .ruleCount(ruleSet.getRuleCount())
+                .precompiled(ruleSet.isPrecompiled())
+                .features(ruleSet.getFeatureRegistry().getFeatures())
+                .evaluator(decisionMatrix.isCompiled()
+                        ? "decision-matrix"
+                        : "drools-" + ruleSet.getSessionExecutor().getMode().name().toLowerCase())
+                .decisionMatrixUnsupportedReason(decisionMatrix.getUnsupportedReason())
+                .lastReloadError(errorIsRecent ? lastReloadError : null)
+                .lastReloadErrorAt(errorIsRecent ? errorAt : null)
+                .build();
+    }
+    
+    // Runs on the reload thread
+    private RuleSet activate(RuleTable table) {
+        RuleSet next;
+        try {
+            next = compileTimed(table);
+        } catch (RuntimeException e) {
+            reloadFailures.increment();
+            lastReloadError = e.getMessage();
+            lastReloadErrorAt = LocalDateTime.now();
+            log.error("Rejected rule table {}, keeping version {}: {}", table.source(), active.get().getVersion(), e.getMessage());
+            throw e instanceof RuleCompilationException ? e : new RuleCompilationException(e.getMessage(), e);
+        }
+        
+        RuleSet previous = active.getAndSet(next);
+        reloadSuccesses.increment();
+        log.info("Activated rule version {} from {} (previous version {})",
+                next.getVersion(), next.getSource(), previous.getVersion());
+        
+        // Disposed now, or by the last request still holding it
+        previous.release();
+        return next;
+    }
+    
+    private RuleSet compileTimed(RuleTable table) {
+        return compileTimer.record(() -> compiler.compile(table));
+    }
+    
+    private void checkWatchedFile() {
+        Path path = Path.of(config.getWatchFile());
+        try {
+            if (!Files.isRegularFile(path)) {
+                return;
+            }
+            FileState state = FileState.of(path);
+            if (state.equals(watchedFileState)) {
+                return;
+            }
+            watchedFileState = state;
+            log.info("Rule table {} changed, reloading", path);
+            activate(readTable(path));
+        } catch (IOException e) {
+            log.warn("Could not read rule table {}", path, e);
+        } catch (RuntimeException e) {
+            // Already logged by activate(); the old rules stay active until the file changes again
+        }
+    }
+    
+    // The bundled table comes precompiled from the build; anything else is compiled here
+    private RuleSet initialRuleSet(boolean precompiledEnabled) {
+        RuleTable table = initialTable();
+        if (precompiledEnabled && watchedFileState == null) {
+            Optional<RuleSet> precompiled = compiler.loadPrecompiled(table);
+            if (precompiled.isPresent()) {
+                return precompiled.get();
+            }
+        }
+        return compileTimed(table);
+    }
+    
+    private RuleTable initialTable() {
+        if (config.getWatchFile() != null) {
+            Path path = Path.of(config.getWatchFile());
+            if (Files.isRegularFile(path)) {
+                try {
+                    watchedFileState = FileState.of(path);
+                    return readTable(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error reading rule table " + path, e);
+                }
+            }
+            log.warn("Watched rule table {} not found, starting with the bundled rules", path);
+        }
+        
+        // Load Excel file if present, fallback to CSV
+        RuleTable table = RuleTable.bundled(getClass().getClassLoader());
+        log.info("Loading decision table from: {}", table.source());
+        return table;
+    }
+    
+    private static RuleTable readTable(Path path) throws IOException {
+        return new RuleTable(path.toString(), RuleTable.Format.fromFileName(path.getFileName().toString()),
+                Files.readAllBytes(path));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+        active.get().release();
+    }
+    
+    private record FileState(long lastModified, long size) {
+        
+        static FileState of(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileState(attributes.lastModifiedTime().toMillis(), attributes.size());
+        }
+    }
+}
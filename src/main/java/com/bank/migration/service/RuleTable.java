@@ -0,0 +1,154 @@
+package com.bank.migration.service;
+
+import com.bank.migration.exception.RuleCompilationException;
+import org.drools.decisiontable.parser.csv.CsvLineParser;
+import org.drools.decisiontable.parser.xls.ExcelParser;
+import org.drools.template.parser.DataListener;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A decision table to compile: where it came from, whether it is CSV or Excel, and its bytes.
+ */
+public record RuleTable(String source, Format format, byte[] content) {
+    
+    // Excel decision table - business users can easily modify this file
+    static final String RULES_EXCEL_PATH = "rules/migration-rules.xlsx";
+    
+    // Fallback to CSV if XLSX not available (CSV can be opened in Excel)
+    static final String RULES_CSV_PATH = "rules/migration-rules.csv";
+    
+    public enum Format {
+        CSV("csv"),
+        XLSX("xlsx");
+        
+        private final String extension;
+        
+        Format(String extension) {
+            this.extension = extension;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+        
+        public static Format fromFileName(String fileName) {
+            String name = fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".xlsx")) {
+                return XLSX;
+            }
+            throw new IllegalArgumentException("Unsupported rule table file: " + fileName + " (expected .csv or .xlsx)");
+        }
+    }
+    
+    /**
+     * The table shipped on the classpath: the Excel file if present, otherwise the CSV.
+     */
+    public static RuleTable bundled(ClassLoader classLoader) {
+        if (classLoader.getResource(RULES_EXCEL_PATH) != null) {
+            return fromClasspath(classLoader, RULES_EXCEL_PATH, Format.XLSX);
+        }
+        return fromClasspath(classLoader, RULES_CSV_PATH, Format.CSV);
+    }
+    
+    private static RuleTable fromClasspath(ClassLoader classLoader, String resource, Format format) {
+        try (InputStream in = classLoader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing " + resource);
+            }
+            return new RuleTable("classpath:" + resource, format, in.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + resource, e);
+        }
+    }
+    
+    /**
+     * The cells of the table row by row, as the Drools decision table parsers read them.
+     * Missing cells at the end of a row are left out. A workbook must hold the table in a
+     * single sheet: Drools would compile every sheet, and rows of later sheets would land
+     * on top of the first sheet's here.
+     */
+    public List<List<String>> rows() {
+        return switch (format) {
+            case CSV -> csvRows();
+            case XLSX -> excelRows();
+        };
+    }
+    
+    private List<List<String>> csvRows() {
+        CsvLineParser parser = new CsvLineParser();
+        List<List<String>> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new StringReader(new String(content, StandardCharsets.UTF_8)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // The parser reuses its result list between lines
+                rows.add(new ArrayList<>(parser.parse(line)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + source, e);
+        }
+        return rows;
+    }
+    
+    private List<List<String>> excelRows() {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> sheets = new ArrayList<>();
+        new ExcelParser(new DataListener() {
+            @Override
+            public void startSheet(String name) {
+                sheets.add(name);
+            }
+            
+            @Override
+            public void finishSheet() {
+            }
+            
+            @Override
+            public void newRow(int rowNumber, int columns) {
+                while (rows.size() <= rowNumber) {
+                    rows.add(new ArrayList<>());
+                }
+            }
+            
+            @Override
+            public void newCell(int row, int column, String value, int mergedColStart) {
+                List<String> cells = rows.get(row);
+                while (cells.size() <= column) {
+                    cells.add(null);
+                }
+                cells.set(column, value);
+            }
+        }).parseFile(new ByteArrayInputStream(content));
+        if (sheets.size() > 1) {
+            throw new RuleCompilationException("Rule table " + source + " has " + sheets.size()
+                    + " sheets " + sheets + "; keep the table in a single sheet");
+        }
+        return rows;
+    }
+    
+    // Content hash, so the same table has the same version on every instance
+    public String version() {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
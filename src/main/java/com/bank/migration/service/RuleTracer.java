@@ -0,0 +1,222 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.DroolsConfig;
+import com.bank.migration.model.dto.FeatureStatus;
+import com.bank.migration.model.dto.RuleTrace;
+import com.bank.migration.model.dto.RuleTraceResponse;
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import com.bank.migration.model.rules.FeatureDecisions;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sampled tracing of rule evaluations: which decision table rows (rules) match, how often,
+ * and how long they take, plus a ring buffer of the latest sampled evaluations. Sampled
+ * contexts are evaluated on their own, with a row listener on the decision matrix or an
+ * agenda listener on a Drools session of their own; the rest are evaluated as usual. While
+ * tracing is off, the only cost is reading the enabled flag once per evaluation call.
+ * Switched by configuration only; the ruletrace actuator endpoint reads and clears traces.
+ * <p>
+ * Traces do not hold customer or account IDs, only a keyed hash of them (customerRef,
+ * accountRef): the same ID gets the same ref until a restart, so traces of one customer
+ * can be told apart, but the IDs cannot be read or guessed back from them.
+ */
+@Service
+@Slf4j
+public class RuleTracer {
+    
+    private static final String HASH_ALGORITHM = "HmacSHA256";
+    
+    private final Clock clock;
+    private final boolean enabled;
+    private final double sampleRate;
+    // Random per process, so refs cannot be computed from a list of known IDs
+    private final SecretKeySpec refKey;
+    
+    private volatile AtomicReferenceArray<RuleTrace> traces;
+    private final AtomicLong traceCount = new AtomicLong();
+    private final Map<String, RuleStats> ruleStats = new ConcurrentHashMap<>();
+    
+    public RuleTracer(DroolsConfig droolsConfig, Clock clock) {
+        DroolsConfig.Trace config = droolsConfig.getTrace();
+        this.clock = clock;
+        this.enabled = config.isEnabled();
+        this.sampleRate = config.getSampleRate();
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("migration.rules.trace.sample-rate must be between 0 and 1");
+        }
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.refKey = new SecretKeySpec(key, HASH_ALGORITHM);
+        this.traces = new AtomicReferenceArray<>(Math.max(1, config.getBufferSize()));
+        if (enabled) {
+            log.info("Rule tracing enabled (sample rate: {})", sampleRate);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void reset() {
+        traces = new AtomicReferenceArray<>(traces.length());
+        traceCount.set(0);
+        ruleStats.clear();
+    }
+    
+    /**
+     * Evaluates the sampled contexts traced.
+     *
+     * @return the contexts that were not sampled, still to be evaluated
+     */
+    public Collection<CustomerMigrationContext> evaluateSampled(RuleSet ruleSet, Collection<CustomerMigrationContext> contexts) {
+        List<CustomerMigrationContext> rest = new ArrayList<>(contexts.size());
+        for (CustomerMigrationContext context : contexts) {
+            if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                evaluateTraced(ruleSet, context);
+            } else {
+                rest.add(context);
+            }
+        }
+        return rest;
+    }
+    
+    public RuleTraceResponse getInfo() {
+        List<RuleTrace> latest = new ArrayList<>();
+        AtomicReferenceArray<RuleTrace> buffer = traces;
+        long count = traceCount.get();
+        for (long i = count - 1; i >= 0 && i >= count - buffer.length(); i--) {
+            RuleTrace trace = buffer.get((int) (i % buffer.length()));
+            if (trace != null) {
+                latest.add(trace);
+            }
+        }
+        List<RuleTraceResponse.RuleStats> rules = new ArrayList<>();
+        ruleStats.forEach((rule, stats) -> {
+            long fired = stats.fired.sum();
+            long micros = TimeUnit.NANOSECONDS.toMicros(stats.nanos.sum());
+            rules.add(RuleTraceResponse.RuleStats.builder()
+                    .rule(rule)
+                    .fired(fired)
+                    .totalMicros(micros)
+                    .meanMicros(fired > 0 ? (double) micros / fired : 0)
+                    .build());
+        });
+        rules.sort(Comparator.comparingLong(RuleTraceResponse.RuleStats::getFired).reversed());
+        return RuleTraceResponse.builder()
+                .enabled(enabled)
+                .sampleRate(sampleRate)
+                .tracedEvaluations(count)
+                .rules(rules)
+                .traces(latest)
+                .build();
+    }
+    
+    private void evaluateTraced(RuleSet ruleSet, CustomerMigrationContext context) {
+        List<String> matchedRows = new ArrayList<>();
+        DecisionMatrix decisionMatrix = ruleSet.getDecisionMatrix();
+        String engine;
+        long start = System.nanoTime();
+        if (decisionMatrix.isCompiled()) {
+            engine = "matrix";
+            decisionMatrix.evaluate(context, (row, nanos) -> {
+                matchedRows.add(row);
+                record(row, nanos);
+            });
+        } else {
+            engine = "drools";
+            ruleSet.getSessionExecutor().executeTraced(context, new DefaultAgendaEventListener() {
+                private long fireStart;
+                
+                @Override
+                public void beforeMatchFired(BeforeMatchFiredEvent event) {
+                    fireStart = System.nanoTime();
+                }
+                
+                @Override
+                public void afterMatchFired(AfterMatchFiredEvent event) {
+                    String rule = event.getMatch().getRule().getName();
+                    matchedRows.add(rule);
+                    record(rule, System.nanoTime() - fireStart);
+                }
+            });
+        }
+        long duration = System.nanoTime() - start;
+        
+        RuleTrace trace = RuleTrace.builder()
+                .customerRef(ref(context.getCustomerId()))
+                .accountRef(ref(context.getAccountId()))
+                .evaluatedAt(LocalDateTime.now(clock))
+                .ruleVersion(ruleSet.getVersion())
+                .engine(engine)
+                .customerStatus(context.getCustomerStatus())
+                .matchedRows(matchedRows)
+                .decisions(decided(context.getDecisions()))
+                .durationMicros(TimeUnit.NANOSECONDS.toMicros(duration))
+                .build();
+        AtomicReferenceArray<RuleTrace> buffer = traces;
+        buffer.set((int) (traceCount.getAndIncrement() % buffer.length()), trace);
+    }
+    
+    // First 8 bytes of the keyed hash, as hex; null for no ID
+    private String ref(String id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance(HASH_ALGORITHM);
+            mac.init(refKey);
+            return HexFormat.of().formatHex(mac.doFinal(id.getBytes(StandardCharsets.UTF_8)), 0, 8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+    
+    private void record(String rule, long nanos) {
+        RuleStats stats = ruleStats.computeIfAbsent(rule, name -> new RuleStats());
+        stats.fired.increment();
+        stats.nanos.add(nanos);
+    }
+    
+    private static List<FeatureStatus> decided(FeatureDecisions decisions) {
+        List<FeatureStatus> decided = new ArrayList<>();
+        for (int featureId = 0; featureId < decisions.getRegistry().size(); featureId++) {
+            if (decisions.isDecided(featureId)) {
+                decided.add(FeatureStatus.builder()
+                        .feature(decisions.getRegistry().nameOf(featureId))
+                        .enabled(decisions.isEnabled(featureId))
+                        .reasonCode(decisions.getReasonName(featureId))
+                        .build());
+            }
+        }
+        return decided;
+    }
+    
+    private static final class RuleStats {
+        private final LongAdder fired = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+}
@@ -0,0 +1,100 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.model.migration.AccountInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * De-duplicates concurrent migration API lookups: callers asking for a customer that is
+ * already being fetched wait for that call and share its accounts or its exception.
+ * A successful result can optionally be kept for a short linger window after the call
+ * completes, so requests arriving just after it (other channels at cutover) reuse it too.
+ */
+@Service
+@Slf4j
+public class SingleFlightAccountLoader {
+    
+    private final MigrationApiClient migrationApiClient;
+    private final MigrationApiConfig.Coalescing config;
+    private final Map<String, CompletableFuture<List<AccountInfo>>> flights = new ConcurrentHashMap<>();
+    
+    private final Counter upstreamCalls;
+    private final Counter collapsedCalls;
+    
+    public SingleFlightAccountLoader(MigrationApiClient migrationApiClient,
+                                     MigrationApiConfig migrationApiConfig,
+                                     MeterRegistry meterRegistry) {
+        this.migrationApiClient = migrationApiClient;
+        this.config = migrationApiConfig.getCoalescing();
+        
+        this.upstreamCalls = Counter.builder("migration.api.coalescing.calls")
+                .description("Account lookups that went to the migration API")
+                .tag("outcome", "upstream")
+                .register(meterRegistry);
+        this.collapsedCalls = Counter.builder("migration.api.coalescing.calls")
+                .description("Account lookups that shared an in-flight or lingering call")
+                .tag("outcome", "collapsed")
+                .register(meterRegistry);
+        Gauge.builder("migration.api.coalescing.inflight", flights, Map::size)
+                .description("Customers with an in-flight or lingering migration API call")
+                .register(meterRegistry);
+        log.info("Migration API call coalescing enabled: {} (linger: {})", config.isEnabled(), config.getLinger());
+    }
+    
+    public List<AccountInfo> getAccountStatuses(String customerId) {
+        if (!config.isEnabled()) {
+            return migrationApiClient.getAccountStatuses(customerId);
+        }
+        
+        CompletableFuture<List<AccountInfo>> flight = new CompletableFuture<>();
+        CompletableFuture<List<AccountInfo>> inFlight = flights.putIfAbsent(customerId, flight);
+        if (inFlight != null) {
+            collapsedCalls.increment();
+            log.debug("Joining in-flight migration API call for customer: {}", customerId);
+            return await(inFlight);
+        }
+        
+        upstreamCalls.increment();
+        try {
+            flight.complete(List.copyOf(migrationApiClient.getAccountStatuses(customerId)));
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+        } finally {
+            land(customerId, flight);
+        }
+        return await(flight);
+    }
+    
+    // Failures are dropped straight away so the next caller retries; results may linger
+    private void land(String customerId, CompletableFuture<List<AccountInfo>> flight) {
+        if (flight.isCompletedExceptionally() || config.getLinger().isZero()) {
+            flights.remove(customerId, flight);
+            return;
+        }
+        CompletableFuture.runAsync(() -> flights.remove(customerId, flight),
+                CompletableFuture.delayedExecutor(config.getLinger().toNanos(), TimeUnit.NANOSECONDS));
+    }
+    
+    // Rethrows the leader's exception as is, so MigrationApiException still reaches the caller
+    private static List<AccountInfo> await(CompletableFuture<List<AccountInfo>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.AccountEventsConfig;
+import com.bank.migration.model.migration.AccountStatusEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Local stand-in for an event queue: picks up *.ndjson files of account status events, one
+ * event per line, from migration.events.spool.directory in name order, and delivers them in
+ * batches. Producers should write under another name and rename, so no file is read half
+ * written. A file is renamed to .done once all its events are applied, or to .failed when a
+ * line cannot be read or a batch is rejected; batches delivered before that stay applied.
+ */
+@Service
+@Slf4j
+public class SpoolDirectoryEventSource implements AccountEventSource {
+    
+    private final AccountEventsConfig.Spool config;
+    private final ObjectMapper objectMapper;
+    private ScheduledExecutorService poller;
+    
+    public SpoolDirectoryEventSource(AccountEventsConfig accountEventsConfig, ObjectMapper objectMapper) {
+        this.config = accountEventsConfig.getSpool();
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+    
+    @Override
+    public synchronized void start(Consumer<List<AccountStatusEvent>> sink) {
+        if (config.getDirectory() == null) {
+            throw new IllegalStateException("migration.events.spool.enabled requires migration.events.spool.directory");
+        }
+        Path directory = Paths.get(config.getDirectory());
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-spool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getPollInterval().toMillis();
+        poller.scheduleWithFixedDelay(() -> poll(directory, sink), 0, interval, TimeUnit.MILLISECONDS);
+        log.info("Reading account status events from {} every {}", directory, config.getPollInterval());
+    }
+    
+    @Override
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+    
+    private void poll(Path directory, Consumer<List<AccountStatusEvent>> sink) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.ndjson")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.warn("Cannot list event spool directory {}: {}", directory, e.getMessage());
+            return;
+        }
+        files.sort(null);
+        for (Path file : files) {
+            boolean applied = read(file, sink);
+            finish(file, applied ? ".done" : ".failed");
+        }
+    }
+    
+    private boolean read(Path file, Consumer<List<AccountStatusEvent>> sink) {
+        int lineNumber = 0;
+        int events = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<AccountStatusEvent> batch = new ArrayList<>(config.getBatchSize());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(objectMapper.readValue(line, AccountStatusEvent.class));
+                if (batch.size() == config.getBatchSize()) {
+                    sink.accept(batch);
+                    events += batch.size();
+                    batch = new ArrayList<>(config.getBatchSize());
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+                events += batch.size();
+            }
+            log.info("Delivered {} account status events from {}", events, file.getFileName());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Event file {} failed at line {} after {} events: {}", file.getFileName(), lineNumber, events, e.getMessage());
+            return false;
+        }
+    }
+    
+    private static void finish(Path file, String suffix) {
+        try {
+            Files.move(file, file.resolveSibling(file.getFileName() + suffix), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Cannot rename event file {}; it will be read again: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.PrewarmConfig;
+import com.bank.migration.model.dto.PrewarmInfoResponse;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.rules.AccountSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Warms the decision cache ahead of migration window boundaries. At a boundary the
+ * decisions of every customer migrating on that date flip at once, and every channel asks
+ * again. Boundaries come from the configured wave dates and the dates in the roster snapshot.
+ * <p>
+ * lead-time before each boundary, a pass finds the customers with a window boundary at that
+ * time among those the service holds accounts for: the roster, the event-maintained store and
+ * recent migration API reads. It reads their accounts again and makes their decisions as of
+ * the boundary, at rate-per-second. The decisions take over in {@link FeatureDecisionCache}
+ * when the boundary passes. Customers not reached by then are left to live traffic.
+ */
+@Service
+@Slf4j
+public class WavePrewarmScheduler {
+    
+    private static final int PASS_HISTORY = 10;
+    
+    private final PrewarmConfig config;
+    private final FeatureDecisionService featureDecisionService;
+    private final RuleSetManager ruleSetManager;
+    private final RosterStore rosterStore;
+    private final CustomerAccountStore customerAccountStore;
+    private final AccountStatusCache accountStatusCache;
+    private final Clock clock;
+    
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wave-prewarm-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService workers;
+    
+    private final Timer passTimer;
+    private final Counter warmedCustomers;
+    private final Counter failedCustomers;
+    private final Counter notReachedCustomers;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile SortedSet<LocalDate> rosterDates = new TreeSet<>();
+    private volatile LocalDateTime lastBoundary;
+    private volatile Pass current;
+    private final Deque<PrewarmInfoResponse.Pass> passes = new ArrayDeque<>();
+    
+    public WavePrewarmScheduler(PrewarmConfig config,
+                                FeatureDecisionService featureDecisionService,
+                                RuleSetManager ruleSetManager,
+                                RosterStore rosterStore,
+                                CustomerAccountStore customerAccountStore,
+                                AccountStatusCache accountStatusCache,
+                                Clock clock,
+                                MeterRegistry meterRegistry) {
+        this.config = config;
+        this.featureDecisionService = featureDecisionService;
+        this.ruleSetManager = ruleSetManager;
+        this.rosterStore = rosterStore;
+        this.customerAccountStore = customerAccountStore;
+        this.accountStatusCache = accountStatusCache;
+        this.clock = clock;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(config.getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "wave-prewarm-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        this.passTimer = Timer.builder("migration.prewarm.pass")
+                .description("Time to warm the customers of one window boundary")
+                .register(meterRegistry);
+        this.warmedCustomers = counter(meterRegistry, "warmed");
+        this.failedCustomers = counter(meterRegistry, "failed");
+        this.notReachedCustomers = counter(meterRegistry, "not_reached");
+        
+        if (config.isEnabled()) {
+            rosterStore.addActivationListener(index -> scheduler.execute(() -> collectRosterDates(index)));
+            scheduler.execute(() -> {
+                RosterIndex rosterIndex = rosterStore.current();
+                if (rosterIndex != null) {
+                    collectRosterDates(rosterIndex);
+                }
+            });
+            long interval = config.getCheckInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+            log.info("Decision pre-warming enabled (lead time: {}, {} customers/sec, wave dates: {})",
+                    config.getLeadTime(), config.getRatePerSecond(), config.getWaveDates());
+        }
+    }
+    
+    // Starts a pass for the next boundary now, however far off it is; false if a pass is running
+    public boolean trigger() {
+        if (running.get()) {
+            return false;
+        }
+        scheduler.execute(() -> {
+            LocalDateTime boundary = nextBoundary(LocalDateTime.now(clock));
+            if (boundary != null) {
+                warm(boundary);
+            }
+        });
+        return true;
+    }
+    
+    public PrewarmInfoResponse getInfo() {
+        LocalDateTime boundary = nextBoundary(LocalDateTime.now(clock));
+        Pass pass = current;
+        PrewarmInfoResponse.PrewarmInfoResponseBuilder info = PrewarmInfoResponse.builder()
+                .enabled(config.isEnabled())
+                .migrationDates(new ArrayList<>(migrationDates()))
+                .nextBoundary(boundary)
+                .nextPassAt(boundary != null ? boundary.minus(config.getLeadTime()) : null)
+                .current(pass != null ? pass.toInfo(LocalDateTime.now(clock), false) : null);
+        synchronized (passes) {
+            info.passes(new ArrayList<>(passes));
+        }
+        return info.build();
+    }
+    
+    // Runs on the scheduler thread
+    private void check() {
+        try {
+            LocalDateTime now = LocalDateTime.now(clock);
+            LocalDateTime boundary = nextBoundary(now);
+            if (boundary != null && !boundary.equals(lastBoundary) && !now.isBefore(boundary.minus(config.getLeadTime()))) {
+                warm(boundary);
+            }
+        } catch (RuntimeException e) {
+            log.error("Decision pre-warming failed: {}", e.getMessage(), e);
+        }
+    }
+    
+    private void warm(LocalDateTime boundary) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastBoundary = boundary;
+            List<String> customerIds = affectedCustomers(boundary);
+            Pass pass = new Pass(boundary, LocalDateTime.now(clock), customerIds.size());
+            current = pass;
+            log.info("Pre-warming decisions of {} customers for the window boundary at {}", customerIds.size(), boundary);
+            
+            long start = System.nanoTime();
+            runWorkers(customerIds, pass);
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            passTimer.record(duration);
+            
+            PrewarmInfoResponse.Pass finished = pass.toInfo(LocalDateTime.now(clock), true);
+            synchronized (passes) {
+                passes.addFirst(finished);
+                if (passes.size() > PASS_HISTORY) {
+                    passes.removeLast();
+                }
+            }
+            log.info("Pre-warmed {} of {} customers for {} in {} ms ({} failed, {} not reached before the boundary)",
+                    finished.getWarmed(), finished.getCustomers(), boundary, duration.toMillis(),
+                    finished.getFailed(), finished.getNotReached());
+        } finally {
+            current = null;
+            running.set(false);
+        }
+    }
+    
+    // Workers take customers in turn; starts are paced to rate-per-second across all of them.
+    // Once the boundary has passed, the first worker to notice takes every customer left at once.
+    private void runWorkers(List<String> customerIds, Pass pass) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.getRatePerSecond());
+        AtomicLong nextStart = new AtomicLong(System.nanoTime());
+        AtomicInteger nextCustomer = new AtomicInteger();
+        
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < config.getParallelism(); i++) {
+            tasks.add(workers.submit(() -> {
+                int index;
+                while ((index = nextCustomer.getAndIncrement()) < customerIds.size()) {
+                    // Checked before pacing too, so nothing waits its turn after the boundary
+                    if (!boundaryPassed(pass)) {
+                        long start = nextStart.getAndUpdate(
+                                previous -> Math.max(previous, System.nanoTime()) + interval);
+                        LockSupport.parkNanos(start - System.nanoTime());
+                    }
+                    if (boundaryPassed(pass)) {
+                        // This customer and all those no worker has taken yet
+                        int untaken = customerIds.size() - nextCustomer.getAndSet(customerIds.size());
+                        int notReached = 1 + Math.max(0, untaken);
+                        pass.notReached.addAndGet(notReached);
+                        notReachedCustomers.increment(notReached);
+                        return;
+                    }
+                    warmCustomer(customerIds.get(index), pass);
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tasks.forEach(remaining -> remaining.cancel(true));
+                return;
+            } catch (ExecutionException e) {
+                log.error("Pre-warming worker failed: {}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+    
+    private boolean boundaryPassed(Pass pass) {
+        return !LocalDateTime.now(clock).isBefore(pass.boundary);
+    }
+    
+    private void warmCustomer(String customerId, Pass pass) {
+        try {
+            if (featureDecisionService.prewarm(customerId, pass.boundary)) {
+                pass.warmed.incrementAndGet();
+                warmedCustomers.increment();
+                return;
+            }
+            log.debug("Not pre-warming customer {}: only last known accounts available", customerId);
+        } catch (RuntimeException e) {
+            log.debug("Pre-warming customer {} failed: {}", customerId, e.getMessage());
+        }
+        pass.failed.incrementAndGet();
+        failedCustomers.increment();
+    }
+    
+    /**
+     * Customers with a window boundary at this one, from every place the service holds
+     * accounts. The accounts seen here only select customers; they are read again when warmed.
+     */
+    private List<String> affectedCustomers(LocalDateTime boundary) {
+        Collection<Integer> windowHours = ruleSetManager.current().getDecisionMatrix().getWindowThresholds();
+        LocalDateTime justBefore = boundary.minusNanos(1);
+        Set<String> customerIds = new LinkedHashSet<>();
+        RosterIndex.CustomerConsumer select = (slot, customerId, accounts) -> {
+            if (boundary.equals(AccountSummary.of(accounts).nextWindowBoundary(windowHours, justBefore))) {
+                customerIds.add(customerId);
+            }
+        };
+        
+        RosterIndex rosterIndex = rosterStore.isEnabled() ? rosterStore.current() : null;
+        if (rosterIndex != null) {
+            rosterIndex.forEachCustomer(0, rosterIndex.getSlotCount(), select);
+        }
+        customerAccountStore.forEachKnown((customerId, accounts) -> select.accept(-1, customerId, accounts));
+        accountStatusCache.forEachRecentCustomer((customerId, accounts) -> select.accept(-1, customerId, accounts));
+        return new ArrayList<>(customerIds);
+    }
+    
+    // Earliest boundary after now of any known migration date; null without the compiled decision matrix
+    private LocalDateTime nextBoundary(LocalDateTime now) {
+        DecisionMatrix decisionMatrix = ruleSetManager.current().getDecisionMatrix();
+        if (!decisionMatrix.isCompiled()) {
+            return null;
+        }
+        // The same boundaries accounts migrating on those dates have
+        List<AccountInfo> dates = migrationDates().stream()
+                .map(date -> AccountInfo.builder().migrationDate(date).build())
+                .toList();
+        return AccountSummary.of(dates).nextWindowBoundary(decisionMatrix.getWindowThresholds(), now);
+    }
+    
+    private SortedSet<LocalDate> migrationDates() {
+        SortedSet<LocalDate> dates = new TreeSet<>(rosterDates);
+        config.getWaveDates().values().forEach(dates::addAll);
+        return dates;
+    }
+    
+    // Runs on the scheduler thread when a roster snapshot becomes active
+    private void collectRosterDates(RosterIndex rosterIndex) {
+        SortedSet<LocalDate> dates = new TreeSet<>();
+        rosterIndex.forEachCustomer(0, rosterIndex.getSlotCount(), (slot, customerId, accounts) -> {
+            for (AccountInfo account : accounts) {
+                if (account.getMigrationDate() != null) {
+                    dates.add(account.getMigrationDate());
+                }
+            }
+        });
+        rosterDates = dates;
+        log.info("Roster snapshot has {} migration dates", dates.size());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+    
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("migration.prewarm.customers")
+                .description("Customers handled by decision pre-warming passes")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+    
+    // Progress of a running pass, read by getInfo while the workers update it
+    private static final class Pass {
+        
+        private final LocalDateTime boundary;
+        private final LocalDateTime startedAt;
+        private final int customers;
+        private final AtomicInteger warmed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger notReached = new AtomicInteger();
+        
+        Pass(LocalDateTime boundary, LocalDateTime startedAt, int customers) {
+            this.boundary = boundary;
+            this.startedAt = startedAt;
+            this.customers = customers;
+        }
+        
+        PrewarmInfoResponse.Pass toInfo(LocalDateTime now, boolean finished) {
+            return PrewarmInfoResponse.Pass.builder()
+                    .boundary(boundary)
+                    .startedAt(startedAt)
+                    .finishedAt(finished ? now : null)
+                    .durationMillis(Duration.between(startedAt, now).toMillis())
+                    .customers(customers)
+                    .warmed(warmed.get())
+                    .failed(failed.get())
+                    .notReached(notReached.get())
+                    .build();
+        }
+    }
+}
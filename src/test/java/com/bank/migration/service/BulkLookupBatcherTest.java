@@ -0,0 +1,164 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.exception.MigrationApiException;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.BulkAccountsRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Lookups merged into bulk requests to a stub of the bulk endpoint, and split back per caller
+class BulkLookupBatcherTest {
+    
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockWebServer server;
+    private MigrationApiConfig config;
+    private CloseableHttpClient httpClient;
+    private BulkLookupBatcher batcher;
+    // How long the stub takes to answer a bulk request
+    private volatile Duration stubDelay = Duration.ZERO;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                Thread.sleep(stubDelay.toMillis());
+                try {
+                    // A copy, so the body can still be read from the recorded request
+                    String body = request.getBody().clone().readUtf8();
+                    return bulkResponse(OBJECT_MAPPER.readValue(body, BulkAccountsRequest.class));
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(400);
+                }
+            }
+        });
+        server.start();
+        config = new MigrationApiConfig();
+        config.setBaseUrl(server.url("").toString().replaceAll("/$", ""));
+        config.setTimeout(2000);
+        config.getCircuitBreaker().setEnabled(false);
+        config.getBulk().setMaxBatchSize(3);
+        config.getBulk().setMaxDelay(Duration.ofMillis(100));
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        server.shutdown();
+    }
+    
+    @Test
+    void splitsLookupsIntoBatchesAndAnswersEachCaller() throws Exception {
+        batcher = batcher();
+        
+        List<String> customerIds = List.of("CUST001", "CUST002", "CUST003", "CUST004", "MISSING005");
+        List<CompletableFuture<List<AccountInfo>>> lookups = customerIds.stream().map(batcher::submit).toList();
+        
+        for (int i = 0; i < 4; i++) {
+            assertThat(lookups.get(i).get(5, TimeUnit.SECONDS)).extracting(AccountInfo::getAccountId)
+                    .containsExactly(customerIds.get(i) + "-A1");
+        }
+        // Left out of the bulk response: only that caller fails
+        assertThatThrownBy(() -> lookups.get(4).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(MigrationApiException.class);
+        
+        // The first three fill a batch; the other two go when max-delay is up
+        assertThat(requestedCustomers(server.takeRequest())).containsExactly("CUST001", "CUST002", "CUST003");
+        assertThat(requestedCustomers(server.takeRequest())).containsExactly("CUST004", "MISSING005");
+        assertThat(batchSize("size").count()).isEqualTo(1);
+        assertThat(batchSize("delay").totalAmount()).isEqualTo(2);
+    }
+    
+    @Test
+    void asksOnceForACustomerQueuedTwice() throws Exception {
+        batcher = batcher();
+        
+        CompletableFuture<List<AccountInfo>> first = batcher.submit("CUST001");
+        CompletableFuture<List<AccountInfo>> second = batcher.submit("CUST001");
+        
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(second.get(5, TimeUnit.SECONDS));
+        assertThat(requestedCustomers(server.takeRequest())).containsExactly("CUST001");
+    }
+    
+    @Test
+    void failsEveryLookupOfABatchTheApiDoesNotAnswerInTime() {
+        config.setTimeout(200);
+        stubDelay = Duration.ofSeconds(2);
+        batcher = batcher();
+        
+        long start = System.nanoTime();
+        List<CompletableFuture<List<AccountInfo>>> lookups = List.of(
+                batcher.submit("CUST001"), batcher.submit("CUST002"), batcher.submit("CUST003"));
+        
+        for (CompletableFuture<List<AccountInfo>> lookup : lookups) {
+            assertThatThrownBy(() -> lookup.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(MigrationApiException.class);
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("migration.api.calls").tags("call", "bulk", "error", "timeout").timer().count())
+                .isEqualTo(1);
+    }
+    
+    // Over the real client, the way MigrationApiClient sets it up in bulk mode
+    private BulkLookupBatcher batcher() {
+        httpClient = config.migrationApiHttpClient(config.migrationApiConnectionManager(meterRegistry));
+        MigrationApiClient client = new MigrationApiClient(config.restTemplate(new RestTemplateBuilder(), httpClient),
+                config, new MigrationApiCircuitBreaker(config, Clock.systemDefaultZone(), meterRegistry), meterRegistry);
+        return new BulkLookupBatcher(client::getAccountStatusesBulk, config.getBulk(), meterRegistry);
+    }
+    
+    private DistributionSummary batchSize(String trigger) {
+        return meterRegistry.get("migration.api.bulk.batch.size").tag("trigger", trigger).summary();
+    }
+    
+    private static List<String> requestedCustomers(RecordedRequest request) throws IOException {
+        assertThat(request.getPath()).isEqualTo("/api/customers/accounts/bulk");
+        return OBJECT_MAPPER.readValue(request.getBody().readUtf8(), BulkAccountsRequest.class).getCustomerIds();
+    }
+    
+    // Every customer asked for, except MISSING ones
+    private static MockResponse bulkResponse(BulkAccountsRequest request) {
+        String customers = request.getCustomerIds().stream()
+                .filter(customerId -> !customerId.startsWith("MISSING"))
+                .map(customerId -> """
+                        {"customerId": "%s", "accounts": [{"accountId": "%s-A1", "accountType": "SAVINGS",
+                         "migrationStatus": "SCHEDULED", "migrationWave": "WAVE1", "migrationDate": "2025-11-08"}]}
+                        """.formatted(customerId, customerId))
+                .collect(Collectors.joining(",", "{\"customers\": [", "]}"));
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(customers);
+    }
+}
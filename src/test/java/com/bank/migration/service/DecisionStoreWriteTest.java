@@ -0,0 +1,77 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.rules.CustomerStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecisionStoreWriteTest {
+    
+    private static final long SLOTS_PER_SEGMENT = MappedSegments.SEGMENT_SIZE / DecisionStore.ENTRY_SIZE;
+    private static final CustomerStatus[] STATUSES = CustomerStatus.values();
+    private static final LocalDateTime BOUNDARY = LocalDateTime.of(2025, 11, 8, 0, 0);
+    
+    @TempDir
+    Path directory;
+    
+    // As the precompute job does: one read-write mapping, workers writing disjoint slot ranges
+    // concurrently, spread over several segments
+    @Test
+    void concurrentWritersAcrossSegments() throws Exception {
+        long slotCount = 3 * SLOTS_PER_SEGMENT + 1000;
+        // One entry per 4 KB page, so the sparse file stays small
+        long stride = 4096 / DecisionStore.ENTRY_SIZE;
+        int threads = 8;
+        long perTask = SLOTS_PER_SEGMENT / 4;
+        Path file = directory.resolve("decisions");
+        
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try (MappedSegments out = MappedSegments.create(file)) {
+            out.mapTo(slotCount * DecisionStore.ENTRY_SIZE);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (long taskStart = 0; taskStart < slotCount; taskStart += perTask) {
+                long from = taskStart;
+                long to = Math.min(from + perTask, slotCount);
+                tasks.add(workers.submit(() -> {
+                    for (long slot = from; slot < to; slot += stride) {
+                        DecisionStore.write(out, slot, status(slot), outcome(slot), BOUNDARY.plusSeconds(slot));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            out.force();
+        } finally {
+            workers.shutdownNow();
+        }
+        
+        try (MappedSegments in = MappedSegments.open(file)) {
+            for (long slot = 0; slot < slotCount; slot += stride) {
+                long offset = slot * DecisionStore.ENTRY_SIZE;
+                assertThat(in.getLong(offset)).as("boundary of slot %d", slot)
+                        .isEqualTo(BOUNDARY.plusSeconds(slot).toEpochSecond(ZoneOffset.UTC));
+                assertThat(in.getInt(offset + 8)).as("outcome of slot %d", slot).isEqualTo(outcome(slot));
+                assertThat(in.get(offset + 12)).as("status of slot %d", slot).isEqualTo((byte) status(slot).ordinal());
+            }
+        }
+    }
+    
+    private static int outcome(long slot) {
+        return (int) (slot % 1_000_003);
+    }
+    
+    private static CustomerStatus status(long slot) {
+        return STATUSES[(int) (slot % STATUSES.length)];
+    }
+}
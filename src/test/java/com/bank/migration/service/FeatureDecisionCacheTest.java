@@ -0,0 +1,213 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.AccountEventsConfig;
+import com.bank.migration.config.DroolsConfig;
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountStatusEvent;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+import com.bank.migration.model.rules.CustomerMigrationContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FeatureDecisionCacheTest {
+    
+    private static final String CUSTOMER = "CUST001";
+    
+    private static RuleSet ruleSet;
+    
+    private final Clock clock = Clock.systemDefaultZone();
+    private CustomerAccountStore customerAccountStore;
+    private FeatureDecisionCache featureDecisionCache;
+    
+    @BeforeAll
+    static void compileRules() {
+        ruleSet = new RuleSetCompiler(new DroolsConfig(), new SimpleMeterRegistry())
+                .compile(RuleTable.bundled(FeatureDecisionCacheTest.class.getClassLoader()));
+    }
+    
+    @AfterAll
+    static void disposeRules() {
+        ruleSet.dispose();
+    }
+    
+    @BeforeEach
+    void setUp() {
+        AccountEventsConfig eventsConfig = new AccountEventsConfig();
+        eventsConfig.setEnabled(true);
+        customerAccountStore = new CustomerAccountStore(eventsConfig, new SimpleMeterRegistry());
+        AccountStatusCache accountStatusCache = mock(AccountStatusCache.class);
+        when(accountStatusCache.expiryFor(any(), any())).thenReturn(Duration.ofMinutes(5));
+        featureDecisionCache = new FeatureDecisionCache(new DroolsConfig(), accountStatusCache, customerAccountStore,
+                clock, new SimpleMeterRegistry());
+    }
+    
+    @Test
+    void cachesDecisionsWhenAccountsDidNotChange() {
+        long version = customerAccountStore.changeVersion(CUSTOMER);
+        featureDecisionCache.put(evaluated(), ruleSet, version, null);
+        
+        assertThat(featureDecisionCache.get(CUSTOMER, ruleSet)).isNotNull();
+    }
+    
+    // Decisions made from accounts read before an event must not outlive the event's eviction
+    @Test
+    void refusesDecisionsMadeBeforeAnEvent() {
+        long version = customerAccountStore.changeVersion(CUSTOMER);
+        CustomerMigrationContext context = evaluated();
+        
+        applyEvent();
+        featureDecisionCache.evict(Set.of(CUSTOMER));
+        featureDecisionCache.put(context, ruleSet, version, null);
+        featureDecisionCache.putUpcoming(context, ruleSet, version);
+        
+        assertThat(featureDecisionCache.get(CUSTOMER, ruleSet)).isNull();
+    }
+    
+    @Test
+    void anEventDoesNotBlockLaterDecisions() {
+        applyEvent();
+        long version = customerAccountStore.changeVersion(CUSTOMER);
+        featureDecisionCache.put(evaluated(), ruleSet, version, null);
+        
+        assertThat(featureDecisionCache.get(CUSTOMER, ruleSet)).isNotNull();
+    }
+    
+    // Decisions made from an account snapshot read earlier go when the snapshot does, not a TTL after the decision
+    @Test
+    void expiresWithTheAccountSnapshot() {
+        LocalDateTime loadedAt = LocalDate.now().plusDays(5).atTime(12, 0);
+        
+        assertExpiry(loadedAt, loadedAt.plusMinutes(3), loadedAt.plusMinutes(5));
+    }
+    
+    @Test
+    void expiresAtTheStartOfTheWindowLeadTime() {
+        LocalDate migrationDate = LocalDate.now().plusDays(10);
+        LocalDateTime leadStart = migrationDate.atStartOfDay().minus(new MigrationApiConfig().getCache().getWindowLeadTime());
+        
+        assertExpiry(leadStart.minusMinutes(3), leadStart.minusMinutes(1), leadStart);
+    }
+    
+    @Test
+    void expiresAtTheEndOfTheMigrationDay() {
+        LocalDate migrationDate = LocalDate.now().plusDays(10);
+        LocalDateTime endOfDay = migrationDate.plusDays(1).atStartOfDay();
+        
+        assertExpiry(endOfDay.minusSeconds(10), endOfDay.minusSeconds(5), endOfDay);
+    }
+    
+    // Accounts migrating 10 days from now are read through a real account status cache at loadedAt and
+    // decided on at decidedAt; the decisions must be there until just before expectedExpiry only
+    private void assertExpiry(LocalDateTime loadedAt, LocalDateTime decidedAt, LocalDateTime expectedExpiry) {
+        MutableClock clock = new MutableClock(loadedAt);
+        SingleFlightAccountLoader accountLoader = mock(SingleFlightAccountLoader.class);
+        when(accountLoader.getAccountStatuses(CUSTOMER)).thenReturn(accounts(LocalDate.now().plusDays(10)));
+        MigrationApiCircuitBreaker circuitBreaker = mock(MigrationApiCircuitBreaker.class);
+        when(circuitBreaker.isClosed()).thenReturn(true);
+        // Without events, accounts are only held by the account status cache
+        CustomerAccountStore noEvents = new CustomerAccountStore(new AccountEventsConfig(), new SimpleMeterRegistry());
+        AccountStatusCache accountStatusCache = new AccountStatusCache(accountLoader, mock(RosterStore.class), noEvents,
+                circuitBreaker, new MigrationApiConfig(), clock, new SimpleMeterRegistry());
+        FeatureDecisionCache decisionCache = new FeatureDecisionCache(new DroolsConfig(), accountStatusCache, noEvents,
+                clock, new SimpleMeterRegistry());
+        
+        accountStatusCache.lookup(CUSTOMER);
+        clock.set(decidedAt);
+        AccountStatusCache.Lookup lookup = accountStatusCache.lookup(CUSTOMER);
+        decisionCache.put(evaluated(lookup.accounts(), decidedAt), ruleSet, noEvents.changeVersion(CUSTOMER),
+                lookup.expiresAt());
+        
+        clock.set(expectedExpiry.minusSeconds(1));
+        assertThat(decisionCache.get(CUSTOMER, ruleSet)).isNotNull();
+        clock.set(expectedExpiry);
+        assertThat(decisionCache.get(CUSTOMER, ruleSet)).isNull();
+        accountStatusCache.shutdown();
+    }
+    
+    private CustomerMigrationContext evaluated() {
+        return evaluated(accounts(LocalDate.now(clock).plusDays(10)), LocalDateTime.now(clock));
+    }
+    
+    private static CustomerMigrationContext evaluated(List<AccountInfo> accounts, LocalDateTime evaluationTime) {
+        CustomerMigrationContext context = CustomerMigrationContext.builder()
+                .customerId(CUSTOMER)
+                .accounts(accounts)
+                .requestedFeatures(List.of())
+                .evaluationTime(evaluationTime)
+                .featureRegistry(ruleSet.getFeatureRegistry())
+                .build();
+        context.deriveCustomerStatus();
+        ruleSet.getDecisionMatrix().evaluate(context);
+        return context;
+    }
+    
+    private static List<AccountInfo> accounts(LocalDate migrationDate) {
+        return List.of(AccountInfo.builder()
+                .accountId("A1")
+                .accountType(AccountType.SAVINGS)
+                .migrationStatus(MigrationStatus.SCHEDULED)
+                .migrationWave(MigrationWave.WAVE1)
+                .migrationDate(migrationDate)
+                .build());
+    }
+    
+    private void applyEvent() {
+        customerAccountStore.apply(CUSTOMER, List.of(AccountStatusEvent.builder()
+                .customerId(CUSTOMER)
+                .accountId("A1")
+                .version(1L)
+                .accountType(AccountType.SAVINGS)
+                .migrationStatus(MigrationStatus.IN_PROGRESS)
+                .migrationWave(MigrationWave.WAVE1)
+                .migrationDate(LocalDate.now(clock))
+                .build()));
+    }
+    
+    private static class MutableClock extends Clock {
+        
+        private volatile Instant instant;
+        
+        MutableClock(LocalDateTime time) {
+            set(time);
+        }
+        
+        void set(LocalDateTime time) {
+            instant = time.atZone(getZone()).toInstant();
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.MigrationApiConfig;
+import com.bank.migration.config.TimedPoolingConnectionManager;
+import com.bank.migration.exception.MigrationApiException;
+import com.bank.migration.model.migration.AccountInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The pooled client against a stub migration API
+class MigrationApiClientTest {
+    
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockWebServer server;
+    private MigrationApiConfig config;
+    private CloseableHttpClient httpClient;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        config = new MigrationApiConfig();
+        config.setBaseUrl(server.url("").toString().replaceAll("/$", ""));
+        config.setEndpoint("/api/customer/{customerId}/accounts");
+        config.setTimeout(2000);
+        config.getCircuitBreaker().setEnabled(false);
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        server.shutdown();
+    }
+    
+    @Test
+    void reusesPooledConnections() throws Exception {
+        MigrationApiClient client = client();
+        for (int i = 1; i <= 3; i++) {
+            server.enqueue(accounts("CUST00" + i));
+        }
+        
+        for (int i = 1; i <= 3; i++) {
+            List<AccountInfo> accounts = client.getAccountStatuses("CUST00" + i);
+            assertThat(accounts).extracting(AccountInfo::getAccountId).containsExactly("CUST00" + i + "-A1");
+        }
+        
+        // Sequence numbers count requests per connection: all three went over the first one
+        assertThat(server.takeRequest().getPath()).isEqualTo("/api/customer/CUST001/accounts");
+        assertThat(server.takeRequest().getSequenceNumber()).isEqualTo(1);
+        assertThat(server.takeRequest().getSequenceNumber()).isEqualTo(2);
+    }
+    
+    @Test
+    void failsASlowResponseAfterTheReadTimeout() {
+        config.setTimeout(200);
+        MigrationApiClient client = client();
+        server.enqueue(accounts("CUST001").setHeadersDelay(2, TimeUnit.SECONDS));
+        
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.getAccountStatuses("CUST001"))
+                .isInstanceOf(MigrationApiException.class);
+        
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("migration.api.calls").tag("error", "timeout").timer().count()).isEqualTo(1);
+    }
+    
+    // With every connection in use, a call waits connection-request-timeout, not for the slow call
+    @Test
+    void failsFastWhenThePoolIsExhausted() throws Exception {
+        config.getHttp().setMaxConnections(1);
+        config.getHttp().setMaxConnectionsPerRoute(1);
+        config.getHttp().setConnectionRequestTimeout(Duration.ofMillis(100));
+        MigrationApiClient client = client();
+        server.enqueue(accounts("CUST001").setHeadersDelay(1, TimeUnit.SECONDS));
+        
+        CompletableFuture<List<AccountInfo>> slow = CompletableFuture.supplyAsync(
+                () -> client.getAccountStatuses("CUST001"));
+        server.takeRequest();
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.getAccountStatuses("CUST002"))
+                .isInstanceOf(MigrationApiException.class);
+        
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(800));
+        assertThat(meterRegistry.get("migration.api.http.pool.timeouts").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("migration.api.calls").tag("error", "timeout").timer().count()).isEqualTo(1);
+        assertThat(slow.get(5, TimeUnit.SECONDS)).hasSize(1);
+    }
+    
+    private MigrationApiClient client() {
+        TimedPoolingConnectionManager connectionManager = config.migrationApiConnectionManager(meterRegistry);
+        httpClient = config.migrationApiHttpClient(connectionManager);
+        return new MigrationApiClient(config.restTemplate(new RestTemplateBuilder(), httpClient), config,
+                new MigrationApiCircuitBreaker(config, Clock.systemDefaultZone(), meterRegistry), meterRegistry);
+    }
+    
+    private static MockResponse accounts(String customerId) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody("""
+                        {"customerId": "%s", "accounts": [{"accountId": "%s-A1", "accountType": "SAVINGS",
+                         "migrationStatus": "SCHEDULED", "migrationWave": "WAVE1", "migrationDate": "2025-11-08"}]}
+                        """.formatted(customerId, customerId));
+    }
+}
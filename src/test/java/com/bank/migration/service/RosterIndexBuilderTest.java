@@ -0,0 +1,121 @@
+package com.bank.migration.service;
+
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// A roster extract indexed into a mapped file of more than one segment, then opened again from that file
+class RosterIndexBuilderTest {
+    
+    // Long account IDs make the records, and so the index, span several segments with few lines
+    private static final String PADDING = "x".repeat(RosterIndex.MAX_ID_BYTES - 24);
+    private static final int CUSTOMERS = (int) (MappedSegments.SEGMENT_SIZE / (2 * RosterIndex.MAX_ID_BYTES));
+    private static final LocalDate MIGRATION_DATE = LocalDate.of(2025, 11, 15);
+    
+    @TempDir
+    Path directory;
+    
+    private final List<RosterIndex> indexes = new ArrayList<>();
+    
+    @AfterEach
+    void tearDown() {
+        indexes.forEach(RosterIndex::dispose);
+    }
+    
+    @Test
+    void findsCustomersInEverySegmentAfterReopening() throws IOException {
+        Path snapshot = directory.resolve("roster.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(snapshot, StandardCharsets.UTF_8)) {
+            writer.write("customerId,accountId,accountType,migrationStatus,migrationWave,migrationDate\n");
+            // Each customer's second account comes half the file later: for the last ones, in the next segment
+            for (int account = 1; account <= 2; account++) {
+                for (int customer = 0; customer < CUSTOMERS; customer++) {
+                    writer.write("C" + customer + "," + accountId(customer, account)
+                            + ",SAVINGS,SCHEDULED,WAVE1," + MIGRATION_DATE + "\n");
+                }
+            }
+        }
+        Path indexFile = directory.resolve("roster.idx");
+        
+        RosterIndex built = track(RosterIndexBuilder.build(snapshot, indexFile));
+        assertThat(built.getSizeBytes()).isGreaterThan(MappedSegments.SEGMENT_SIZE);
+        RosterIndex reopened = track(RosterIndex.open(indexFile, snapshot.toString(), Duration.ZERO));
+        
+        for (RosterIndex index : List.of(built, reopened)) {
+            assertThat(index.getCustomerCount()).isEqualTo(CUSTOMERS);
+            assertThat(index.getAccountCount()).isEqualTo(2L * CUSTOMERS);
+            for (int customer : new int[] {0, CUSTOMERS / 2, CUSTOMERS - 1}) {
+                List<AccountInfo> accounts = index.find("C" + customer);
+                assertThat(accounts).extracting(AccountInfo::getAccountId)
+                        .containsExactly(accountId(customer, 1), accountId(customer, 2));
+                assertThat(accounts.get(1)).isEqualTo(AccountInfo.builder()
+                        .accountId(accountId(customer, 2))
+                        .accountType(AccountType.SAVINGS)
+                        .migrationStatus(MigrationStatus.SCHEDULED)
+                        .migrationWave(MigrationWave.WAVE1)
+                        .migrationDate(MIGRATION_DATE)
+                        .build());
+            }
+            assertThat(index.find("C" + CUSTOMERS)).isNull();
+        }
+    }
+    
+    @Test
+    void readsQuotedCsvFields() throws IOException {
+        Path snapshot = write("roster.csv",
+                "\"customerId\",accountId,accountType,migrationStatus,migrationWave,migrationDate",
+                "CUST001,\"ACC,001\",SAVINGS,SCHEDULED,WAVE1,2025-11-15",
+                "CUST001,\"ACC \"\"002\"\"\",CHECKING,,,");
+        
+        RosterIndex index = track(RosterIndexBuilder.build(snapshot, directory.resolve("roster.idx")));
+        
+        List<AccountInfo> accounts = index.find("CUST001");
+        assertThat(accounts).extracting(AccountInfo::getAccountId).containsExactly("ACC,001", "ACC \"002\"");
+        assertThat(accounts.get(1).getAccountType()).isEqualTo(AccountType.CHECKING);
+        assertThat(accounts.get(1).getMigrationDate()).isNull();
+    }
+    
+    @Test
+    void rejectsAQuoteLeftOpen() throws IOException {
+        Path snapshot = write("roster.csv",
+                "customerId,accountId,accountType,migrationStatus,migrationWave,migrationDate",
+                "CUST001,\"ACC001,SAVINGS,SCHEDULED,WAVE1,2025-11-15");
+        Path indexFile = directory.resolve("roster.idx");
+        
+        assertThatThrownBy(() -> RosterIndexBuilder.build(snapshot, indexFile))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("line 2");
+        assertThat(indexFile).doesNotExist();
+        assertThat(directory.resolve("roster.idx.tmp")).doesNotExist();
+    }
+    
+    private static String accountId(int customer, int account) {
+        return "A" + account + "-" + customer + "-" + PADDING;
+    }
+    
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(directory.resolve(name), List.of(lines));
+    }
+    
+    private RosterIndex track(RosterIndex index) {
+        indexes.add(index);
+        return index;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.DroolsConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.ReleaseId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A replaced rule set stays usable while a request holds it, and is disposed by its last release
+class RuleSetManagerTest {
+    
+    private RuleSetManager manager;
+    
+    @BeforeEach
+    void setUp() {
+        DroolsConfig droolsConfig = new DroolsConfig();
+        droolsConfig.setPrecompiledEnabled(false);
+        manager = new RuleSetManager(new RuleSetCompiler(droolsConfig, new SimpleMeterRegistry()), droolsConfig,
+                new SimpleMeterRegistry());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+    
+    @Test
+    void disposesAReplacedRuleSetWhenTheLastHolderReleasesIt() {
+        RuleSet first = manager.acquire();
+        RuleSet second = manager.acquire();
+        ReleaseId releaseId = first.getKieContainer().getReleaseId();
+        
+        manager.reload(RuleTable.bundled(getClass().getClassLoader()));
+        assertThat(manager.current()).isNotSameAs(first);
+        
+        first.release();
+        assertThat(isLoaded(releaseId)).isTrue();
+        
+        second.release();
+        assertThat(isLoaded(releaseId)).isFalse();
+    }
+    
+    @Test
+    void neverHandsOutADisposedRuleSet() {
+        RuleSet replaced = manager.current();
+        
+        manager.reload(RuleTable.bundled(getClass().getClassLoader()));
+        
+        assertThat(replaced.retain()).isFalse();
+        RuleSet acquired = manager.acquire();
+        assertThat(acquired).isSameAs(manager.current());
+        acquired.release();
+        assertThat(isLoaded(acquired.getKieContainer().getReleaseId())).isTrue();
+    }
+    
+    private static boolean isLoaded(ReleaseId releaseId) {
+        return KieServices.Factory.get().getRepository().getKieModule(releaseId) != null;
+    }
+}
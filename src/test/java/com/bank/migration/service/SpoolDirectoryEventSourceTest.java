@@ -0,0 +1,160 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.AccountEventsConfig;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Event files dropped into a spool directory, through the ingestor into the account store
+class SpoolDirectoryEventSourceTest {
+    
+    private static final String CUSTOMER = "CUST001";
+    
+    @TempDir
+    Path spool;
+    
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FeatureDecisionCache featureDecisionCache = mock(FeatureDecisionCache.class);
+    private CustomerAccountStore customerAccountStore;
+    private AccountEventIngestor ingestor;
+    
+    @BeforeEach
+    void setUp() {
+        AccountEventsConfig config = new AccountEventsConfig();
+        config.setEnabled(true);
+        config.getSpool().setEnabled(true);
+        config.getSpool().setDirectory(spool.toString());
+        config.getSpool().setPollInterval(Duration.ofMillis(50));
+        config.getSpool().setBatchSize(2);
+        customerAccountStore = new CustomerAccountStore(config, meterRegistry);
+        // Read from the migration API before any event: events are applied over these accounts
+        customerAccountStore.record(CUSTOMER, List.of(AccountInfo.builder()
+                .accountId("A1")
+                .accountType(AccountType.SAVINGS)
+                .migrationStatus(MigrationStatus.SCHEDULED)
+                .migrationWave(MigrationWave.WAVE1)
+                .migrationDate(LocalDate.of(2025, 11, 8))
+                .build()));
+        SpoolDirectoryEventSource source = new SpoolDirectoryEventSource(config,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+        ingestor = new AccountEventIngestor(config, customerAccountStore, featureDecisionCache, List.of(source),
+                meterRegistry);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        ingestor.shutdown();
+    }
+    
+    // The same event delivered again is a duplicate: nothing changes and no decisions are dropped
+    @Test
+    void appliesAnEventDeliveredTwiceOnce() throws Exception {
+        long before = customerAccountStore.changeVersion(CUSTOMER);
+        
+        deliver("001.ndjson", event(1, "IN_PROGRESS"), event(1, "IN_PROGRESS"));
+        deliver("002.ndjson", event(1, "IN_PROGRESS"));
+        
+        assertThat(status()).isEqualTo(MigrationStatus.IN_PROGRESS);
+        assertThat(events("applied")).isEqualTo(1);
+        assertThat(events("duplicate")).isEqualTo(2);
+        assertThat(customerAccountStore.changeVersion(CUSTOMER)).isEqualTo(before + 1);
+        verify(featureDecisionCache, times(1)).evict(anySet());
+    }
+    
+    // An event older than the one applied is skipped, even when it arrives in a later file
+    @Test
+    void skipsAnEventOlderThanTheAppliedOne() throws Exception {
+        deliver("001.ndjson", event(2, "IN_PROGRESS"));
+        long afterNewer = customerAccountStore.changeVersion(CUSTOMER);
+        
+        deliver("002.ndjson", event(1, "SCHEDULED"));
+        
+        assertThat(status()).isEqualTo(MigrationStatus.IN_PROGRESS);
+        assertThat(events("outdated")).isEqualTo(1);
+        assertThat(customerAccountStore.changeVersion(CUSTOMER)).isEqualTo(afterNewer);
+    }
+    
+    // Cached decisions are refused while the change version moves; only a real change moves it
+    @Test
+    void bumpsTheChangeVersionOnlyOnAChange() throws Exception {
+        long before = customerAccountStore.changeVersion(CUSTOMER);
+        
+        deliver("001.ndjson", event(1, "SCHEDULED"));
+        assertThat(customerAccountStore.changeVersion(CUSTOMER)).isEqualTo(before + 1);
+        
+        deliver("002.ndjson", event(1, "SCHEDULED"), event(1, "SCHEDULED"));
+        assertThat(customerAccountStore.changeVersion(CUSTOMER)).isEqualTo(before + 1);
+        
+        deliver("003.ndjson", event(2, "IN_PROGRESS"));
+        assertThat(customerAccountStore.changeVersion(CUSTOMER)).isEqualTo(before + 2);
+    }
+    
+    @Test
+    void rejectsASpoolBatchLargerThanTheIngestionLimit() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class,
+                        ValidationAutoConfiguration.class))
+                .withUserConfiguration(AccountEventsConfig.class)
+                .withPropertyValues("migration.events.max-batch-size=100", "migration.events.spool.batch-size=500")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().rootCause().hasMessageContaining("spool.batch-size"));
+    }
+    
+    // Writes the file under another name and renames it, as producers should, then waits until it is read
+    private void deliver(String name, String... lines) throws IOException, InterruptedException {
+        Path written = Files.write(spool.resolve(name + ".tmp"), List.of(lines));
+        Files.move(written, spool.resolve(name));
+        Path done = spool.resolve(name + ".done");
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!Files.exists(done)) {
+            assertThat(spool.resolve(name + ".failed")).doesNotExist();
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError(name + " was not read within 10 seconds");
+            }
+            Thread.sleep(20);
+        }
+    }
+    
+    private static String event(long version, String migrationStatus) {
+        return """
+                {"customerId": "%s", "accountId": "A1", "version": %d, "accountType": "SAVINGS", \
+                "migrationStatus": "%s", "migrationWave": "WAVE1", "migrationDate": "2025-11-08"}\
+                """.formatted(CUSTOMER, version, migrationStatus);
+    }
+    
+    private MigrationStatus status() {
+        List<AccountInfo> accounts = customerAccountStore.find(CUSTOMER);
+        assertThat(accounts).hasSize(1);
+        return accounts.get(0).getMigrationStatus();
+    }
+    
+    private double events(String outcome) {
+        return meterRegistry.get("migration.events").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,104 @@
+package com.bank.migration.service;
+
+import com.bank.migration.config.AccountEventsConfig;
+import com.bank.migration.config.DroolsConfig;
+import com.bank.migration.config.PrewarmConfig;
+import com.bank.migration.model.dto.PrewarmInfoResponse;
+import com.bank.migration.model.migration.AccountInfo;
+import com.bank.migration.model.migration.AccountType;
+import com.bank.migration.model.migration.MigrationStatus;
+import com.bank.migration.model.migration.MigrationWave;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WavePrewarmSchedulerTest {
+    
+    private static final int CUSTOMERS = 1000;
+    
+    private RuleSet ruleSet;
+    private WavePrewarmScheduler scheduler;
+    
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        if (ruleSet != null) {
+            ruleSet.dispose();
+        }
+    }
+    
+    // At 10 customers/sec only a few are warmed before the boundary; the rest must be counted
+    // as not reached at the boundary, not each after another pacing interval
+    @Test
+    void passStopsAtTheBoundary() throws Exception {
+        ruleSet = new RuleSetCompiler(new DroolsConfig(), new SimpleMeterRegistry())
+                .compile(RuleTable.bundled(getClass().getClassLoader()));
+        LocalDate migrationDate = LocalDate.now().plusDays(30);
+        // Opening of the bundled table's 7 hour window
+        LocalDateTime boundary = migrationDate.atStartOfDay().minusHours(7);
+        
+        PrewarmConfig config = new PrewarmConfig();
+        config.setWaveDates(Map.of(MigrationWave.WAVE1, List.of(migrationDate)));
+        config.setRatePerSecond(10);
+        config.setParallelism(2);
+        
+        AccountEventsConfig eventsConfig = new AccountEventsConfig();
+        eventsConfig.setEnabled(true);
+        CustomerAccountStore customerAccountStore = new CustomerAccountStore(eventsConfig, new SimpleMeterRegistry());
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerAccountStore.record("C" + i, List.of(AccountInfo.builder()
+                    .accountId("C" + i + "-A1")
+                    .accountType(AccountType.SAVINGS)
+                    .migrationStatus(MigrationStatus.SCHEDULED)
+                    .migrationWave(MigrationWave.WAVE1)
+                    .migrationDate(migrationDate)
+                    .build()));
+        }
+        
+        FeatureDecisionService featureDecisionService = mock(FeatureDecisionService.class);
+        when(featureDecisionService.prewarm(anyString(), any())).thenReturn(true);
+        RuleSetManager ruleSetManager = mock(RuleSetManager.class);
+        when(ruleSetManager.current()).thenReturn(ruleSet);
+        // The boundary is 2 seconds away when the pass starts
+        Clock clock = Clock.offset(Clock.systemDefaultZone(),
+                Duration.between(LocalDateTime.now(), boundary.minusSeconds(2)));
+        scheduler = new WavePrewarmScheduler(config, featureDecisionService, ruleSetManager, mock(RosterStore.class),
+                customerAccountStore, mock(AccountStatusCache.class), clock, new SimpleMeterRegistry());
+        
+        assertThat(scheduler.trigger()).isTrue();
+        PrewarmInfoResponse.Pass pass = awaitPass();
+        
+        assertThat(pass.getBoundary()).isEqualTo(boundary);
+        assertThat(pass.getCustomers()).isEqualTo(CUSTOMERS);
+        assertThat(pass.getWarmed() + pass.getNotReached()).isEqualTo(CUSTOMERS);
+        assertThat(pass.getNotReached()).isGreaterThan(CUSTOMERS / 2);
+        assertThat(pass.getFinishedAt()).isBefore(boundary.plusSeconds(2));
+    }
+    
+    private PrewarmInfoResponse.Pass awaitPass() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (System.nanoTime() < deadline) {
+            List<PrewarmInfoResponse.Pass> passes = scheduler.getInfo().getPasses();
+            if (!passes.isEmpty()) {
+                return passes.get(0);
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("No pre-warming pass finished within 30 seconds");
+    }
+}